@@ -20,6 +20,7 @@ public class AdvertDefinitionConfig {
         try {
             AdvertDefinition advertDefinition = gapDefinitionRepository.findByName("Grant Advert Definition")
                     .getDefinition();
+            advertDefinition.buildIndex();
             log.info("getGrantAdvertDefinition Bean successfully created");
             return advertDefinition;
         }
@@ -0,0 +1,26 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.JwkProviderBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class JwksConfig {
+
+    @Bean
+    public JwkProvider jwkProvider(final JwtVerificationConfigProperties jwtVerificationConfigProperties)
+            throws MalformedURLException {
+        // keys are cached and re-fetched once expired, or straight away when a token
+        // arrives with a key id we haven't seen (e.g. after a key rotation)
+        return new JwkProviderBuilder(new URL(jwtVerificationConfigProperties.getJwksUrl()))
+                .cached(jwtVerificationConfigProperties.getJwksCacheSize(),
+                        jwtVerificationConfigProperties.getJwksCacheExpiryMinutes(), TimeUnit.MINUTES)
+                .rateLimited(10, 1, TimeUnit.MINUTES).build();
+    }
+
+}
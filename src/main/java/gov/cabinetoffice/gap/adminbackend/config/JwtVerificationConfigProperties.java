@@ -0,0 +1,36 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "jwt-verification")
+public class JwtVerificationConfigProperties {
+
+    /**
+     * When enabled, token signatures and claims are checked against the user service's
+     * JWKS instead of calling /is-user-logged-in on every request
+     */
+    private boolean localVerificationEnabled = false;
+
+    private String jwksUrl;
+
+    private String issuer;
+
+    private String audience;
+
+    private long jwksCacheSize = 10;
+
+    private long jwksCacheExpiryMinutes = 60;
+
+    /**
+     * How long a locally verified token is trusted before the user service is asked
+     * again whether it has been revoked. 0 checks on every request.
+     */
+    private long revocationCheckTtlSeconds = 60;
+
+}
@@ -0,0 +1,27 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "secret-cache")
+public class SecretCacheConfigProperties {
+
+    /**
+     * How long a secret is served from memory before it must be fetched again.
+     */
+    private Duration ttl = Duration.ofMinutes(15);
+
+    /**
+     * How often every cached secret is reloaded in the background, whether or not it has
+     * been read. Should be shorter than the ttl.
+     */
+    private Duration refreshAfter = Duration.ofMinutes(10);
+
+}
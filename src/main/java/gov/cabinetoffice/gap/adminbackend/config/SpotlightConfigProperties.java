@@ -7,6 +7,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -19,4 +21,29 @@ public class SpotlightConfigProperties {
 
     private String secretName;
 
+    /**
+     * Number of queued batches sent to Spotlight at the same time.
+     */
+    @Builder.Default
+    private int maxConcurrentBatches = 4;
+
+    /**
+     * Requests per second allowed against the Spotlight API, shared by every in-flight
+     * batch and retry. Keep this within Spotlight's published quota.
+     */
+    @Builder.Default
+    private double requestsPerSecond = 5;
+
+    /**
+     * Number of times a batch is resent after a 5xx response before support is emailed.
+     */
+    @Builder.Default
+    private int maxRetries = 3;
+
+    @Builder.Default
+    private Duration retryBaseDelay = Duration.ofSeconds(1);
+
+    @Builder.Default
+    private Duration retryMaxDelay = Duration.ofSeconds(30);
+
 }
\ No newline at end of file
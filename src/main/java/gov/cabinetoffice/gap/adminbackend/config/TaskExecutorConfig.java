@@ -0,0 +1,60 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@RequiredArgsConstructor
+public class TaskExecutorConfig {
+
+    public static final String SUBMISSION_EXPORT_BATCH_EXECUTOR = "submissionExportBatchExecutor";
+
+    public static final String SUBMISSION_EXPORT_SQS_EXECUTOR = "submissionExportSqsExecutor";
+
+    public static final String SPOTLIGHT_REQUEUE_EXECUTOR = "spotlightRequeueExecutor";
+
+    private final TaskExecutorConfigProperties taskExecutorConfigProperties;
+
+    /**
+     * Spring Boot only creates its default executor when there's no other Executor bean, so
+     * it's declared here as it would have been. Spring MVC runs the streamed downloads on it.
+     */
+    @Lazy
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(SUBMISSION_EXPORT_BATCH_EXECUTOR)
+    public ThreadPoolTaskExecutor submissionExportBatchExecutor() {
+        return fixedPool("submission-export-batch-", taskExecutorConfigProperties.getSubmissionExportBatch());
+    }
+
+    @Bean(SUBMISSION_EXPORT_SQS_EXECUTOR)
+    public ThreadPoolTaskExecutor submissionExportSqsExecutor() {
+        return fixedPool("submission-export-sqs-", taskExecutorConfigProperties.getSubmissionExportSqs());
+    }
+
+    @Bean(SPOTLIGHT_REQUEUE_EXECUTOR)
+    public ThreadPoolTaskExecutor spotlightRequeueExecutor() {
+        return fixedPool("spotlight-requeue-", taskExecutorConfigProperties.getSpotlightRequeue());
+    }
+
+    private ThreadPoolTaskExecutor fixedPool(String threadNamePrefix, TaskExecutorConfigProperties.Pool pool) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getThreads());
+        executor.setMaxPoolSize(pool.getThreads());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(taskExecutorConfigProperties.getShutdownTimeout().toMillis());
+        return executor;
+    }
+
+}
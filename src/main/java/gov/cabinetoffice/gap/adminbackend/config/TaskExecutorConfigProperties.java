@@ -0,0 +1,48 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "task-executors")
+public class TaskExecutorConfigProperties {
+
+    /**
+     * Turns requested submission exports into export records and SQS messages.
+     */
+    private Pool submissionExportBatch = new Pool(2);
+
+    /**
+     * Sends submission export messages to SQS, a batch of 10 per task.
+     */
+    private Pool submissionExportSqs = new Pool(8);
+
+    /**
+     * Sends failed Spotlight submissions back to their SQS queue, a batch of 10 per task.
+     */
+    private Pool spotlightRequeue = new Pool(4);
+
+    /**
+     * How long shutdown waits for running and queued tasks before interrupting them.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+
+        private int threads;
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package gov.cabinetoffice.gap.adminbackend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "zip-export")
+public class ZipExportConfigProperties {
+
+    /**
+     * Number of threads rendering XLSX parts. The default of 1 renders each part on the
+     * calling thread without starting a pool. Zero or less uses one per available core.
+     */
+    private int parallelism = 1;
+
+    /**
+     * Upper bound on the number of parts held in memory (rendering or rendered but not yet
+     * written to the zip) for a single export.
+     */
+    private int maxPartsInMemory = 8;
+
+    /**
+     * XLSX files are already zip compressed, so storing them avoids deflating them twice.
+     */
+    private boolean storeEntries = false;
+
+}
@@ -1,6 +1,5 @@
 package gov.cabinetoffice.gap.adminbackend.controllers;
 
-import com.contentful.java.cma.model.CMAHttpException;
 import gov.cabinetoffice.gap.adminbackend.annotations.LambdasHeaderValidator;
 import gov.cabinetoffice.gap.adminbackend.dtos.errors.FieldErrorsDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.*;
@@ -237,16 +236,7 @@ public class GrantAdvertController {
     @PostMapping("/lambda/{grantAdvertId}/publish")
     @LambdasHeaderValidator
     public ResponseEntity publishGrantAdvertLambda(final @PathVariable UUID grantAdvertId) {
-
-        try {
-            grantAdvertService.publishAdvert(grantAdvertId);
-        }
-        catch (CMAHttpException cmae) {
-            log.error("Contentful Error Body - " + cmae.getErrorBody().toString());
-
-            return ResponseEntity.badRequest().body(cmae.getErrorBody());
-        }
-
+        grantAdvertService.publishAdvert(grantAdvertId);
         return ResponseEntity.ok().build();
     }
 
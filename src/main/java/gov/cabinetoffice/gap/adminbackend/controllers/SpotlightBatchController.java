@@ -4,6 +4,7 @@ import gov.cabinetoffice.gap.adminbackend.annotations.LambdasHeaderValidator;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.GetSpotlightBatchErrorCountDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.SpotlightBatchDto;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightBatch;
+import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightBatchStatus;
 import gov.cabinetoffice.gap.adminbackend.mappers.SpotlightBatchMapper;
 import gov.cabinetoffice.gap.adminbackend.services.SpotlightBatchService;
@@ -133,6 +134,39 @@ public class SpotlightBatchController {
         return ResponseEntity.ok().body(spotlightBatchMapper.spotlightBatchToGetSpotlightBatchDto(spotlightBatch));
     }
 
+    @PostMapping("/queued/add-spotlight-submission/{spotlightSubmissionId}")
+    @Operation(summary = "Add a spotlight submission to the open queued batch, creating the batch if needed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully added the spotlight submission to a batch",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SpotlightBatchDto.class))),
+            @ApiResponse(responseCode = "404", description = "Spotlight submission does not exist",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "403", description = "Insufficient permissions to add to a spotlight batch",
+                    content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Bad request",
+                    content = @Content(mediaType = "application/json")) })
+    @LambdasHeaderValidator
+    public ResponseEntity<SpotlightBatchDto> addSpotlightSubmissionToOpenSpotlightBatch(
+            @PathVariable final UUID spotlightSubmissionId, @RequestParam(name = "batchSizeLimit",
+                    required = false, defaultValue = "200") final String batchSizeLimit) {
+        log.info("Adding spotlight submission with id {} to the open spotlight batch with max size limit {}",
+                spotlightSubmissionId, batchSizeLimit);
+
+        final SpotlightSubmission spotlightSubmission = spotlightSubmissionService
+                .getSpotlightSubmission(spotlightSubmissionId);
+
+        final UUID spotlightBatchId = spotlightBatchService
+                .addSpotlightSubmissionToOpenSpotlightBatch(spotlightSubmission, Integer.parseInt(batchSizeLimit));
+
+        log.info("Successfully added spotlight submission with id {} to spotlight batch with id {}",
+                spotlightSubmissionId, spotlightBatchId);
+
+        final SpotlightBatch spotlightBatch = spotlightBatchService.getSpotlightBatchById(spotlightBatchId);
+
+        return ResponseEntity.ok().body(spotlightBatchMapper.spotlightBatchToGetSpotlightBatchDto(spotlightBatch));
+    }
+
     @PostMapping("/send-to-spotlight")
     @Operation(summary = "send queued batches to spotlight")
     @ApiResponses(value = {
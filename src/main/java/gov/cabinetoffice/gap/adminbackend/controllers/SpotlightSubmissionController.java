@@ -9,7 +9,6 @@ import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightSubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.mappers.SpotlightSubmissionMapper;
 import gov.cabinetoffice.gap.adminbackend.security.CheckSchemeOwnership;
-import gov.cabinetoffice.gap.adminbackend.services.FileService;
 import gov.cabinetoffice.gap.adminbackend.services.SchemeService;
 import gov.cabinetoffice.gap.adminbackend.services.SpotlightSubmissionService;
 import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
@@ -21,15 +20,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.jetbrains.annotations.NotNull;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.util.UUID;
 
 import static gov.cabinetoffice.gap.adminbackend.controllers.SubmissionsController.EXPORT_CONTENT_TYPE;
@@ -47,8 +44,6 @@ public class SpotlightSubmissionController {
 
     private final SchemeService schemeService;
 
-    private final FileService fileService;
-
     private final SubmissionsService submissionsService;
 
     // check spring security whitelist before adding endpoints
@@ -109,39 +104,35 @@ public class SpotlightSubmissionController {
 
     @GetMapping(value = "/scheme/{schemeId}/download", produces = EXPORT_CONTENT_TYPE)
     @CheckSchemeOwnership
-    public ResponseEntity<InputStreamResource> downloadDueDiligenceChecks(@PathVariable Integer schemeId,
+    public ResponseEntity<StreamingResponseBody> downloadDueDiligenceChecks(@PathVariable Integer schemeId,
             @RequestParam boolean onlyValidationErrors) {
         final String logMessage = onlyValidationErrors ? "validation errors" : "all";
         log.info("Downloading {} due diligence data for scheme with id {}", logMessage, schemeId);
 
+        // looked up and checked before streaming starts so that a missing scheme or
+        // incomplete data still gets an error response
         final SchemeDTO scheme = schemeService.getSchemeBySchemeId(schemeId);
-        final ByteArrayOutputStream stream = spotlightSubmissionService.generateDownloadFile(scheme,
-                onlyValidationErrors);
-
-        submissionsService.updateLastRequiredChecksExportBySchemeId(schemeId);
+        spotlightSubmissionService.verifyDownloadFileData(schemeId, onlyValidationErrors);
 
-        return getInputStreamResourceResponseEntity(schemeId, stream, SpotlightExports.SPOTLIGHT_CHECKS_FILENAME);
-    }
+        final StreamingResponseBody responseBody = outputStream -> {
+            log.info("Started due diligence data export for scheme " + schemeId);
+            long start = System.currentTimeMillis();
 
-    @NotNull
-    private ResponseEntity<InputStreamResource> getInputStreamResourceResponseEntity(@PathVariable Integer schemeId,
-            ByteArrayOutputStream stream, String exportFileName) {
-        log.info("Started due diligence data export for scheme " + schemeId);
-        long start = System.currentTimeMillis();
+            spotlightSubmissionService.writeDownloadFile(scheme, onlyValidationErrors, outputStream);
+            submissionsService.updateLastRequiredChecksExportBySchemeId(schemeId);
 
-        final InputStreamResource resource = fileService.createTemporaryFile(stream, exportFileName);
-        final int length = stream.toByteArray().length;
+            long end = System.currentTimeMillis();
+            log.info("Finished due diligence data export for scheme " + schemeId + ". Export time in millis: "
+                    + (end - start));
+        };
 
         // setting HTTP headers to tell caller we are returning a file
         final HttpHeaders headers = new HttpHeaders();
-        headers.setContentDisposition(ContentDisposition.parse("attachment; filename=" + exportFileName));
-
-        long end = System.currentTimeMillis();
-        log.info("Finished due diligence data export for scheme " + schemeId + ". Export time in millis: "
-                + (end - start));
+        headers.setContentDisposition(
+                ContentDisposition.parse("attachment; filename=" + SpotlightExports.SPOTLIGHT_CHECKS_FILENAME));
 
-        return ResponseEntity.ok().headers(headers).contentLength(length)
-                .contentType(MediaType.parseMediaType(EXPORT_CONTENT_TYPE)).body(resource);
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType(EXPORT_CONTENT_TYPE))
+                .body(responseBody);
     }
 
 }
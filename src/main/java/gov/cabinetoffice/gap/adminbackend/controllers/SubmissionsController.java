@@ -5,11 +5,11 @@ import gov.cabinetoffice.gap.adminbackend.constants.SpotlightExports;
 import gov.cabinetoffice.gap.adminbackend.dtos.S3ObjectKeyDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.UrlDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.LambdaSubmissionDefinition;
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportJobDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportsDTO;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantExportStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.security.CheckSchemeOwnership;
-import gov.cabinetoffice.gap.adminbackend.services.FileService;
 import gov.cabinetoffice.gap.adminbackend.services.S3Service;
 import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -21,12 +21,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.constraints.NotNull;
-import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -43,50 +43,55 @@ public class SubmissionsController {
 
     private final S3Service s3Service;
 
-    private final FileService fileService;
-
     @GetMapping(value = "/spotlight-export/{applicationId}", produces = EXPORT_CONTENT_TYPE)
     @CheckSchemeOwnership
-    public ResponseEntity<InputStreamResource> exportSpotlightChecks(@PathVariable Integer applicationId) {
+    public ResponseEntity<StreamingResponseBody> exportSpotlightChecks(@PathVariable Integer applicationId) {
         log.info("Started submissions export for application " + applicationId);
-        long start = System.currentTimeMillis();
 
-        final ByteArrayOutputStream stream = submissionsService.exportSpotlightChecks(applicationId);
-        final InputStreamResource resource = fileService.createTemporaryFile(stream,
-                SpotlightExports.REQUIRED_CHECKS_FILENAME);
+        // checked up front so that an error response can still be sent before we start
+        // streaming the file
+        submissionsService.verifySpotlightExportAccess(applicationId);
+
+        final StreamingResponseBody responseBody = outputStream -> {
+            long start = System.currentTimeMillis();
 
-        submissionsService.updateSubmissionLastRequiredChecksExport(applicationId);
+            submissionsService.exportSpotlightChecks(applicationId, outputStream);
+            submissionsService.updateSubmissionLastRequiredChecksExport(applicationId);
 
-        final int length = stream.toByteArray().length;
-        log.info("Exporting spotlight checks for application ID {}, generated filename {} with length {}",
-                applicationId, SpotlightExports.REQUIRED_CHECKS_FILENAME, length);
+            long end = System.currentTimeMillis();
+            log.info("Finished submissions export for application " + applicationId + ", generated filename "
+                    + SpotlightExports.REQUIRED_CHECKS_FILENAME + ". Export time in millis: " + (end - start));
+        };
 
         // setting HTTP headers to tell caller we are returning a file
         final HttpHeaders headers = new HttpHeaders();
         headers.setContentDisposition(
                 ContentDisposition.parse("attachment; filename=" + SpotlightExports.REQUIRED_CHECKS_FILENAME));
 
-        long end = System.currentTimeMillis();
-        log.info("Finished submissions export for application " + applicationId + ". Export time in millis: "
-                + (end - start));
-
-        return ResponseEntity.ok().headers(headers).contentLength(length)
-                .contentType(MediaType.parseMediaType(EXPORT_CONTENT_TYPE)).body(resource);
+        return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType(EXPORT_CONTENT_TYPE))
+                .body(responseBody);
     }
 
     @PostMapping("/export-all/{applicationId}")
     @CheckSchemeOwnership
-    public ResponseEntity exportAllSubmissions(@PathVariable Integer applicationId) {
-        submissionsService.triggerSubmissionsExport(applicationId);
+    public ResponseEntity<SubmissionExportJobDTO> exportAllSubmissions(@PathVariable Integer applicationId) {
+        final UUID exportBatchId = submissionsService.requestSubmissionsExport(applicationId);
 
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(new SubmissionExportJobDTO(exportBatchId));
     }
 
     @GetMapping("/status/{applicationId}")
     @CheckSchemeOwnership
-    public ResponseEntity getExportStatus(@PathVariable Integer applicationId) {
+    public ResponseEntity getExportStatus(@PathVariable Integer applicationId, WebRequest webRequest) {
         final GrantExportStatus status = submissionsService.getExportStatus(applicationId);
-        return new ResponseEntity<>(status.toString(), HttpStatus.OK);
+
+        // lets pollers send If-None-Match and get an empty 304 while the status is unchanged
+        final String eTag = "\"" + status + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok().eTag(eTag).body(status.toString());
     }
 
     @GetMapping("/{submissionId}/export-batch/{batchExportId}/submission")
@@ -0,0 +1,35 @@
+package gov.cabinetoffice.gap.adminbackend.dtos;
+
+import java.math.BigDecimal;
+
+/**
+ * The mandatory question answers needed for a single due diligence export row, read
+ * straight from the database instead of loading the entity and its associations.
+ */
+public interface GrantMandatoryQuestionExportView {
+
+    String getId();
+
+    String getGapId();
+
+    String getName();
+
+    String getAddressLine1();
+
+    String getAddressLine2();
+
+    String getCity();
+
+    String getCounty();
+
+    String getPostcode();
+
+    BigDecimal getFundingAmount();
+
+    String getCharityCommissionNumber();
+
+    String getCompaniesHouseNumber();
+
+    String getOrgType();
+
+}
@@ -33,6 +33,8 @@ public class GetGrantAdvertPublishingInformationResponseDTO {
 
     private String contentfulSlug;
 
+    private boolean publishFailed;
+
     private byte[] lastUpdatedByEmail;
 
     private Instant lastUpdated;
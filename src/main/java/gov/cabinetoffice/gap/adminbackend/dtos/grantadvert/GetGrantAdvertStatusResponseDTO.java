@@ -20,4 +20,6 @@ public class GetGrantAdvertStatusResponseDTO {
 
     private String contentfulSlug;
 
+    private boolean publishFailed;
+
 }
@@ -25,6 +25,8 @@ public class AdvertSummaryPageDTO {
 
     private GrantAdvertStatus status;
 
+    private boolean publishFailed;
+
     private ZonedDateTime openingDate;
     private ZonedDateTime closingDate;
 
@@ -0,0 +1,17 @@
+package gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch;
+
+/**
+ * Counts of a scheme's failed submissions in the latest batch sent to Spotlight, and
+ * whether the scheme has a validation error in any batch.
+ */
+public interface SpotlightErrorCountsView {
+
+    Integer getApiErrorCount();
+
+    Integer getGgisErrorCount();
+
+    Integer getValidationErrorCount();
+
+    Boolean getValidationErrorPresent();
+
+}
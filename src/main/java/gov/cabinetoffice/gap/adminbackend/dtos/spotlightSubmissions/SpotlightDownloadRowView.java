@@ -0,0 +1,33 @@
+package gov.cabinetoffice.gap.adminbackend.dtos.spotlightSubmissions;
+
+import java.math.BigDecimal;
+
+/**
+ * The mandatory question answers needed for a single row of the scheme's due diligence
+ * download, read straight from the database instead of loading the full entities.
+ */
+public interface SpotlightDownloadRowView {
+
+    String getId();
+
+    String getGapId();
+
+    String getName();
+
+    String getAddressLine1();
+
+    String getAddressLine2();
+
+    String getCity();
+
+    String getCounty();
+
+    String getPostcode();
+
+    BigDecimal getFundingAmount();
+
+    String getCharityCommissionNumber();
+
+    String getCompaniesHouseNumber();
+
+}
@@ -0,0 +1,33 @@
+package gov.cabinetoffice.gap.adminbackend.dtos.submission;
+
+/**
+ * The ESSENTIAL section answers needed for a single spotlight export row, extracted from
+ * the submission definition by the database rather than by deserialising it here.
+ */
+public interface SpotlightExportRowView {
+
+    String getId();
+
+    String getGapId();
+
+    Boolean getHasEssentialQuestions();
+
+    String getOrganisationName();
+
+    String getAddressLine1();
+
+    String getAddressLine2();
+
+    String getAddressTown();
+
+    String getAddressCounty();
+
+    String getAddressPostcode();
+
+    String getApplicationAmount();
+
+    String getCharityNumber();
+
+    String getCompanyNumber();
+
+}
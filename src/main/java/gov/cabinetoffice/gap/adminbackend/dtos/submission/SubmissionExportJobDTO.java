@@ -0,0 +1,16 @@
+package gov.cabinetoffice.gap.adminbackend.dtos.submission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubmissionExportJobDTO {
+
+    private UUID exportBatchId;
+
+}
@@ -0,0 +1,14 @@
+package gov.cabinetoffice.gap.adminbackend.dtos.submission;
+
+import java.util.UUID;
+
+/**
+ * Just enough of a submission to queue it for export.
+ */
+public interface SubmissionExportView {
+
+    UUID getId();
+
+    Integer getSchemeId();
+
+}
@@ -0,0 +1,70 @@
+package gov.cabinetoffice.gap.adminbackend.entities;
+
+import gov.cabinetoffice.gap.adminbackend.enums.AdvertPublishOutboxStatus;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSchedulerAction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A publish or unpublish of an advert that still has to be sent to Contentful and the
+ * OpenSearch queue. Written in the same transaction as the advert's status change; the id
+ * doubles as the idempotency key for everything sent on its behalf.
+ */
+@Entity
+@Table(name = "advert_publish_outbox")
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AdvertPublishOutbox {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Column(name = "grant_advert_id", nullable = false)
+    private UUID grantAdvertId;
+
+    @Column(name = "action", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private GrantAdvertSchedulerAction action;
+
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    private AdvertPublishOutboxStatus status = AdvertPublishOutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private Instant nextAttemptAt = Instant.now();
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created", nullable = false)
+    @Builder.Default
+    private Instant created = Instant.now();
+
+    @Column(name = "last_updated")
+    private Instant lastUpdated;
+
+}
@@ -0,0 +1,48 @@
+package gov.cabinetoffice.gap.adminbackend.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A slug handed out to a published advert. The primary key on slug is what keeps two
+ * concurrent publishes from being given the same one.
+ */
+@Entity
+@Table(name = "advert_slug")
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AdvertSlug {
+
+    @Id
+    @Column(name = "slug")
+    private String slug;
+
+    @Column(name = "base_slug", nullable = false)
+    private String baseSlug;
+
+    @Column(name = "suffix", nullable = false)
+    private int suffix;
+
+    @Column(name = "grant_advert_id")
+    private UUID grantAdvertId;
+
+    @Column(name = "created", nullable = false)
+    @Builder.Default
+    private Instant created = Instant.now();
+
+}
@@ -40,6 +40,11 @@ public class GrantAdvert extends BaseEntity {
     @Column(name = "version", nullable = false)
     private Integer version;
 
+    // bumped by hibernate on every update, which is how cached views of the advert know they're stale
+    @Version
+    @Column(name = "revision", nullable = false)
+    private long revision;
+
     @CreatedDate
     @Column(name = "created", nullable = false)
     private Instant created;
@@ -102,6 +107,10 @@ public class GrantAdvert extends BaseEntity {
     @Column(name="valid_last_updated", columnDefinition = "boolean default false")
     private boolean validLastUpdated;
 
+    // set when the last publish or unpublish couldn't be sent to Contentful, so admins can be told it didn't happen
+    @Column(name = "publish_failed", nullable = false)
+    private boolean publishFailed;
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
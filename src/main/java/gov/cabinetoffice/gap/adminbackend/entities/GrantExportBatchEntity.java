@@ -47,6 +47,10 @@ public class GrantExportBatchEntity {
     @Column(name = "location")
     private String location;
 
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
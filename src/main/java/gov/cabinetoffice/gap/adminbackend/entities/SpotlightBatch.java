@@ -56,6 +56,11 @@ public class SpotlightBatch {
     @Column(name = "last_updated")
     private Instant lastUpdated;
 
+    // kept in step with spotlight_batch_submission by a database trigger so open batches can be found without
+    // counting the join table. Never written from here, so saving a stale batch can't overwrite the count
+    @Column(name = "submission_count", nullable = false, updatable = false)
+    private int submissionCount;
+
     @ManyToMany
     @JoinTable(name = "spotlight_batch_submission", joinColumns = @JoinColumn(name = "spotlight_batch_id"),
             inverseJoinColumns = @JoinColumn(name = "spotlight_submission_id"))
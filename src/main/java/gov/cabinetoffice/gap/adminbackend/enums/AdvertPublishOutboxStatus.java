@@ -0,0 +1,7 @@
+package gov.cabinetoffice.gap.adminbackend.enums;
+
+public enum AdvertPublishOutboxStatus {
+
+    PENDING, SENT, FAILED
+
+}
@@ -2,6 +2,6 @@ package gov.cabinetoffice.gap.adminbackend.enums;
 
 public enum SpotlightSubmissionStatus {
 
-    QUEUED, SENT, SEND_ERROR, GGIS_ERROR, VALIDATION_ERROR
+    QUEUED, SENT, SEND_ERROR, GGIS_ERROR, VALIDATION_ERROR, REQUEUE_ERROR
 
 }
@@ -1,29 +1,100 @@
 package gov.cabinetoffice.gap.adminbackend.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
-@Builder
 public class AdvertDefinition {
 
-    @Builder.Default
     private List<AdvertDefinitionSection> sections = new ArrayList<>();
 
+    // the definition is read-only once loaded, so lookups are served from an index
+    // built on first use rather than by walking every section, page and question.
+    // Page lookups within a section are indexed by the section itself
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile Index index;
+
+    @Builder
+    public AdvertDefinition(List<AdvertDefinitionSection> sections) {
+        this.sections = sections == null ? new ArrayList<>() : sections;
+    }
+
+    public void setSections(List<AdvertDefinitionSection> sections) {
+        this.sections = sections;
+        this.index = null;
+    }
+
+    /**
+     * Builds the lookup index up front, so the cost isn't paid by the first request.
+     */
+    public void buildIndex() {
+        index();
+    }
+
     public AdvertDefinitionSection getSectionById(String sectionId) {
-        return sections.stream().filter(section -> Objects.equals(section.getId(), sectionId)).findFirst()
-                .orElseThrow(() -> new NotFoundException("Section with id " + sectionId + " does not exist"));
+        final AdvertDefinitionSection section = index().sectionsById().get(sectionId);
+        if (section == null) {
+            throw new NotFoundException("Section with id " + sectionId + " does not exist");
+        }
+        return section;
+    }
+
+    public Optional<AdvertDefinitionQuestion> findQuestionById(String questionId) {
+        return Optional.ofNullable(index().questionsById().get(questionId));
+    }
+
+    private Index index() {
+        Index current = index;
+        if (current == null) {
+            current = Index.of(sections);
+            index = current;
+        }
+        return current;
+    }
+
+    private record Index(Map<String, AdvertDefinitionSection> sectionsById,
+            Map<String, AdvertDefinitionQuestion> questionsById) {
+
+        // the first occurrence of an id wins, matching the findFirst lookups this replaced
+        private static Index of(List<AdvertDefinitionSection> sections) {
+            final Map<String, AdvertDefinitionSection> sectionsById = new HashMap<>();
+            final Map<String, AdvertDefinitionQuestion> questionsById = new HashMap<>();
+
+            for (AdvertDefinitionSection section : sections) {
+                sectionsById.putIfAbsent(section.getId(), section);
+
+                for (AdvertDefinitionPage page : section.getPages()) {
+                    for (AdvertDefinitionQuestion question : page.getQuestions()) {
+                        questionsById.putIfAbsent(question.getId(), question);
+                    }
+                }
+            }
+
+            return new Index(Collections.unmodifiableMap(sectionsById), Collections.unmodifiableMap(questionsById));
+        }
+
     }
 
 }
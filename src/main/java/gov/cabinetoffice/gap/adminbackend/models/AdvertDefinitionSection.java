@@ -1,28 +1,52 @@
 package gov.cabinetoffice.gap.adminbackend.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 
 @Data
-@AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
-@Builder
 public class AdvertDefinitionSection {
 
     private String id;
 
     private String title;
 
-    @Builder.Default
-    private List<AdvertDefinitionPage> pages = new ArrayList<>();
+    private List<AdvertDefinitionPage> pages;
+
+    // page id -> position in pages, built on first use. The first occurrence of an id wins
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile Map<String, Integer> pageIndexesById;
+
+    @Builder
+    public AdvertDefinitionSection(String id, String title, List<AdvertDefinitionPage> pages) {
+        this.id = id;
+        this.title = title;
+        this.pages = pages == null ? new ArrayList<>() : pages;
+    }
+
+    public void setPages(List<AdvertDefinitionPage> pages) {
+        this.pages = pages;
+        this.pageIndexesById = null;
+    }
 
     public Optional<AdvertDefinitionPage> getPageByIndex(int pageIndex) {
 
@@ -34,15 +58,29 @@ public class AdvertDefinitionSection {
         }
     }
 
-    public Integer getIndexOfPage(AdvertDefinitionPage page) {
-        return pages.indexOf(page);
-
+    public int getIndexOfPage(String pageId) {
+        final Integer pageIndex = pageIndexesById().get(pageId);
+        if (pageIndex == null) {
+            throw new NotFoundException("Page with id " + pageId + " does not exist");
+        }
+        return pageIndex;
     }
 
     public AdvertDefinitionPage getPageById(String pageId) {
-        return pages.stream().filter(page -> Objects.equals(page.getId(), pageId)).findFirst()
-                .orElseThrow(() -> new NotFoundException("Page with id " + pageId + " does not exist"));
+        return pages.get(getIndexOfPage(pageId));
+    }
 
+    private Map<String, Integer> pageIndexesById() {
+        Map<String, Integer> current = pageIndexesById;
+        if (current == null) {
+            final Map<String, Integer> pageIndexes = new HashMap<>();
+            for (int i = 0; i < pages.size(); i++) {
+                pageIndexes.putIfAbsent(pages.get(i).getId(), i);
+            }
+            current = Collections.unmodifiableMap(pageIndexes);
+            pageIndexesById = current;
+        }
+        return current;
     }
 
 }
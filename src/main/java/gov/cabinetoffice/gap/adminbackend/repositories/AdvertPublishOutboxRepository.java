@@ -0,0 +1,27 @@
+package gov.cabinetoffice.gap.adminbackend.repositories;
+
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertPublishOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AdvertPublishOutboxRepository extends JpaRepository<AdvertPublishOutbox, UUID> {
+
+    /**
+     * Only the oldest pending message for each advert is returned, so an advert's messages are
+     * always sent in the order they were written, even while an earlier one is waiting to retry.
+     */
+    @Query(nativeQuery = true,
+            value = "SELECT * FROM advert_publish_outbox o WHERE o.status = 'PENDING' AND o.next_attempt_at <= now() "
+                    + "AND NOT EXISTS (SELECT 1 FROM advert_publish_outbox earlier "
+                    + "WHERE earlier.grant_advert_id = o.grant_advert_id AND earlier.status = 'PENDING' "
+                    + "AND earlier.created < o.created) "
+                    + "ORDER BY o.created LIMIT :limit")
+    List<AdvertPublishOutbox> findReadyToSend(@Param("limit") int limit);
+
+}
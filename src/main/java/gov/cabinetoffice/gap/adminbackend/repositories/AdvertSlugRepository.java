@@ -0,0 +1,40 @@
+package gov.cabinetoffice.gap.adminbackend.repositories;
+
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertSlug;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Repository
+public interface AdvertSlugRepository extends JpaRepository<AdvertSlug, String> {
+
+    @Query(nativeQuery = true, value = "SELECT COALESCE(MAX(suffix), 0) FROM advert_slug WHERE base_slug = :baseSlug")
+    int findMaxSuffixByBaseSlug(@Param("baseSlug") String baseSlug);
+
+    /**
+     * Claims baseSlug-suffix for the advert, returning 0 rather than failing if another publish got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "INSERT INTO advert_slug (slug, base_slug, suffix, grant_advert_id, created) "
+                    + "VALUES (CONCAT(:baseSlug, '-', :suffix), :baseSlug, :suffix, :grantAdvertId, now()) "
+                    + "ON CONFLICT DO NOTHING")
+    int claim(@Param("baseSlug") String baseSlug, @Param("suffix") int suffix,
+            @Param("grantAdvertId") UUID grantAdvertId);
+
+    /**
+     * Keeps the slug reserved but unlinks it from its advert, for a slug found to already be
+     * the label of another Contentful entry.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE advert_slug SET grant_advert_id = NULL WHERE slug = :slug")
+    int releaseToContentful(@Param("slug") String slug);
+
+}
@@ -6,10 +6,13 @@ import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,6 +32,9 @@ public interface GrantAdvertRepository extends JpaRepository<GrantAdvert, UUID>
 
     Optional<GrantAdvert> findBySchemeId(Integer schemeId);
 
+    @Query("select g.revision from GrantAdvert g where g.id = ?1")
+    Optional<Long> findRevisionById(UUID id);
+
     @EntityGraph(attributePaths = {"scheme.grantAdmins"})
     @Transactional
     @Modifying
@@ -36,6 +42,56 @@ public interface GrantAdvertRepository extends JpaRepository<GrantAdvert, UUID>
             "AND EXISTS (SELECT 1 FROM g.scheme.grantAdmins ga WHERE ga.id = :grantAdminId)")
     int deleteByIdAndSchemeEditor(UUID id, Integer grantAdminId);
 
+    /**
+     * Sets a value in the advert's response (a page, or a whole section when it's new) and the section's status
+     * alongside it, without rewriting the rest of the response. Paths are postgres text arrays such as
+     * {sections,0,pages,1}, where an index one past the end of an array appends to it. Only applies if the advert is
+     * still at the expected revision, returning 0 if it has been saved since.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true,
+            value = "UPDATE grant_advert SET response = CAST(jsonb_set(jsonb_set("
+                    + "COALESCE(CAST(response AS jsonb), CAST('{\"sections\": []}' AS jsonb)), "
+                    + "CAST(:path AS text[]), CAST(:value AS jsonb)), "
+                    + "CAST(:statusPath AS text[]), CAST(:status AS jsonb)) AS json), "
+                    + "revision = revision + 1 "
+                    + "WHERE grant_advert_id = :grantAdvertId AND revision = :expectedRevision")
+    int patchResponse(@Param("grantAdvertId") UUID grantAdvertId, @Param("expectedRevision") long expectedRevision,
+            @Param("path") String path, @Param("value") String value, @Param("statusPath") String statusPath,
+            @Param("status") String status);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update GrantAdvert g set g.lastUpdated = :lastUpdated, g.lastUpdatedBy = :lastUpdatedBy, "
+            + "g.validLastUpdated = true where g.id = :grantAdvertId")
+    void updateLastUpdated(@Param("grantAdvertId") UUID grantAdvertId, @Param("lastUpdated") Instant lastUpdated,
+            @Param("lastUpdatedBy") GrantAdmin lastUpdatedBy);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update GrantAdvert g set g.openingDate = :openingDate, g.closingDate = :closingDate "
+            + "where g.id = :grantAdvertId")
+    void updateApplicationDates(@Param("grantAdvertId") UUID grantAdvertId,
+            @Param("openingDate") ZonedDateTime openingDate, @Param("closingDate") ZonedDateTime closingDate);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update GrantAdvert g set g.contentfulSlug = :contentfulSlug where g.id = :grantAdvertId")
+    void updateContentfulSlug(@Param("grantAdvertId") UUID grantAdvertId,
+            @Param("contentfulSlug") String contentfulSlug);
+
+    /**
+     * Bumps the revision so cached views of the advert pick up the change. Adverts already
+     * flagged as requested are left alone, so clearing the flag after every send is cheap.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update GrantAdvert g set g.publishFailed = :publishFailed, g.revision = g.revision + 1 "
+            + "where g.id = :grantAdvertId and g.publishFailed <> :publishFailed")
+    int updatePublishFailed(@Param("grantAdvertId") UUID grantAdvertId,
+            @Param("publishFailed") boolean publishFailed);
+
     @Query("select g from GrantAdvert g where g.createdBy = ?1 or g.lastUpdatedBy = ?1")
     List<GrantAdvert> findByCreatedByOrLastUpdatedBy(GrantAdmin admin);
 
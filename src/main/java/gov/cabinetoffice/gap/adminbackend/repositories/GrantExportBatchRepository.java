@@ -1,6 +1,7 @@
 package gov.cabinetoffice.gap.adminbackend.repositories;
 
 import gov.cabinetoffice.gap.adminbackend.entities.GrantExportBatchEntity;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantExportStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -23,4 +25,58 @@ public interface GrantExportBatchRepository extends JpaRepository<GrantExportBat
     @Query("update GrantExportBatchEntity g set g.location = :s3ObjectKey where g.id = :exportBatchId")
     Integer updateLocationById(@Param("exportBatchId") UUID exportBatchId, @Param("s3ObjectKey") String s3ObjectKey);
 
+    @Query("select g.id from GrantExportBatchEntity g where g.status = :status order by g.created")
+    List<UUID> findIdsByStatus(@Param("status") GrantExportStatus status);
+
+    /**
+     * Takes a lease on a REQUESTED batch so only one worker fans it out, counting it as an
+     * attempt. Returns 1 if the lease was taken, or 0 if the batch has moved on, has used
+     * up its attempts or another worker's lease is still fresh.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "UPDATE grant_export_batch SET last_updated = now(), attempts = attempts + 1 "
+                    + "WHERE export_batch_id = cast(:exportBatchId AS UUID) "
+                    + "AND status = 'REQUESTED' AND attempts < :maxAttempts "
+                    + "AND (last_updated IS NULL OR last_updated < now() - make_interval(secs => :leaseSeconds))")
+    Integer claimRequestedBatch(@Param("exportBatchId") String exportBatchId, @Param("maxAttempts") int maxAttempts,
+            @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * Marks the batch FAILED if it's still REQUESTED and has used up its attempts, along with
+     * any of its export records still waiting to be queued. Returns the number of batches
+     * marked.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "WITH exhausted AS (SELECT export_batch_id FROM grant_export_batch "
+                    + "WHERE export_batch_id = cast(:exportBatchId AS UUID) "
+                    + "AND status = 'REQUESTED' AND attempts >= :maxAttempts), "
+                    + "records AS (UPDATE grant_export SET status = 'FAILED', last_updated = now() "
+                    + "WHERE status = 'REQUESTED' AND export_batch_id IN (SELECT export_batch_id FROM exhausted)) "
+                    + "UPDATE grant_export_batch SET status = 'FAILED', last_updated = now() "
+                    + "WHERE export_batch_id IN (SELECT export_batch_id FROM exhausted)")
+    Integer failBatchIfOutOfAttempts(@Param("exportBatchId") String exportBatchId,
+            @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * As {@link #failBatchIfOutOfAttempts(String, int)}, for every batch whose last attempt
+     * stopped without recording a result, e.g. because the instance was restarted, and
+     * whose lease has run out.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "WITH exhausted AS (SELECT export_batch_id FROM grant_export_batch "
+                    + "WHERE status = 'REQUESTED' AND attempts >= :maxAttempts "
+                    + "AND last_updated < now() - make_interval(secs => :leaseSeconds)), "
+                    + "records AS (UPDATE grant_export SET status = 'FAILED', last_updated = now() "
+                    + "WHERE status = 'REQUESTED' AND export_batch_id IN (SELECT export_batch_id FROM exhausted)) "
+                    + "UPDATE grant_export_batch SET status = 'FAILED', last_updated = now() "
+                    + "WHERE export_batch_id IN (SELECT export_batch_id FROM exhausted)")
+    Integer failAbandonedBatchesOutOfAttempts(@Param("maxAttempts") int maxAttempts,
+            @Param("leaseSeconds") long leaseSeconds);
+
 }
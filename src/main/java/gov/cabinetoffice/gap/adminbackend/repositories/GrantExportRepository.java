@@ -16,12 +16,35 @@ import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface GrantExportRepository extends JpaRepository<GrantExportEntity, GrantExportId> {
+public interface GrantExportRepository
+        extends JpaRepository<GrantExportEntity, GrantExportId>, GrantExportRepositoryCustom {
 
     boolean existsByApplicationIdAndStatus(Integer applicationId, GrantExportStatus status);
 
     boolean existsByApplicationId(Integer applicationId);
 
+    /**
+     * The distinct statuses of an application's export records, plus REQUESTED if it has
+     * an export batch that's still waiting to be fanned out into export records, or FAILED
+     * if a batch has failed.
+     */
+    @Query(nativeQuery = true,
+            value = "SELECT status FROM grant_export WHERE application_id = :applicationId GROUP BY status "
+                    + "UNION SELECT status FROM grant_export_batch "
+                    + "WHERE application_id = :applicationId AND status IN ('REQUESTED', 'FAILED')")
+    List<String> findStatusesByApplicationId(@Param("applicationId") Integer applicationId);
+
+    /**
+     * Removes export records whose messages weren't queued, so the next attempt at the batch
+     * inserts them again and sends their messages.
+     */
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "DELETE FROM grant_export WHERE export_batch_id = :exportBatchId AND submission_id IN (:submissionIds)")
+    Integer deleteByExportBatchIdAndSubmissionIdIn(@Param("exportBatchId") UUID exportBatchId,
+            @Param("submissionIds") Collection<UUID> submissionIds);
+
     List<GrantExportEntity> findAllByIdExportBatchIdAndStatusAndCreatedBy(UUID exportGrantId, GrantExportStatus status,
             Integer createdBy);
 
@@ -0,0 +1,17 @@
+package gov.cabinetoffice.gap.adminbackend.repositories;
+
+import gov.cabinetoffice.gap.adminbackend.entities.GrantExportEntity;
+
+import java.util.List;
+
+public interface GrantExportRepositoryCustom {
+
+    /**
+     * Inserts new export records using JDBC batches rather than persisting each entity
+     * through the persistence context. Records that already exist are left as they are,
+     * so a partly fanned out export can be retried. Returns the records that were
+     * inserted.
+     */
+    List<GrantExportEntity> insertAll(List<GrantExportEntity> exportRecords);
+
+}
@@ -0,0 +1,55 @@
+package gov.cabinetoffice.gap.adminbackend.repositories;
+
+import gov.cabinetoffice.gap.adminbackend.entities.GrantExportEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class GrantExportRepositoryImpl implements GrantExportRepositoryCustom {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO grant_export "
+            + "(export_batch_id, submission_id, application_id, status, email_address, created, created_by) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public List<GrantExportEntity> insertAll(List<GrantExportEntity> exportRecords) {
+        final int[][] insertedCounts = jdbcTemplate.batchUpdate(INSERT_SQL, exportRecords, INSERT_BATCH_SIZE,
+                (ps, exportRecord) -> {
+                    ps.setObject(1, exportRecord.getId().getExportBatchId());
+                    ps.setObject(2, exportRecord.getId().getSubmissionId());
+                    ps.setInt(3, exportRecord.getApplicationId());
+                    ps.setString(4, exportRecord.getStatus().toString());
+                    ps.setString(5, exportRecord.getEmailAddress());
+                    ps.setObject(6,
+                            exportRecord.getCreated() == null ? null : Timestamp.from(exportRecord.getCreated()),
+                            Types.TIMESTAMP);
+                    ps.setInt(7, exportRecord.getCreatedBy());
+                });
+
+        // each count is 1 if the record was inserted, or 0 if it already existed. This relies on the
+        // driver reporting real counts, which it doesn't with reWriteBatchedInserts turned on
+        final List<GrantExportEntity> inserted = new ArrayList<>();
+        int index = 0;
+        for (int[] batchCounts : insertedCounts) {
+            for (int count : batchCounts) {
+                if (count > 0) {
+                    inserted.add(exportRecords.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+
+}
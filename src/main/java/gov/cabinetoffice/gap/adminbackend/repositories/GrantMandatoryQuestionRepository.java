@@ -1,8 +1,11 @@
 package gov.cabinetoffice.gap.adminbackend.repositories;
 
+import gov.cabinetoffice.gap.adminbackend.dtos.GrantMandatoryQuestionExportView;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -14,6 +17,58 @@ public interface GrantMandatoryQuestionRepository extends JpaRepository<GrantMan
             + "and g.status = gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionStatus.COMPLETED")
     List<GrantMandatoryQuestions> findBySchemeEntity_IdAndCompletedStatus(Integer id);
 
+    /**
+     * Keyset-paged read of the due diligence export rows for a scheme's completed
+     * mandatory questions. Pass the id of the last row from the previous page (or the nil
+     * UUID to start). With submittedOnly set, only mandatory questions whose submission
+     * has been submitted are returned.
+     */
+    @Query(value = """
+            SELECT CAST(mq.id AS varchar) AS id,
+                   mq.gap_id AS gapId,
+                   mq.name AS name,
+                   mq.address_line_1 AS addressLine1,
+                   mq.address_line_2 AS addressLine2,
+                   mq.city AS city,
+                   mq.county AS county,
+                   mq.postcode AS postcode,
+                   mq.funding_amount AS fundingAmount,
+                   mq.charity_commission_number AS charityCommissionNumber,
+                   mq.companies_house_number AS companiesHouseNumber,
+                   CAST(mq.org_type AS varchar) AS orgType
+              FROM grant_mandatory_questions mq
+              LEFT JOIN grant_submission gs ON gs.id = mq.submission_id
+             WHERE mq.grant_scheme_id = :schemeId
+               AND mq.status = 'COMPLETED'
+               AND (:submittedOnly = false OR gs.status = 'SUBMITTED')
+               AND mq.id > :lastId
+             ORDER BY mq.id
+             LIMIT :#{#pageable.pageSize}
+            """, nativeQuery = true)
+    List<GrantMandatoryQuestionExportView> findCompletedExportPage(@Param("schemeId") Integer schemeId,
+            @Param("submittedOnly") boolean submittedOnly, @Param("lastId") UUID lastId, Pageable pageable);
+
+    /**
+     * Counts the rows {@link #findCompletedExportPage} would return that are missing a
+     * value the export needs: gap id, organisation name, postcode, funding amount or
+     * organisation type, where blank means null or only whitespace.
+     */
+    @Query(value = """
+            SELECT COUNT(*)
+              FROM grant_mandatory_questions mq
+              LEFT JOIN grant_submission gs ON gs.id = mq.submission_id
+             WHERE mq.grant_scheme_id = :schemeId
+               AND mq.status = 'COMPLETED'
+               AND (:submittedOnly = false OR gs.status = 'SUBMITTED')
+               AND (COALESCE(mq.gap_id, '') !~ '\\S'
+                    OR COALESCE(mq.name, '') !~ '\\S'
+                    OR COALESCE(mq.postcode, '') !~ '\\S'
+                    OR mq.funding_amount IS NULL
+                    OR mq.org_type IS NULL)
+            """, nativeQuery = true)
+    long countCompletedExportRowsMissingMandatoryData(@Param("schemeId") Integer schemeId,
+            @Param("submittedOnly") boolean submittedOnly);
+
     @Query("select g from GrantMandatoryQuestions g " + "where g.schemeEntity.id = ?1 "
             + "and g.status = gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionStatus.COMPLETED "
             + "and g.orgType in (gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrgType.CHARITY, "
@@ -1,13 +1,18 @@
 package gov.cabinetoffice.gap.adminbackend.repositories;
 
+import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.SpotlightErrorCountsView;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightBatch;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightBatchStatus;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,18 +20,69 @@ import java.util.UUID;
 @Repository
 public interface SpotlightBatchRepository extends JpaRepository<SpotlightBatch, UUID> {
 
-    @Query("SELECT s FROM SpotlightBatch s WHERE s.lastSendAttempt IS NOT NULL ORDER BY s.lastSendAttempt DESC")
-    List<SpotlightBatch> findByLastSendAttemptNotNullOrderByLastSendAttemptDesc(Pageable pageable);
+    @Query(value = "SELECT "
+            + "CAST(COUNT(*) FILTER (WHERE s.status IN ('SEND_ERROR', 'REQUEUE_ERROR')) AS INTEGER) "
+            + "AS apiErrorCount, "
+            + "CAST(COUNT(*) FILTER (WHERE s.status = 'GGIS_ERROR') AS INTEGER) AS ggisErrorCount, "
+            + "CAST(COUNT(*) FILTER (WHERE s.status = 'VALIDATION_ERROR') AS INTEGER) AS validationErrorCount, "
+            + "EXISTS (SELECT 1 FROM spotlight_submission v "
+            + "WHERE v.grant_scheme = :schemeId AND v.status = 'VALIDATION_ERROR') AS validationErrorPresent "
+            + "FROM spotlight_batch_submission bs "
+            + "JOIN spotlight_submission s ON s.id = bs.spotlight_submission_id "
+            + "WHERE s.grant_scheme = :schemeId AND bs.spotlight_batch_id = ("
+            + "SELECT b.id FROM spotlight_batch b WHERE b.last_send_attempt IS NOT NULL "
+            + "ORDER BY b.last_send_attempt DESC LIMIT 1)", nativeQuery = true)
+    SpotlightErrorCountsView countErrorsInLatestSentBatchBySchemeId(@Param("schemeId") Integer schemeId);
 
-    @Query("SELECT (COUNT(s) > 0 ) FROM SpotlightBatch s WHERE s.status = :status AND SIZE(s.spotlightSubmissions) < :maxSize AND s.lastSendAttempt = (SELECT MAX(s.lastSendAttempt) FROM SpotlightBatch s WHERE s.status = :status AND SIZE(s.spotlightSubmissions) < :maxSize)")
+    /**
+     * A cheap marker for when the scheme's error counts last could have changed: the later of
+     * the latest batch send and the latest update to one of the scheme's submissions, in
+     * microseconds. Null if neither has happened yet.
+     */
+    @Query(value = "SELECT CAST(EXTRACT(EPOCH FROM GREATEST("
+            + "(SELECT MAX(b.last_send_attempt) FROM spotlight_batch b), "
+            + "(SELECT MAX(s.last_updated) FROM spotlight_submission s WHERE s.grant_scheme = :schemeId))) "
+            + "* 1000000 AS BIGINT)", nativeQuery = true)
+    Long findErrorCountsRevisionBySchemeId(@Param("schemeId") Integer schemeId);
+
+    @Query("SELECT (COUNT(s) > 0) FROM SpotlightBatch s WHERE s.status = :status AND s.submissionCount < :maxSize")
     boolean existsByStatusAndSpotlightSubmissionsSizeLessThan(@Param("status") SpotlightBatchStatus status,
             @Param("maxSize") int maxSize);
 
-    @Query("SELECT s FROM SpotlightBatch s WHERE s.status = :status AND SIZE(s.spotlightSubmissions) < :maxSize AND s.lastSendAttempt = (SELECT MAX(s.lastSendAttempt) FROM SpotlightBatch s WHERE s.status = :status AND SIZE(s.spotlightSubmissions) < :maxSize)")
-    Optional<SpotlightBatch> findByStatusAndSpotlightSubmissionsSizeLessThan(
-            @Param("status") SpotlightBatchStatus status, @Param("maxSize") int maxSize);
+    @Query(value = "SELECT * FROM spotlight_batch WHERE status = :status AND submission_count < :maxSize "
+            + "ORDER BY last_send_attempt DESC NULLS LAST, created DESC LIMIT 1", nativeQuery = true)
+    Optional<SpotlightBatch> findOpenBatch(@Param("status") String status, @Param("maxSize") int maxSize);
+
+    /**
+     * Takes a transaction scoped lock that serialises finding or creating the open batch,
+     * so concurrent callers don't each create a new batch. Must be called in a transaction.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('spotlight_batch_open'))", nativeQuery = true)
+    Integer lockOpenBatch();
+
+    /**
+     * Links the submission to the batch. The batch's submission count is bumped by a trigger
+     * on the join table. Does nothing if the submission is already in the batch, in which
+     * case 0 is returned rather than 1.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO spotlight_batch_submission (spotlight_submission_id, spotlight_batch_id) "
+            + "VALUES (cast(:spotlightSubmissionId AS UUID), cast(:spotlightBatchId AS UUID)) "
+            + "ON CONFLICT DO NOTHING", nativeQuery = true)
+    int addSpotlightSubmission(@Param("spotlightBatchId") String spotlightBatchId,
+            @Param("spotlightSubmissionId") String spotlightSubmissionId);
 
-    Optional<List<SpotlightBatch>> findByStatus(@Param("status") SpotlightBatchStatus status);
+    /**
+     * Loads the batches with their submissions, mandatory questions and schemes in one
+     * query, so building the Spotlight payload doesn't lazy load them per submission.
+     */
+    @EntityGraph(attributePaths = { "spotlightSubmissions", "spotlightSubmissions.grantScheme",
+            "spotlightSubmissions.mandatoryQuestions", "spotlightSubmissions.mandatoryQuestions.schemeEntity",
+            "spotlightSubmissions.mandatoryQuestions.submission" })
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("SELECT DISTINCT s FROM SpotlightBatch s WHERE s.status = :status")
+    List<SpotlightBatch> findWithSubmissionsByStatus(@Param("status") SpotlightBatchStatus status);
 
     @Query("select s from SpotlightBatch s inner join s.spotlightSubmissions spotlightSubmissions where s.status =:status and spotlightSubmissions.mandatoryQuestions.gapId = :gapId ORDER BY s.created DESC")
     List<SpotlightBatch> findByStatusAndSpotlightSubmissions_MandatoryQuestions_GapId(
@@ -1,10 +1,17 @@
 package gov.cabinetoffice.gap.adminbackend.repositories;
 
+import gov.cabinetoffice.gap.adminbackend.dtos.spotlightSubmissions.SpotlightDownloadRowView;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,9 +26,69 @@ public interface SpotlightSubmissionRepository extends JpaRepository<SpotlightSu
     @Query("select s from SpotlightSubmission s where s.mandatoryQuestions.gapId = ?1")
     Optional<SpotlightSubmission> findByMandatoryQuestions_GapId(String gapId);
 
+    @Query("select s from SpotlightSubmission s join fetch s.mandatoryQuestions mq left join fetch s.grantScheme "
+            + "where mq.gapId in :gapIds")
+    List<SpotlightSubmission> findByMandatoryQuestions_GapIdIn(@Param("gapIds") Collection<String> gapIds);
+
+    @Transactional
+    @Modifying
+    @Query("update SpotlightSubmission s set s.status = :status, s.lastUpdated = :sendAttempt, "
+            + "s.lastSendAttempt = :sendAttempt where s.id in :ids")
+    int updateStatusAndLastSendAttemptByIdIn(@Param("ids") Collection<UUID> ids, @Param("status") String status,
+            @Param("sendAttempt") Instant sendAttempt);
+
     boolean existsByGrantScheme_Id(Integer id);
 
-    List<SpotlightSubmission> findByGrantScheme_Id(Integer id);
+    /**
+     * Keyset-paged read of the due diligence download rows for a scheme. Pass the id of
+     * the last row from the previous page (or the nil UUID to start). Only submissions in
+     * one of the given statuses and made by one of the given organisation types are
+     * returned.
+     */
+    @Query(value = """
+            SELECT CAST(s.id AS varchar) AS id,
+                   mq.gap_id AS gapId,
+                   mq.name AS name,
+                   mq.address_line_1 AS addressLine1,
+                   mq.address_line_2 AS addressLine2,
+                   mq.city AS city,
+                   mq.county AS county,
+                   mq.postcode AS postcode,
+                   mq.funding_amount AS fundingAmount,
+                   mq.charity_commission_number AS charityCommissionNumber,
+                   mq.companies_house_number AS companiesHouseNumber
+              FROM spotlight_submission s
+              JOIN grant_mandatory_questions mq ON mq.id = s.grant_mandatory_questions_id
+             WHERE s.grant_scheme = :schemeId
+               AND s.status IN (:statuses)
+               AND CAST(mq.org_type AS varchar) IN (:orgTypes)
+               AND s.id > :lastId
+             ORDER BY s.id
+             LIMIT :#{#pageable.pageSize}
+            """, nativeQuery = true)
+    List<SpotlightDownloadRowView> findDownloadPage(@Param("schemeId") Integer schemeId,
+            @Param("statuses") Collection<String> statuses, @Param("orgTypes") Collection<String> orgTypes,
+            @Param("lastId") UUID lastId, Pageable pageable);
+
+    /**
+     * Counts the rows {@link #findDownloadPage} would return that are missing a value the
+     * download needs: gap id, organisation name, postcode or funding amount, where blank
+     * means null or only whitespace.
+     */
+    @Query(value = """
+            SELECT COUNT(*)
+              FROM spotlight_submission s
+              JOIN grant_mandatory_questions mq ON mq.id = s.grant_mandatory_questions_id
+             WHERE s.grant_scheme = :schemeId
+               AND s.status IN (:statuses)
+               AND CAST(mq.org_type AS varchar) IN (:orgTypes)
+               AND (COALESCE(mq.gap_id, '') !~ '\\S'
+                    OR COALESCE(mq.name, '') !~ '\\S'
+                    OR COALESCE(mq.postcode, '') !~ '\\S'
+                    OR mq.funding_amount IS NULL)
+            """, nativeQuery = true)
+    long countDownloadRowsMissingMandatoryData(@Param("schemeId") Integer schemeId,
+            @Param("statuses") Collection<String> statuses, @Param("orgTypes") Collection<String> orgTypes);
 
     boolean existsByGrantScheme_IdAndStatus(Integer id, String status);
 
@@ -1,5 +1,7 @@
 package gov.cabinetoffice.gap.adminbackend.repositories;
 
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SpotlightExportRowView;
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportView;
 import gov.cabinetoffice.gap.adminbackend.entities.Submission;
 import gov.cabinetoffice.gap.adminbackend.enums.SubmissionStatus;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -21,7 +23,50 @@ import java.util.UUID;
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, UUID> {
 
-    List<Submission> findByApplicationGrantApplicationIdAndStatus(Integer applicationId, SubmissionStatus status);
+    boolean existsByApplicationGrantApplicationIdAndStatus(Integer applicationId, SubmissionStatus status);
+
+    @Query("select s.id as id, s.scheme.id as schemeId from Submission s "
+            + "where s.application.grantApplicationId = :applicationId and s.status = :status")
+    List<SubmissionExportView> findExportViewsByApplicationIdAndStatus(@Param("applicationId") Integer applicationId,
+            @Param("status") SubmissionStatus status);
+
+    /**
+     * Keyset-paged read of the spotlight export rows for an application. Pass the id of
+     * the last row from the previous page (or the nil UUID to start). The ESSENTIAL
+     * section answers are pulled out of the definition JSON in the query so that only the
+     * handful of values we need come back over the wire.
+     */
+    @Query(value = """
+            SELECT CAST(gs.id AS varchar) AS id,
+                   gs.gap_id AS gapId,
+                   essential.required_question_count = 5 AS hasEssentialQuestions,
+                   essential.questions -> 'APPLICANT_ORG_NAME' ->> 'response' AS organisationName,
+                   essential.questions -> 'APPLICANT_ORG_ADDRESS' -> 'multiResponse' ->> 0 AS addressLine1,
+                   essential.questions -> 'APPLICANT_ORG_ADDRESS' -> 'multiResponse' ->> 1 AS addressLine2,
+                   essential.questions -> 'APPLICANT_ORG_ADDRESS' -> 'multiResponse' ->> 2 AS addressTown,
+                   essential.questions -> 'APPLICANT_ORG_ADDRESS' -> 'multiResponse' ->> 3 AS addressCounty,
+                   essential.questions -> 'APPLICANT_ORG_ADDRESS' -> 'multiResponse' ->> 4 AS addressPostcode,
+                   essential.questions -> 'APPLICANT_AMOUNT' ->> 'response' AS applicationAmount,
+                   essential.questions -> 'APPLICANT_ORG_CHARITY_NUMBER' ->> 'response' AS charityNumber,
+                   essential.questions -> 'APPLICANT_ORG_COMPANIES_HOUSE' ->> 'response' AS companyNumber
+              FROM grant_submission gs
+             CROSS JOIN LATERAL (
+                    SELECT json_object_agg(q ->> 'questionId', q) AS questions,
+                           COUNT(DISTINCT q ->> 'questionId') FILTER (WHERE q ->> 'questionId' IN ('APPLICANT_ORG_NAME',
+                               'APPLICANT_ORG_ADDRESS', 'APPLICANT_AMOUNT', 'APPLICANT_ORG_CHARITY_NUMBER',
+                               'APPLICANT_ORG_COMPANIES_HOUSE')) AS required_question_count
+                      FROM json_array_elements(gs.definition -> 'sections') sec,
+                           json_array_elements(sec -> 'questions') q
+                     WHERE sec ->> 'sectionId' = 'ESSENTIAL'
+                   ) essential
+             WHERE gs.application_id = :applicationId
+               AND gs.status = :status
+               AND gs.id > :lastId
+             ORDER BY gs.id
+             LIMIT :#{#pageable.pageSize}
+            """, nativeQuery = true)
+    List<SpotlightExportRowView> findSpotlightExportPage(@Param("applicationId") Integer applicationId,
+            @Param("status") String status, @Param("lastId") UUID lastId, Pageable pageable);
 
     @Query("select s from Submission s where s.id = ?1")
     @EntityGraph(attributePaths = { "applicant" })
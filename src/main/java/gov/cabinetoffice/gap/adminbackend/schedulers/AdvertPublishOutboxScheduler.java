@@ -0,0 +1,31 @@
+package gov.cabinetoffice.gap.adminbackend.schedulers;
+
+import gov.cabinetoffice.gap.adminbackend.services.AdvertPublishOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sends advert publishes and unpublishes to Contentful and the OpenSearch queue. The lock
+ * keeps this to one instance at a time, which is what keeps each advert's messages in order.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class AdvertPublishOutboxScheduler {
+
+    private final AdvertPublishOutboxService advertPublishOutboxService;
+
+    @Scheduled(cron = "${advert-publish-outbox-scheduler.cronExpression:*/10 * * * * ?}", zone = "UTC")
+    @SchedulerLock(name = "advertPublishOutbox_sendPendingMessages",
+            lockAtMostFor = "${advert-publish-outbox-scheduler.lock.atMostFor:30m}",
+            lockAtLeastFor = "${advert-publish-outbox-scheduler.lock.atLeastFor:5s}")
+    public void sendPendingMessages() {
+        log.debug("Advert publish outbox scheduler has started.");
+
+        advertPublishOutboxService.sendPendingMessages();
+    }
+
+}
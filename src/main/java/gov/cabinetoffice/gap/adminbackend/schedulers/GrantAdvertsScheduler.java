@@ -1,14 +1,8 @@
 package gov.cabinetoffice.gap.adminbackend.schedulers;
 
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.MessageAttributeValue;
-import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
-import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
-import com.google.common.collect.Lists;
-import gov.cabinetoffice.gap.adminbackend.config.GrantAdvertsSchedulerConfigProperties;
-import gov.cabinetoffice.gap.adminbackend.constants.AWSConstants;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GrantAdvertSchedulerView;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdvertSchedulerViewRepository;
+import gov.cabinetoffice.gap.adminbackend.services.GrantAdvertService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
@@ -16,8 +10,11 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.UUID;
 
+/**
+ * Publishes and unpublishes adverts whose scheduled dates have passed. These go through the
+ * same outbox as adverts published by hand, which sends them on to Contentful.
+ */
 @Log4j2
 @Service
 @RequiredArgsConstructor
@@ -25,9 +22,7 @@ public class GrantAdvertsScheduler {
 
     private final GrantAdvertSchedulerViewRepository advertSchedulerRepository;
 
-    private final AmazonSQS amazonSQS;
-
-    private final GrantAdvertsSchedulerConfigProperties advertsSchedulerConfigProperties;
+    private final GrantAdvertService grantAdvertService;
 
     @Scheduled(cron = "${grant-adverts-scheduler.cronExpression:0 0 * * * ?}")
     @SchedulerLock(name = "grantAdverts_publishUnpublishScheduler",
@@ -41,37 +36,23 @@ public class GrantAdvertsScheduler {
 
         log.debug(String.format("%s grant advert(s) to be actioned", advertsToHandle.size()));
 
-        final List<List<GrantAdvertSchedulerView>> partitionedAdverts = Lists.partition(advertsToHandle,
-                AWSConstants.MAX_ALLOWED_SQS_FIFO_BATCH_SIZE);
-
-        log.debug(String.format("%s batch(es) to be sent to SQS", partitionedAdverts.size()));
-
-        partitionedAdverts.forEach(schedulerViewBatch -> this.amazonSQS
-                .sendMessageBatch(mapAdvertsToBatchMessageRequest(schedulerViewBatch)));
+        advertsToHandle.forEach(this::action);
 
         log.info("Grant Adverts Scheduler has completed successfully.");
 
     }
 
-    private SendMessageBatchRequest mapAdvertsToBatchMessageRequest(
-            final List<GrantAdvertSchedulerView> grantAdvertSchedulerViewBatch) {
-
-        final List<SendMessageBatchRequestEntry> sendMessageBatchRequestEntries = grantAdvertSchedulerViewBatch.stream()
-                .map(schedulerView -> {
-                    final String randomUuid = UUID.randomUUID().toString();
-
-                    return new SendMessageBatchRequestEntry().withId(randomUuid).withMessageDeduplicationId(randomUuid)
-                            .withMessageBody(randomUuid).withMessageGroupId(randomUuid)
-                            .addMessageAttributesEntry("grantAdvertId",
-                                    new MessageAttributeValue().withDataType("String")
-                                            .withStringValue(schedulerView.getId().toString()))
-                            .addMessageAttributesEntry("action", new MessageAttributeValue().withDataType("String")
-                                    .withStringValue(schedulerView.getAction().toString()));
-                }).toList();
-
-        return new SendMessageBatchRequest(advertsSchedulerConfigProperties.getGrantAdvertSchedulerQueue())
-                .withEntries(sendMessageBatchRequestEntries);
-
+    private void action(final GrantAdvertSchedulerView schedulerView) {
+        // one advert failing shouldn't hold up the rest, it will be picked up again next run
+        try {
+            switch (schedulerView.getAction()) {
+                case PUBLISH -> grantAdvertService.publishAdvert(schedulerView.getId());
+                case UNPUBLISH -> grantAdvertService.unpublishAdvert(schedulerView.getId());
+            }
+        }
+        catch (Exception e) {
+            log.error("Failed to {} advert with id {}", schedulerView.getAction(), schedulerView.getId(), e);
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package gov.cabinetoffice.gap.adminbackend.schedulers;
+
+import gov.cabinetoffice.gap.adminbackend.enums.GrantExportStatus;
+import gov.cabinetoffice.gap.adminbackend.repositories.GrantExportBatchRepository;
+import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Picks up export batches that are still REQUESTED, e.g. because the instance that
+ * accepted the request was restarted before it finished queueing the submissions. Batches
+ * that have used up their attempts are marked FAILED instead.
+ */
+@Log4j2
+@Service
+@RequiredArgsConstructor
+public class SubmissionExportScheduler {
+
+    private final GrantExportBatchRepository grantExportBatchRepository;
+
+    private final SubmissionsService submissionsService;
+
+    @Scheduled(cron = "${submission-export-scheduler.cronExpression:0 * * * * ?}", zone = "UTC")
+    @SchedulerLock(name = "submissionExport_resumeRequestedBatches",
+            lockAtMostFor = "${submission-export-scheduler.lock.atMostFor:30m}",
+            lockAtLeastFor = "${submission-export-scheduler.lock.atLeastFor:30s}")
+    public void resumeRequestedBatches() {
+        submissionsService.failAbandonedExportBatches();
+
+        final List<UUID> requestedBatchIds = grantExportBatchRepository.findIdsByStatus(GrantExportStatus.REQUESTED);
+
+        log.debug("Found {} requested export batch(es)", requestedBatchIds.size());
+
+        requestedBatchIds.forEach(submissionsService::processExportBatch);
+    }
+
+}
@@ -0,0 +1,61 @@
+package gov.cabinetoffice.gap.adminbackend.security;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import gov.cabinetoffice.gap.adminbackend.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache in front of the user service's role validation endpoint. Concurrent
+ * requests for the same admin wait on a single in-flight call rather than each making
+ * their own, and failed calls are never cached.
+ */
+@Component
+public class AdminRolesValidationCache {
+
+    private final UserService userService;
+
+    private final LoadingCache<AdminRoles, Boolean> cache;
+
+    private final Timer upstreamTimer;
+
+    public AdminRolesValidationCache(final UserService userService, final MeterRegistry meterRegistry,
+            @Value("${admin-roles-validation-cache.ttlSeconds:30}") long ttlSeconds,
+            @Value("${admin-roles-validation-cache.maxSize:1000}") long maxSize) {
+        this.userService = userService;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats().build(CacheLoader.from(this::verifyWithUserService));
+        this.upstreamTimer = Timer.builder("admin.roles.validation.upstream")
+                .description("Time taken by the user service to validate an admin's roles").register(meterRegistry);
+
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "adminRolesValidation");
+    }
+
+    public Boolean verifyAdminRoles(final String emailAddress, final String roles) {
+        try {
+            return cache.getUnchecked(new AdminRoles(emailAddress, roles));
+        }
+        catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Boolean verifyWithUserService(final AdminRoles adminRoles) {
+        return upstreamTimer.record(() -> userService.verifyAdminRoles(adminRoles.emailAddress(), adminRoles.roles()));
+    }
+
+    private record AdminRoles(String emailAddress, String roles) {
+    }
+
+}
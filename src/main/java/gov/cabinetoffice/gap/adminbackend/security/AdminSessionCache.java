@@ -0,0 +1,81 @@
+package gov.cabinetoffice.gap.adminbackend.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Holds the result of authenticating a bearer token, keyed by a hash of the token, so
+ * that the many API calls made while rendering a single admin page don't each
+ * re-verify the token and look the admin up again. Entries never outlive the token
+ * they were built from.
+ */
+@Component
+public class AdminSessionCache {
+
+    private final Cache<String, CachedAuthentication> cache;
+
+    private final Duration maxTtl;
+
+    public AdminSessionCache(@Value("${admin-session-cache.maxSize:1000}") long maxSize,
+            @Value("${admin-session-cache.maxTtlSeconds:60}") long maxTtlSeconds) {
+        this.maxTtl = Duration.ofSeconds(maxTtlSeconds);
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(maxTtl).build();
+    }
+
+    public Optional<Authentication> get(final String tokenHash) {
+        final CachedAuthentication cachedAuthentication = cache.getIfPresent(tokenHash);
+        if (cachedAuthentication == null) {
+            return Optional.empty();
+        }
+
+        if (cachedAuthentication.expiresAt().isBefore(Instant.now())) {
+            cache.invalidate(tokenHash);
+            return Optional.empty();
+        }
+
+        return Optional.of(new UsernamePasswordAuthenticationToken(cachedAuthentication.adminSession(), null,
+                cachedAuthentication.authorities()));
+    }
+
+    public void put(final String tokenHash, final AdminSession adminSession,
+            final List<? extends GrantedAuthority> authorities, final Date tokenExpiresAt) {
+        final Instant maxExpiry = Instant.now().plus(maxTtl);
+        final Instant expiresAt = tokenExpiresAt == null || tokenExpiresAt.toInstant().isAfter(maxExpiry) ? maxExpiry
+                : tokenExpiresAt.toInstant();
+
+        cache.put(tokenHash, new CachedAuthentication(adminSession, List.copyOf(authorities), expiresAt));
+    }
+
+    /**
+     * Drops every cached session belonging to the given user, e.g. after they've been
+     * deleted, migrated or moved to another funding organisation. Only affects this
+     * instance - other instances will pick the change up once their entries expire.
+     */
+    public void invalidateUser(final String userSub) {
+        cache.asMap().values()
+                .removeIf(cachedAuthentication -> Objects.equals(cachedAuthentication.adminSession().getUserSub(),
+                        userSub));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record CachedAuthentication(AdminSession adminSession, List<GrantedAuthority> authorities,
+            Instant expiresAt) {
+    }
+
+}
@@ -39,6 +39,8 @@ public class AuthManager implements AuthenticationManager {
 
     private final JwtService jwtService;
 
+    private final AdminSessionCache adminSessionCache;
+
     @Value("${feature.onelogin.enabled}")
     private boolean oneLoginEnabled;
 
@@ -52,6 +54,12 @@ public class AuthManager implements AuthenticationManager {
         // remove "Bearer " from header
         String jwtBase64 = authHeader.split(" ")[1];
 
+        final String tokenHash = JwtService.hashToken(jwtBase64);
+        final Optional<Authentication> cachedAuthentication = adminSessionCache.get(tokenHash);
+        if (cachedAuthentication.isPresent()) {
+            return cachedAuthentication.get();
+        }
+
         DecodedJWT decodedJWT = this.jwtService.verifyToken(jwtBase64);
 
         JwtPayload JWTPayload;
@@ -79,9 +87,13 @@ public class AuthManager implements AuthenticationManager {
         AdminSession adminSession = new AdminSession(grantAdmin.get().getId(), grantAdmin.get().getFunder().getId(),
                 JWTPayload);
 
-        return new UsernamePasswordAuthenticationToken(adminSession, null,
-                roles.stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                        .collect(Collectors.toCollection(ArrayList::new)));
+        final List<SimpleGrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        adminSessionCache.put(tokenHash, adminSession, authorities, decodedJWT.getExpiresAt());
+
+        return new UsernamePasswordAuthenticationToken(adminSession, null, authorities);
     }
 
     private GrantAdmin createNewAdmin(JwtPayload jwtPayload) {
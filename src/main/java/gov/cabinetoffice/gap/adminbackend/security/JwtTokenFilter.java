@@ -3,7 +3,6 @@ package gov.cabinetoffice.gap.adminbackend.security;
 import gov.cabinetoffice.gap.adminbackend.config.JwtTokenFilterConfig;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
 import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
-import gov.cabinetoffice.gap.adminbackend.services.UserService;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.security.core.Authentication;
@@ -25,7 +24,7 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtTokenFilter extends OncePerRequestFilter {
 
-    private final UserService userService;
+    private final AdminRolesValidationCache adminRolesValidationCache;
 
     private final JwtTokenFilterConfig jwtTokenFilterConfig;
 
@@ -48,7 +47,7 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         String emailAddress = adminSession.getEmailAddress();
         String roles = adminSession.getRoles();
         try {
-            userService.verifyAdminRoles(emailAddress, roles);
+            adminRolesValidationCache.verifyAdminRoles(emailAddress, roles);
             chain.doFilter(request, response);
         }
         catch (RestClientException | UnauthorizedException error) {
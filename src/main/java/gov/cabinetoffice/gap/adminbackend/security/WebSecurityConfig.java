@@ -1,7 +1,6 @@
 package gov.cabinetoffice.gap.adminbackend.security;
 
 import gov.cabinetoffice.gap.adminbackend.config.JwtTokenFilterConfig;
-import gov.cabinetoffice.gap.adminbackend.services.UserService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
@@ -24,8 +23,9 @@ public class WebSecurityConfig {
 
     private static final String UUID_REGEX_STRING = "[a-fA-F0-9]{8}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{4}-[a-fA-F0-9]{12}";
 
-    public WebSecurityConfig(final UserService userService, final JwtTokenFilterConfig jwtTokenFilterConfig) {
-        this.jwtTokenFilter = new JwtTokenFilter(userService, jwtTokenFilterConfig);
+    public WebSecurityConfig(final AdminRolesValidationCache adminRolesValidationCache,
+            final JwtTokenFilterConfig jwtTokenFilterConfig) {
+        this.jwtTokenFilter = new JwtTokenFilter(adminRolesValidationCache, jwtTokenFilterConfig);
     }
 
     @Bean
@@ -84,6 +84,7 @@ public class WebSecurityConfig {
                                 "/spotlight-batch",
                                 "/spotlight-batch/{spotlightBatchId" + UUID_REGEX_STRING
                                         + "}/add-spotlight-submission/**",
+                                "/spotlight-batch/queued/add-spotlight-submission/**",
                                 "/spotlight-batch/send-to-spotlight")
                         .permitAll()
                         .anyRequest()
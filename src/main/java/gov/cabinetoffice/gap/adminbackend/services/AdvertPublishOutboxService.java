@@ -0,0 +1,97 @@
+package gov.cabinetoffice.gap.adminbackend.services;
+
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertPublishOutbox;
+import gov.cabinetoffice.gap.adminbackend.enums.AdvertPublishOutboxStatus;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertPublishOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdvertPublishOutboxService {
+
+    static final int BATCH_SIZE = 50;
+
+    static final int MAX_ATTEMPTS = 5;
+
+    static final Duration RETRY_BACKOFF = Duration.ofMinutes(1);
+
+    private final AdvertPublishOutboxRepository advertPublishOutboxRepository;
+
+    private final GrantAdvertService grantAdvertService;
+
+    private final Clock clock;
+
+    /**
+     * Sends pending messages until there are none ready. Sending one message can make the
+     * next one for the same advert ready, so this keeps fetching rather than stopping after
+     * a single batch.
+     */
+    public void sendPendingMessages() {
+        List<AdvertPublishOutbox> readyToSend = advertPublishOutboxRepository.findReadyToSend(BATCH_SIZE);
+
+        while (!readyToSend.isEmpty()) {
+            log.debug("Sending {} advert publish message(s)", readyToSend.size());
+            readyToSend.forEach(this::send);
+            readyToSend = advertPublishOutboxRepository.findReadyToSend(BATCH_SIZE);
+        }
+    }
+
+    private void send(AdvertPublishOutbox message) {
+        message.setAttempts(message.getAttempts() + 1);
+
+        try {
+            switch (message.getAction()) {
+                case PUBLISH -> grantAdvertService.sendPublishedAdvertToContentful(message.getGrantAdvertId(),
+                        message.getId());
+                case UNPUBLISH -> grantAdvertService.sendUnpublishedAdvertToContentful(message.getGrantAdvertId(),
+                        message.getId());
+            }
+            message.setStatus(AdvertPublishOutboxStatus.SENT);
+            message.setLastError(null);
+            grantAdvertService.setPublishFailed(message.getGrantAdvertId(), false);
+        }
+        catch (Exception e) {
+            log.error("Failed to {} advert with id {} on attempt {}", message.getAction(), message.getGrantAdvertId(),
+                    message.getAttempts(), e);
+            message.setLastError(e.getMessage());
+
+            if (message.getAttempts() >= MAX_ATTEMPTS) {
+                giveUp(message);
+            }
+            else {
+                message.setNextAttemptAt(Instant.now(clock).plus(RETRY_BACKOFF.multipliedBy(message.getAttempts())));
+            }
+        }
+
+        message.setLastUpdated(Instant.now(clock));
+        advertPublishOutboxRepository.save(message);
+    }
+
+    /**
+     * The advert's status already says the change happened, so it's flagged for the admin to
+     * retry and the error is logged for alerting rather than the message just being dropped.
+     */
+    private void giveUp(AdvertPublishOutbox message) {
+        message.setStatus(AdvertPublishOutboxStatus.FAILED);
+
+        try {
+            grantAdvertService.setPublishFailed(message.getGrantAdvertId(), true);
+        }
+        catch (Exception e) {
+            log.error("Failed to record the failed {} on advert with id {}", message.getAction(),
+                    message.getGrantAdvertId(), e);
+        }
+
+        log.error("Gave up trying to {} advert with id {} after {} attempts, last error: {}", message.getAction(),
+                message.getGrantAdvertId(), message.getAttempts(), message.getLastError());
+    }
+
+}
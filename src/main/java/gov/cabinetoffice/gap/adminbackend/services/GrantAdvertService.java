@@ -2,15 +2,12 @@ package gov.cabinetoffice.gap.adminbackend.services;
 
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
-import com.contentful.java.cda.CDAArray;
-import com.contentful.java.cda.CDAClient;
-import com.contentful.java.cda.CDAEntry;
-import com.contentful.java.cda.QueryOperation;
 import com.contentful.java.cma.CMAClient;
 import com.contentful.java.cma.model.CMAEntry;
-import com.contentful.java.cma.model.rich.CMARichDocument;
+import com.contentful.java.cma.model.CMAHttpException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import gov.cabinetoffice.gap.adminbackend.config.ContentfulConfigProperties;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import gov.cabinetoffice.gap.adminbackend.config.FeatureFlagsConfigurationProperties;
 import gov.cabinetoffice.gap.adminbackend.config.OpenSearchSqsProperties;
 import gov.cabinetoffice.gap.adminbackend.dtos.SendAdvertToSqsDto;
@@ -18,11 +15,13 @@ import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertPageRes
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertPublishingInformationResponseDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertStatusResponseDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GrantAdvertPageResponseValidationDto;
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertPublishOutbox;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantAdmin;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantAdvert;
 import gov.cabinetoffice.gap.adminbackend.entities.SchemeEntity;
 import gov.cabinetoffice.gap.adminbackend.enums.AdvertDefinitionQuestionResponseType;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertPageResponseStatus;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSchedulerAction;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSectionResponseStatus;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.ConflictException;
@@ -31,6 +30,8 @@ import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UserNotFoundException;
 import gov.cabinetoffice.gap.adminbackend.mappers.GrantAdvertMapper;
 import gov.cabinetoffice.gap.adminbackend.models.*;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertPublishOutboxRepository;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertSlugRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdminRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdvertRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.SchemeRepository;
@@ -39,18 +40,21 @@ import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
 import static gov.cabinetoffice.gap.adminbackend.validation.validators.AdvertPageResponseValidator.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
 import org.json.JSONObject;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
 import javax.transaction.Transactional;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -59,46 +63,51 @@ public class GrantAdvertService {
 
     private static final String CONTENTFUL_LOCALE = "en-US";
     private static final String CONTENTFUL_GRANT_TYPE_ID = "grantDetails";
+    private static final int MAX_SLUG_CLAIM_ATTEMPTS = 5;
+
+    private static final int MAX_PAGE_PATCH_ATTEMPTS = 3;
+
+    // a safety net for memory, staleness is handled by checking the advert's revision
+    private static final Duration ADVERT_VIEW_CACHE_TTL = Duration.ofMinutes(30);
+
     private final AdvertDefinition advertDefinition;
     private final GrantAdvertRepository grantAdvertRepository;
     private final GrantAdminRepository grantAdminRepository;
     private final SchemeRepository schemeRepository;
+    private final AdvertSlugRepository advertSlugRepository;
+    private final AdvertPublishOutboxRepository advertPublishOutboxRepository;
     private final GrantAdvertMapper grantAdvertMapper;
     private final CMAClient contentfulManagementClient;
-    private final CDAClient contentfulDeliveryClient;
     private final UserService userService;
-    private final WebClient.Builder webClientBuilder;
     private final AmazonSQS amazonSqs;
     private final ObjectMapper mapper;
     private final Clock clock;
-    private final ContentfulConfigProperties contentfulProperties;
     private final FeatureFlagsConfigurationProperties featureFlagsProperties;
 
     private final OpenSearchSqsProperties openSearchSqsProperties;
 
+    private final Cache<UUID, AdvertViews> advertViewCache = CacheBuilder.newBuilder().maximumSize(1_000)
+            .expireAfterAccess(ADVERT_VIEW_CACHE_TTL).build();
+
     public GrantAdvert save(GrantAdvert advert) {
-        final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        Optional.ofNullable(auth)
-                .ifPresentOrElse(authentication -> {
-                    if (!HelperUtils.isAnonymousSession()) {
-                        final AdminSession adminSession = (AdminSession) authentication.getPrincipal();
-                        final GrantAdmin admin = grantAdminRepository.findByGapUserUserSub(adminSession.getUserSub())
-                                .orElseThrow(() -> new UserNotFoundException("Could not find an admin with sub " + adminSession.getUserSub()));
-
-                        if (advert.getScheme().getGrantAdmins().contains(admin)) {
-                            final Instant updatedAt = Instant.now(clock);
-                            advert.setLastUpdated(updatedAt);
-                            advert.setLastUpdatedBy(admin);
-
-                            advert.getScheme().setLastUpdated(updatedAt);
-                            advert.getScheme().setLastUpdatedBy(adminSession.getGrantAdminId());
-
-                            advert.setValidLastUpdated(true);
-                        }
-                    }
-                }, () -> log.warn("Admin session was null. Update must have been performed by a lambda."));
+        findSchemeEditor(advert).ifPresent(admin -> {
+            final Instant updatedAt = Instant.now(clock);
+            advert.setLastUpdated(updatedAt);
+            advert.setLastUpdatedBy(admin);
+
+            advert.getScheme().setLastUpdated(updatedAt);
+            advert.getScheme().setLastUpdatedBy(admin.getId());
+
+            advert.setValidLastUpdated(true);
+        });
 
-        return grantAdvertRepository.save(advert);
+        final GrantAdvert savedAdvert = grantAdvertRepository.save(advert);
+
+        if (advert.getId() != null) {
+            advertViewCache.invalidate(advert.getId());
+        }
+
+        return savedAdvert;
     }
 
     public GrantAdvert create(Integer grantSchemeId, Integer grantAdminId, String name) {
@@ -132,6 +141,44 @@ public class GrantAdvertService {
         return advert;
     }
 
+    /**
+     * Returns a view built from the advert by buildView, only rebuilding it if the advert has been saved since. The
+     * revision is read from the database each time, so a save made on another instance is picked up too. Views are
+     * shared between requests and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAdvertView(UUID advertId, String viewName, Function<GrantAdvert, T> buildView) {
+        final long revision = grantAdvertRepository.findRevisionById(advertId)
+                .orElseThrow(() -> new NotFoundException("Advert with id " + advertId + " not found"));
+
+        final AdvertViews views = advertViewCache.asMap().compute(advertId,
+                (id, cached) -> cached != null && cached.revision() >= revision ? cached : new AdvertViews(revision));
+
+        // the advert is loaded after the revision is read, so a view is never older than the revision it's kept under
+        return (T) views.byName().computeIfAbsent(viewName, name -> buildView.apply(getAdvertById(advertId)));
+    }
+
+    /**
+     * Returns the admin making this change if they're one of the advert's scheme editors, in which case the advert
+     * should be marked as last updated by them.
+     */
+    private Optional<GrantAdmin> findSchemeEditor(GrantAdvert advert) {
+        final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            log.warn("Admin session was null. Update must have been performed by a lambda.");
+            return Optional.empty();
+        }
+        if (HelperUtils.isAnonymousSession()) {
+            return Optional.empty();
+        }
+
+        final AdminSession adminSession = (AdminSession) auth.getPrincipal();
+        final GrantAdmin admin = grantAdminRepository.findByGapUserUserSub(adminSession.getUserSub())
+                .orElseThrow(() -> new UserNotFoundException("Could not find an admin with sub " + adminSession.getUserSub()));
+
+        return advert.getScheme().getGrantAdmins().contains(admin) ? Optional.of(admin) : Optional.empty();
+    }
+
     public Integer getSchemeIdFromAdvert(UUID advertId) {
         return grantAdvertRepository.findByIdWithScheme(advertId)
                 .map(GrantAdvert::getScheme)
@@ -140,8 +187,12 @@ public class GrantAdvertService {
     }
 
     public GetGrantAdvertPageResponseDTO getAdvertBuilderPageData(UUID grantAdvertId, String sectionId, String pageId) {
+        return getAdvertView(grantAdvertId, "builder-page/" + sectionId + "/" + pageId,
+                grantAdvert -> buildAdvertBuilderPageData(grantAdvert, sectionId, pageId));
+    }
 
-        GrantAdvert grantAdvert = getAdvertById(grantAdvertId);
+    private GetGrantAdvertPageResponseDTO buildAdvertBuilderPageData(GrantAdvert grantAdvert, String sectionId,
+            String pageId) {
 
         GetGrantAdvertPageResponseDTO viewResponse = new GetGrantAdvertPageResponseDTO();
 
@@ -153,7 +204,7 @@ public class GrantAdvertService {
         // get page information
         AdvertDefinitionPage pageDefinition = sectionDefiniton.getPageById(pageId);
 
-        Integer currentPageIndex = sectionDefiniton.getIndexOfPage(pageDefinition);
+        int currentPageIndex = sectionDefiniton.getIndexOfPage(pageId);
         sectionDefiniton.getPageByIndex(currentPageIndex - 1)
                 .ifPresent(page -> viewResponse.setPreviousPageId(page.getId()));
         sectionDefiniton.getPageByIndex(currentPageIndex + 1)
@@ -184,52 +235,119 @@ public class GrantAdvertService {
         return viewResponse;
     }
 
+    /**
+     * Saves a single page of the advert's response. Rather than writing the whole response back, only the page and
+     * its section's status are patched into it, and only if nobody has saved the advert since it was read. A save
+     * that loses that race, e.g. to the same admin saving another page in a second tab, is rebuilt on top of the
+     * latest response and tried again.
+     */
+    @Transactional
     public void updatePageResponse(GrantAdvertPageResponseValidationDto pagePatchDto) {
+        addStaticTimeToDateQuestion(pagePatchDto);
+
+        for (int attempt = 1; attempt <= MAX_PAGE_PATCH_ATTEMPTS; attempt++) {
+            if (tryPatchPageResponse(pagePatchDto)) {
+                advertViewCache.invalidate(pagePatchDto.getGrantAdvertId());
+                return;
+            }
+
+            log.info("Advert with id {} was updated while saving page {} of section {}, attempt {} of {}",
+                    pagePatchDto.getGrantAdvertId(), pagePatchDto.getPage().getId(), pagePatchDto.getSectionId(),
+                    attempt, MAX_PAGE_PATCH_ATTEMPTS);
+        }
+
+        throw new ConflictException("GRANT_ADVERT_MULTIPLE_EDITORS");
+    }
+
+    private boolean tryPatchPageResponse(GrantAdvertPageResponseValidationDto pagePatchDto) {
         final GrantAdvert grantAdvert = grantAdvertRepository.findById(pagePatchDto.getGrantAdvertId())
                 .orElseThrow(() -> new NotFoundException(
                         String.format("GrantAdvert with id %s not found", pagePatchDto.getGrantAdvertId())));
 
         validateAdvertStatus(grantAdvert);
-        addStaticTimeToDateQuestion(pagePatchDto);
 
-        // if response/section/page does not exist, create it. If it does exist, update it
-        final GrantAdvertResponse response = Optional.ofNullable(grantAdvert.getResponse()).orElseGet(() -> {
-            final GrantAdvertResponse newResponse = GrantAdvertResponse.builder().build();
-            grantAdvert.setResponse(newResponse);
-
-            return newResponse;
-        });
+        // the patch is built from copies, as changing the advert itself would have hibernate write all of it back
+        final List<GrantAdvertSectionResponse> sections = grantAdvert.getResponse() != null
+                ? grantAdvert.getResponse().getSections() : List.of();
+        final GrantAdvertPageResponse page = GrantAdvertPageResponse.builder()
+                .id(pagePatchDto.getPage().getId())
+                .questions(pagePatchDto.getPage().getQuestions())
+                .status(pagePatchDto.getPage().getStatus())
+                .build();
+
+        // if the section/page does not exist, append it. If it does exist, replace it
+        final int sectionIndex = indexOf(sections,
+                existingSection -> Objects.equals(existingSection.getId(), pagePatchDto.getSectionId()));
+        final GrantAdvertSectionResponse section;
+        final String path;
+        final Object patch;
+
+        if (sectionIndex < sections.size()) {
+            final List<GrantAdvertPageResponse> pages = new ArrayList<>(sections.get(sectionIndex).getPages());
+            final int pageIndex = indexOf(pages, existingPage -> Objects.equals(existingPage.getId(), page.getId()));
+
+            if (pageIndex < pages.size()) {
+                pages.set(pageIndex, page);
+            }
+            else {
+                pages.add(page);
+            }
 
-        final GrantAdvertSectionResponse section = response.getSectionById(pagePatchDto.getSectionId())
-                .orElseGet(() -> {
-            final GrantAdvertSectionResponse newSection = GrantAdvertSectionResponse.builder()
+            section = GrantAdvertSectionResponse.builder()
                     .id(pagePatchDto.getSectionId())
-                    .status(GrantAdvertSectionResponseStatus.IN_PROGRESS)
+                    .pages(pages)
                     .build();
-            response.getSections().add(newSection);
+            path = jsonPath("sections", sectionIndex, "pages", pageIndex);
+            patch = page;
+        }
+        else {
+            section = GrantAdvertSectionResponse.builder()
+                    .id(pagePatchDto.getSectionId())
+                    .pages(new ArrayList<>(List.of(page)))
+                    .build();
+            path = jsonPath("sections", sectionIndex);
+            patch = section;
+        }
 
-            return newSection;
-        });
+        updateSectionStatus(section);
 
-        final GrantAdvertPageResponse page = section.getPageById(pagePatchDto.getPage().getId())
-                .orElseGet(() -> {
-            final GrantAdvertPageResponse newPage = GrantAdvertPageResponse.builder()
-                    .id(pagePatchDto.getPage().getId())
-                    .build();
-            section.getPages().add(newPage);
+        final Optional<ApplicationDates> applicationDates = pagePatchDto.getSectionId().equals(ADVERT_DATES_SECTION_ID)
+                ? Optional.of(getApplicationDates(section)) : Optional.empty();
+        final Optional<GrantAdmin> editor = findSchemeEditor(grantAdvert);
+        final Instant updatedAt = Instant.now(clock);
 
-            return newPage;
+        editor.ifPresent(admin -> {
+            grantAdvert.getScheme().setLastUpdated(updatedAt);
+            grantAdvert.getScheme().setLastUpdatedBy(admin.getId());
         });
 
-        page.setQuestions(pagePatchDto.getPage().getQuestions());
-        page.setStatus(pagePatchDto.getPage().getStatus());
-        updateSectionStatus(section);
+        final int patched = grantAdvertRepository.patchResponse(grantAdvert.getId(), grantAdvert.getRevision(),
+                path, mapper.valueToTree(patch).toString(), jsonPath("sections", sectionIndex, "status"),
+                mapper.valueToTree(section.getStatus()).toString());
 
-        if (pagePatchDto.getSectionId().equals(ADVERT_DATES_SECTION_ID)) {
-            updateGrantAdvertApplicationDates(grantAdvert);
+        if (patched == 0) {
+            return false;
         }
 
-        save(grantAdvert);
+        editor.ifPresent(admin -> grantAdvertRepository.updateLastUpdated(grantAdvert.getId(), updatedAt, admin));
+        applicationDates.ifPresent(dates -> grantAdvertRepository.updateApplicationDates(grantAdvert.getId(),
+                dates.openingDate(), dates.closingDate()));
+
+        return true;
+    }
+
+    private static <T> int indexOf(List<T> list, Predicate<T> matches) {
+        for (int i = 0; i < list.size(); i++) {
+            if (matches.test(list.get(i))) {
+                return i;
+            }
+        }
+
+        return list.size();
+    }
+
+    private static String jsonPath(Object... keys) {
+        return Arrays.stream(keys).map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
     }
 
     private void addStaticTimeToDateQuestion(GrantAdvertPageResponseValidationDto pagePatchDto) {
@@ -303,62 +421,114 @@ public class GrantAdvertService {
 
         if (deletedCount == 0)
             throw new NotFoundException("Grant Advert not found with id of " + grantAdvertId);
+
+        advertViewCache.invalidate(grantAdvertId);
     }
 
+    /**
+     * Marks the advert as published and queues it to be sent to Contentful, which happens
+     * in the background from the outbox. The Contentful entry id and slug are settled here
+     * so the advert can be linked to straight away.
+     */
+    @Transactional
     public GrantAdvert publishAdvert(UUID advertId) {
         final GrantAdvert advert = getAdvertById(advertId);
 
-        CMAEntry contentfulAdvert;
         // if advert has not been published previously
         if (advert.getFirstPublishedDate() == null) {
-            contentfulAdvert = createAdvertInContentful(advert);
             advert.setFirstPublishedDate(Instant.now());
         }
         else {
-            contentfulAdvert = updateAdvertInContentful(advert);
             advert.setLastPublishedDate(Instant.now());
         }
 
-        contentfulAdvert = contentfulManagementClient.entries().fetchOne(contentfulAdvert.getId());
-        final boolean isPublished = Boolean.TRUE.equals(contentfulAdvert.isPublished());
-        advert.setStatus(GrantAdvertStatus.PUBLISHED);
-        advert.setContentfulSlug(contentfulAdvert.getField("label", CONTENTFUL_LOCALE));
-        advert.setContentfulEntryId(contentfulAdvert.getId());
-
-        if (!isPublished) {
-            contentfulManagementClient.entries().publish(contentfulAdvert);
+        if (advert.getContentfulEntryId() == null) {
+            advert.setContentfulEntryId(UUID.randomUUID().toString());
         }
 
+        advert.setStatus(GrantAdvertStatus.PUBLISHED);
+        advert.setContentfulSlug(generateUniqueSlug(advert));
+
         updateGrantAdvertApplicationDates(advert);
         final GrantAdvert savedAdvert = save(advert);
-        sendMessageToQueue(new SendAdvertToSqsDto(contentfulAdvert.getId(), "ADD"));
+        queueContentfulAction(advertId, GrantAdvertSchedulerAction.PUBLISH);
 
         return savedAdvert;
     }
 
+    @Transactional
     public void unpublishAdvert(UUID advertId) {
         final GrantAdvert advert = this.getAdvertById(advertId);
-        final CMAEntry contentfulAdvert = contentfulManagementClient.entries().fetchOne(advert.getContentfulEntryId());
-        final boolean isPublished = Boolean.TRUE.equals(contentfulAdvert.isPublished());
-
-        if (isPublished) {
-           contentfulManagementClient.entries().unPublish(contentfulAdvert);
-        }
 
         advert.setStatus(GrantAdvertStatus.DRAFT);
         advert.setContentfulSlug(null);
         advert.setUnpublishedDate(Instant.now());
 
         save(advert);
-        sendMessageToQueue(new SendAdvertToSqsDto(contentfulAdvert.getId(), "REMOVE"));
+        queueContentfulAction(advertId, GrantAdvertSchedulerAction.UNPUBLISH);
+    }
+
+    /**
+     * Creates or updates the advert's Contentful entry and publishes it. Safe to repeat: the
+     * entry id is chosen before the first attempt, so a retry updates the entry rather than
+     * creating a second one. An advert that has been unpublished since the message was written
+     * is skipped, as its unpublish message follows and it has no slug to label the entry with.
+     */
+    public void sendPublishedAdvertToContentful(UUID advertId, UUID messageId) {
+        final GrantAdvert advert = grantAdvertRepository.findByIdWithScheme(advertId)
+                .orElseThrow(() -> new NotFoundException("Advert with id " + advertId + " not found"));
+
+        if (advert.getStatus() != GrantAdvertStatus.PUBLISHED) {
+            log.info("Advert {} is {} rather than published, skipping its publish", advertId, advert.getStatus());
+            return;
+        }
+
+        ensureSlugIsFreeInContentful(advert);
+
+        // create and update return the entry at its new version, which is all publish needs
+        final CMAEntry contentfulAdvert = fetchContentfulAdvert(advert.getContentfulEntryId())
+                .map(existingAdvert -> updateAdvertInContentful(advert, existingAdvert))
+                .orElseGet(() -> createAdvertInContentful(advert));
+
+        if (!Boolean.TRUE.equals(contentfulAdvert.isPublished())) {
+            contentfulManagementClient.entries().publish(contentfulAdvert);
+        }
+
+        sendMessageToQueue(new SendAdvertToSqsDto(contentfulAdvert.getId(), "ADD"), messageId);
+    }
+
+    /**
+     * Unpublishes the advert's Contentful entry, if it's still published, and removes the advert
+     * from search. An entry that no longer exists is treated as already unpublished, but the
+     * removal is still sent in case the advert is still in the search index.
+     */
+    public void sendUnpublishedAdvertToContentful(UUID advertId, UUID messageId) {
+        final GrantAdvert advert = this.getAdvertById(advertId);
+
+        fetchContentfulAdvert(advert.getContentfulEntryId())
+                .filter(contentfulAdvert -> Boolean.TRUE.equals(contentfulAdvert.isPublished()))
+                .ifPresent(contentfulAdvert -> contentfulManagementClient.entries().unPublish(contentfulAdvert));
+
+        sendMessageToQueue(new SendAdvertToSqsDto(advert.getContentfulEntryId(), "REMOVE"), messageId);
+    }
+
+    /**
+     * Records whether the advert's last publish or unpublish reached Contentful, which the
+     * advert's status and summary pages report to admins.
+     */
+    public void setPublishFailed(UUID advertId, boolean publishFailed) {
+        grantAdvertRepository.updatePublishFailed(advertId, publishFailed);
     }
 
-    public void sendMessageToQueue(final SendAdvertToSqsDto advertDto) {
-        final UUID messageId = UUID.randomUUID();
+    /**
+     * The message id is used as the deduplication id and the entry id as the group, so a
+     * resent message is dropped and an advert's messages are read in order.
+     */
+    public void sendMessageToQueue(final SendAdvertToSqsDto advertDto, final UUID messageId) {
         final String messageBody = mapper.valueToTree(advertDto).toString();
         final SendMessageRequest messageRequest = new SendMessageRequest()
                 .withQueueUrl(openSearchSqsProperties.getQueueUrl())
-                .withMessageGroupId(messageId.toString())
+                .withMessageGroupId(advertDto.contentfulEntryId())
                 .withMessageBody(messageBody)
                 .withMessageDeduplicationId(messageId.toString());
 
@@ -366,72 +536,96 @@ public class GrantAdvertService {
         log.info("Message sent to queue for advert with contentful ID {}", advertDto.contentfulEntryId());
     }
 
+    private void queueContentfulAction(UUID advertId, GrantAdvertSchedulerAction action) {
+        advertPublishOutboxRepository
+                .save(AdvertPublishOutbox.builder().grantAdvertId(advertId).action(action).build());
+    }
+
+    private Optional<CMAEntry> fetchContentfulAdvert(String contentfulEntryId) {
+        try {
+            return Optional.of(contentfulManagementClient.entries().fetchOne(contentfulEntryId));
+        }
+        catch (CMAHttpException e) {
+            if (e.responseCode() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
     private CMAEntry createAdvertInContentful(final GrantAdvert grantAdvert) {
-        final CMAEntry contentfulAdvert = new CMAEntry();
+        // creating with our own id is what makes a retried create idempotent
+        final CMAEntry contentfulAdvert = new CMAEntry().setId(grantAdvert.getContentfulEntryId());
 
         grantAdvert.getResponse().getSections().stream().flatMap(s -> s.getPages().stream())
                 .flatMap(p -> p.getQuestions().stream()).forEach(r -> addFieldToContentfulAdvert(contentfulAdvert, r));
 
         contentfulAdvert.setField("grantName", CONTENTFUL_LOCALE, grantAdvert.getGrantAdvertName());
-        contentfulAdvert.setField("label", CONTENTFUL_LOCALE, generateUniqueSlug(grantAdvert));
+        contentfulAdvert.setField("label", CONTENTFUL_LOCALE, grantAdvert.getContentfulSlug());
 
-        final CMAEntry createdAdvert = contentfulManagementClient.entries().create(CONTENTFUL_GRANT_TYPE_ID,
-                contentfulAdvert);
-        createRichTextQuestionsInContentful(grantAdvert, createdAdvert);
-        return createdAdvert;
+        return contentfulManagementClient.entries().create(CONTENTFUL_GRANT_TYPE_ID, contentfulAdvert);
     }
 
-    private CMAEntry updateAdvertInContentful(final GrantAdvert grantAdvert) {
-        final CMAEntry contentfulAdvert = contentfulManagementClient.entries()
-                .fetchOne(grantAdvert.getContentfulEntryId());
-
+    private CMAEntry updateAdvertInContentful(final GrantAdvert grantAdvert, final CMAEntry contentfulAdvert) {
         grantAdvert.getResponse().getSections().stream().flatMap(s -> s.getPages().stream())
                 .flatMap(p -> p.getQuestions().stream()).forEach(r -> addFieldToContentfulAdvert(contentfulAdvert, r));
 
         contentfulAdvert.setField("grantName", CONTENTFUL_LOCALE, grantAdvert.getGrantAdvertName());
-        contentfulAdvert.setField("label", CONTENTFUL_LOCALE, generateUniqueSlug(grantAdvert));
-        contentfulAdvert.setField("grantUpdated", CONTENTFUL_LOCALE, true);
+        contentfulAdvert.setField("label", CONTENTFUL_LOCALE, grantAdvert.getContentfulSlug());
 
-        final CMAEntry updatedAdvert = contentfulManagementClient.entries().update(contentfulAdvert);
-        createRichTextQuestionsInContentful(grantAdvert, updatedAdvert);
-        return updatedAdvert;
+        // only republished adverts get a last published date
+        if (grantAdvert.getLastPublishedDate() != null) {
+            contentfulAdvert.setField("grantUpdated", CONTENTFUL_LOCALE, true);
+        }
+
+        return contentfulManagementClient.entries().update(contentfulAdvert);
     }
 
     private String generateUniqueSlug(final GrantAdvert grantAdvert) {
 
-        String currentSlug = grantAdvert.getScheme().getName().toLowerCase(Locale.UK).replaceAll("[^a-z\\d\\- ]", "")
-                .trim().replace(" ", "-");
-
-        final CDAArray allAdvertEntries = contentfulDeliveryClient.fetch(CDAEntry.class)
-                .withContentType(CONTENTFUL_GRANT_TYPE_ID).where("fields.label", QueryOperation.Matches, currentSlug)
-                .all();
+        final String baseSlug = grantAdvert.getScheme().getName().toLowerCase(Locale.UK)
+                .replaceAll("[^a-z\\d\\- ]", "").trim().replace(" ", "-");
 
-        if (allAdvertEntries.entries().isEmpty()) {
-            return currentSlug.concat("-1");
+        // the registry's primary key settles races between concurrent publishes, so just
+        // move on to the next suffix if someone else claimed this one first
+        for (int attempt = 0; attempt < MAX_SLUG_CLAIM_ATTEMPTS; attempt++) {
+            final int suffix = advertSlugRepository.findMaxSuffixByBaseSlug(baseSlug) + 1;
+            if (advertSlugRepository.claim(baseSlug, suffix, grantAdvert.getId()) == 1) {
+                return baseSlug + "-" + suffix;
+            }
         }
 
-        return currentSlug.concat("-" + findMaxInteger(allAdvertEntries.entries().values()));
+        throw new ConflictException("Could not claim a unique slug for advert with id " + grantAdvert.getId());
+    }
+
+    /**
+     * The slug registry only knows the labels of adverts that still record one, so Contentful
+     * can already have the claimed slug as the label of another entry, e.g. a deleted advert's
+     * or one whose slug was cleared when it was unpublished. Such slugs are handed over to that
+     * entry in the registry and the next free one is claimed instead.
+     */
+    private void ensureSlugIsFreeInContentful(final GrantAdvert advert) {
+        while (isLabelUsedByAnotherContentfulEntry(advert.getContentfulSlug(), advert.getContentfulEntryId())) {
+            log.warn("Slug {} for advert {} is already a label in Contentful, claiming another",
+                    advert.getContentfulSlug(), advert.getId());
+
+            advertSlugRepository.releaseToContentful(advert.getContentfulSlug());
+            advert.setContentfulSlug(generateUniqueSlug(advert));
+            grantAdvertRepository.updateContentfulSlug(advert.getId(), advert.getContentfulSlug());
+        }
     }
 
-    private int findMaxInteger(Collection<CDAEntry> entries) {
-        return entries.stream().mapToInt(entry -> {
-            String fieldValue = entry.getField("label");
-            String substring = fieldValue.substring(fieldValue.lastIndexOf('-') + 1);
+    private boolean isLabelUsedByAnotherContentfulEntry(final String label, final String contentfulEntryId) {
+        final Map<String, String> query = Map.of("content_type", CONTENTFUL_GRANT_TYPE_ID, "fields.label", label,
+                "sys.id[ne]", contentfulEntryId, "limit", "1");
 
-            try {
-                return Integer.parseInt(substring);
-            }
-            catch (NumberFormatException e) {
-                return 0;
-            }
-        }).max().getAsInt() + 1;
+        return contentfulManagementClient.entries().fetchAll(query).getTotal() > 0;
     }
 
     private void addFieldToContentfulAdvert(final CMAEntry contentfulAdvert,
             final GrantAdvertQuestionResponse questionResponse) {
-        final AdvertDefinitionQuestionResponseType answerType = advertDefinition.getSections().stream()
-                .flatMap(s -> s.getPages().stream()).flatMap(p -> p.getQuestions().stream())
-                .filter(q -> q.getId().equals(questionResponse.getId())).findFirst()
+        final AdvertDefinitionQuestionResponseType answerType = advertDefinition
+                .findQuestionById(questionResponse.getId())
                 .orElseThrow(() -> new NotFoundException(
                         String.format("No question with ID %s found in advert definition", questionResponse.getId())))
                 .getResponseType();
@@ -449,74 +643,12 @@ public class GrantAdvertService {
         contentfulAdvert.setField(questionResponse.getId(), CONTENTFUL_LOCALE, contentfulValue);
     }
 
-    private void createRichTextQuestionsInContentful(final GrantAdvert advert, final CMAEntry contentfulAdvert) {
-        final List<GrantAdvertQuestionResponse> responses = getRichTextResponses(advert);
-        final String requestBody = buildRichTextPatchRequestBody(responses);
-        final String contentfulUrl = String.format("https://api.contentful.com/spaces/%1$s/environments/%2$s/entries/%3$s",
-                contentfulProperties.getSpaceId(), contentfulProperties.getEnvironmentId(),
-                contentfulAdvert.getId());
-
-        if (responses == null || responses.isEmpty()) {
-            log.error("createRichTextQuestionsInContentful failed on PATCH to {}, with message: No rich text responses found", contentfulUrl);
-        }
-
-        final Instant now = Instant.now();
-        webClientBuilder.build()
-                .patch()
-                .uri(contentfulUrl)
-                .headers(h -> {
-                    h.set("Authorization", String.format("Bearer %s", contentfulProperties.getAccessToken()));
-                    h.set("Content-Type", "application/json-patch+json");
-                    h.set("X-Contentful-Version", contentfulAdvert.getVersion().toString());
-                })
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(Void.class)
-                .doOnError(exception -> {
-                    log.error("createRichTextQuestionsInContentful failed on PATCH to {}, with message: {}", contentfulUrl, exception.getMessage());
-                    log.info("Took {} seconds to try and update rich text questions in Contentful", Duration.between(now, Instant.now()).getSeconds());
-                })
-                .block();
-
-        log.info("Took {} seconds to update rich text questions in Contentful", Duration.between(now, Instant.now()).getSeconds());
-    }
-
-    private List<GrantAdvertQuestionResponse> getRichTextResponses(final GrantAdvert advert) {
-        return advert.getResponse().getSections().stream()
-                .flatMap(s -> s.getPages().stream()).flatMap(p -> p.getQuestions().stream())
-                .filter(q -> advertDefinition.getSections().stream().flatMap(s -> s.getPages().stream())
-                        .flatMap(p -> p.getQuestions().stream())
-                        .filter(qr -> qr.getResponseType().equals(AdvertDefinitionQuestionResponseType.RICH_TEXT))
-                        .anyMatch(qr -> qr.getId().equals(q.getId())))
-                .toList();
-    }
-
-    // built to replicate
-    // https://www.contentful.com/developers/docs/references/content-management-api/#/reference/entries/entry/patch-an-entry/console/curl
-    private String buildRichTextPatchRequestBody(final List<GrantAdvertQuestionResponse> responses) {
-        final JSONArray req = new JSONArray();
-
-        responses.forEach(response -> {
-            final JSONObject patch = new JSONObject();
-            patch.put("op", "add");
-            patch.put("path", String.format("/fields/%s/en-US", response.getId()));
-            patch.put("value", new JSONObject(response.getMultiResponse()[1]));
-
-            req.put(patch);
-        });
-
-        log.debug(req.toString());
-
-        return req.toString();
-    }
-
     private Object convertQuestionResponseToContentfulFormat(final AdvertDefinitionQuestionResponseType answerType,
             final GrantAdvertQuestionResponse questionResponse) {
         return switch (answerType) {
             case DATE -> buildDateFromResponse(questionResponse);
-            // This is a required step even though we update the value later. Do not
-            // delete
-            case RICH_TEXT -> new CMARichDocument();
+            // the rich text document is stored as JSON, which is sent as-is as the field value
+            case RICH_TEXT -> new JSONObject(questionResponse.getMultiResponse()[1]).toMap();
             case CURRENCY -> Integer.valueOf(questionResponse.getResponse());
             case LIST -> questionResponse.getMultiResponse();
             default -> questionResponse.getResponse();
@@ -581,6 +713,14 @@ public class GrantAdvertService {
         GrantAdvertSectionResponse applicationDatesSection = grantAdvert.getResponse()
                 .getSectionById(ADVERT_DATES_SECTION_ID)
                 .orElseThrow(() -> new GrantAdvertException("Advert is missing application dates section"));
+        ApplicationDates applicationDates = getApplicationDates(applicationDatesSection);
+
+        // set dates on advert
+        grantAdvert.setOpeningDate(applicationDates.openingDate());
+        grantAdvert.setClosingDate(applicationDates.closingDate());
+    }
+
+    private ApplicationDates getApplicationDates(final GrantAdvertSectionResponse applicationDatesSection) {
         GrantAdvertPageResponse applicationDatesPage = applicationDatesSection.getPageById("1")
                 .orElseThrow(() -> new GrantAdvertException("Advert is missing application dates page"));
         GrantAdvertQuestionResponse openingDateQuestion = applicationDatesPage.getQuestionById(OPENING_DATE_ID)
@@ -609,9 +749,7 @@ public class GrantAdvertService {
                 .of(closingResponse[2], closingResponse[1], closingResponse[0], closingResponse[3], closingResponse[4])
                 .atZone(ZoneId.of("Europe/London"));
 
-        // set dates on advert
-        grantAdvert.setOpeningDate(openingDate);
-        grantAdvert.setClosingDate(closingDate);
+        return new ApplicationDates(openingDate, closingDate);
     }
 
     public void unscheduleGrantAdvert(final UUID advertId) {
@@ -648,4 +786,16 @@ public class GrantAdvertService {
             throw new ConflictException("GRANT_ADVERT_MULTIPLE_EDITORS");
         }
     }
+
+    private record ApplicationDates(ZonedDateTime openingDate, ZonedDateTime closingDate) {
+    }
+
+    private record AdvertViews(long revision, Map<String, Object> byName) {
+
+        private AdvertViews(long revision) {
+            this(revision, new ConcurrentHashMap<>());
+        }
+
+    }
+
 }
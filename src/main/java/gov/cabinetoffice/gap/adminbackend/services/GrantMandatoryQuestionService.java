@@ -1,30 +1,36 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
 import gov.cabinetoffice.gap.adminbackend.constants.DueDiligenceHeaders;
+import gov.cabinetoffice.gap.adminbackend.dtos.GrantMandatoryQuestionExportView;
 import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
-import gov.cabinetoffice.gap.adminbackend.enums.SubmissionStatus;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrgType;
 import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantMandatoryQuestionRepository;
 import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
+import gov.cabinetoffice.gap.adminbackend.utils.KeysetPages;
 import gov.cabinetoffice.gap.adminbackend.utils.XlsxGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityNotFoundException;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
 @Slf4j
 public class GrantMandatoryQuestionService {
 
+    private static final int DUE_DILIGENCE_PAGE_SIZE = 500;
+
     private final GrantMandatoryQuestionRepository grantMandatoryQuestionRepository;
 
     private final SchemeService schemeService;
@@ -33,19 +39,11 @@ public class GrantMandatoryQuestionService {
         return grantMandatoryQuestionRepository.findBySchemeEntity_IdAndCompletedStatus(schemeId);
     }
 
-    public ByteArrayOutputStream getDueDiligenceData(Integer schemeId, boolean isInternal) {
-        List<GrantMandatoryQuestions> mandatoryQuestions = getGrantMandatoryQuestionBySchemeAndCompletedStatus(
-                schemeId);
-        if (isInternal) {
-            mandatoryQuestions = mandatoryQuestions.stream().filter(mq -> mq.getSubmission() != null
-                    && mq.getSubmission().getStatus().equals(SubmissionStatus.SUBMITTED)).toList();
-        }
-        final List<List<String>> exportData = exportSpotlightChecks(schemeId, mandatoryQuestions);
-        return XlsxGenerator.createResource(DueDiligenceHeaders.DUE_DILIGENCE_HEADERS, exportData);
-    }
-
-    private List<List<String>> exportSpotlightChecks(Integer schemeId,
-            List<GrantMandatoryQuestions> grantMandatoryQuestions) {
+    /**
+     * Checked before the export starts streaming, while an error response can still be
+     * sent and the admin session is still available.
+     */
+    public void verifyDueDiligenceExportAccess(Integer schemeId) {
         final AdminSession adminSession = HelperUtils.getAdminSessionForAuthenticatedUser();
 
         try {
@@ -55,11 +53,37 @@ public class GrantMandatoryQuestionService {
             throw new AccessDeniedException("Admin " + adminSession.getGrantAdminId()
                     + " is unable to access mandatory questions with scheme id " + schemeId);
         }
+    }
+
+    /**
+     * Also checked before the export starts streaming, so that an admin never gets a
+     * spreadsheet with applicants silently left out.
+     */
+    public void verifyDueDiligenceExportData(Integer schemeId, boolean isInternal) {
+        final long incompleteRows = grantMandatoryQuestionRepository
+                .countCompletedExportRowsMissingMandatoryData(schemeId, isInternal);
+
+        if (incompleteRows > 0) {
+            throw new SpotlightExportException(
+                    incompleteRows + " mandatory questions are missing mandatory data for schemeId " + schemeId);
+        }
+    }
 
-        log.info("Found {} mandatory questions in COMPLETED state for scheme ID {}", grantMandatoryQuestions.size(),
-                schemeId);
+    /**
+     * Writes the due diligence spreadsheet for a scheme straight to the given stream.
+     * Completed mandatory questions are read from the database a page at a time, with
+     * internal exports limited to submitted applications by the query, and each row is
+     * written out as soon as it's built. Callers are expected to have called
+     * {@link #verifyDueDiligenceExportAccess(Integer)} and
+     * {@link #verifyDueDiligenceExportData(Integer, boolean)} first.
+     */
+    public void writeDueDiligenceData(Integer schemeId, boolean isInternal, OutputStream outputStream) {
+        final Stream<List<String>> rows = KeysetPages
+                .stream(lastId -> grantMandatoryQuestionRepository.findCompletedExportPage(schemeId, isInternal,
+                        lastId, PageRequest.of(0, DUE_DILIGENCE_PAGE_SIZE)), GrantMandatoryQuestionExportView::getId)
+                .map(row -> buildSingleSpotlightRow(schemeId, row));
 
-        return grantMandatoryQuestions.stream().map(this::buildSingleSpotlightRow).toList();
+        XlsxGenerator.writeResource(DueDiligenceHeaders.DUE_DILIGENCE_HEADERS, rows, outputStream);
     }
 
     static String mandatoryValue(Integer id, String identifier, String value) {
@@ -88,32 +112,26 @@ public class GrantMandatoryQuestionService {
     }
 
     /**
-     * The ordering of the data added here is strongly tied to SPOTLIGHT_HEADERS. If new
-     * headers are added or the ordering is changed in SPOTLIGHT_HEADERS, this will need
+     * The ordering of the data added here is strongly tied to DUE_DILIGENCE_HEADERS. If new
+     * headers are added or the ordering is changed in DUE_DILIGENCE_HEADERS, this will need
      * manually reflected here.
      */
-    public List<String> buildSingleSpotlightRow(GrantMandatoryQuestions grantMandatoryQuestions) {
-        try {
-            final Integer schemeId = grantMandatoryQuestions.getSchemeEntity().getId();
-            final List<String> row = new ArrayList<>(List.of(
-                    mandatoryValue(schemeId, "gap id", grantMandatoryQuestions.getGapId()),
-                    mandatoryValue(schemeId, "organisation name", grantMandatoryQuestions.getName()),
-                    combineAddressLines(grantMandatoryQuestions.getAddressLine1(),
-                            grantMandatoryQuestions.getAddressLine2()),
-                    grantMandatoryQuestions.getCity(), grantMandatoryQuestions.getCounty(),
-                    mandatoryValue(schemeId, "postcode", grantMandatoryQuestions.getPostcode()),
-                    mandatoryValue(schemeId, "application amount",
-                            grantMandatoryQuestions.getFundingAmount().toString()),
-                    Objects.requireNonNullElse(grantMandatoryQuestions.getCharityCommissionNumber(), ""),
-                    Objects.requireNonNullElse(grantMandatoryQuestions.getCompaniesHouseNumber(), ""),
-                    mandatoryValue(schemeId, "organisation type", grantMandatoryQuestions.getOrgType().toString())));
-
-            row.add(""); // similarities data - should always be blank
-            return row;
-        }
-        catch (NullPointerException e) {
-            throw new SpotlightExportException("Unable to find mandatory question data: " + e.getMessage());
-        }
+    public List<String> buildSingleSpotlightRow(Integer schemeId, GrantMandatoryQuestionExportView row) {
+        final String orgType = row.getOrgType() == null ? null
+                : GrantMandatoryQuestionOrgType.valueOf(row.getOrgType()).toString();
+
+        final List<String> dueDiligenceRow = new ArrayList<>(List.of(mandatoryValue(schemeId, "gap id", row.getGapId()),
+                mandatoryValue(schemeId, "organisation name", row.getName()),
+                combineAddressLines(row.getAddressLine1(), row.getAddressLine2()),
+                Objects.requireNonNullElse(row.getCity(), ""), Objects.requireNonNullElse(row.getCounty(), ""),
+                mandatoryValue(schemeId, "postcode", row.getPostcode()),
+                mandatoryValue(schemeId, "application amount", Objects.toString(row.getFundingAmount(), null)),
+                Objects.requireNonNullElse(row.getCharityCommissionNumber(), ""),
+                Objects.requireNonNullElse(row.getCompaniesHouseNumber(), ""),
+                mandatoryValue(schemeId, "organisation type", orgType)));
+
+        dueDiligenceRow.add(""); // similarities data - should always be blank
+        return dueDiligenceRow;
     }
 
     public String generateExportFileName(Integer schemeId, String orgType) {
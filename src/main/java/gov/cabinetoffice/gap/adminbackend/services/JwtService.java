@@ -1,7 +1,16 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.Verification;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import gov.cabinetoffice.gap.adminbackend.config.JwtVerificationConfigProperties;
 import gov.cabinetoffice.gap.adminbackend.config.UserServiceConfig;
 import gov.cabinetoffice.gap.adminbackend.exceptions.InvalidJwtException;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
@@ -12,8 +21,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 
 /**
@@ -28,7 +42,63 @@ public class JwtService {
 
     private final RestTemplate restTemplate;
 
+    private final JwtVerificationConfigProperties jwtVerificationConfigProperties;
+
+    private final JwkProvider jwkProvider;
+
+    // token hash -> time the user service last confirmed the token hadn't been revoked
+    private final Cache<String, Instant> revocationChecks = CacheBuilder.newBuilder().maximumSize(10_000)
+            .expireAfterWrite(Duration.ofHours(24)).build();
+
     public DecodedJWT verifyToken(final String jwt) {
+        if (!jwtVerificationConfigProperties.isLocalVerificationEnabled()) {
+            verifyTokenWithUserService(jwt);
+            return JWT.decode(jwt);
+        }
+
+        final DecodedJWT decodedJWT = verifyTokenLocally(jwt);
+
+        final String tokenHash = hashToken(jwt);
+        if (isRevocationCheckDue(tokenHash)) {
+            verifyTokenWithUserService(jwt);
+            revocationChecks.put(tokenHash, Instant.now());
+        }
+
+        return decodedJWT;
+    }
+
+    public static String hashToken(final String jwt) {
+        return Hashing.sha256().hashString(jwt, StandardCharsets.UTF_8).toString();
+    }
+
+    private DecodedJWT verifyTokenLocally(final String jwt) {
+        try {
+            final DecodedJWT unverifiedJwt = JWT.decode(jwt);
+            final RSAPublicKey publicKey = (RSAPublicKey) jwkProvider.get(unverifiedJwt.getKeyId()).getPublicKey();
+
+            final Verification verification = JWT.require(Algorithm.RSA256(publicKey, null));
+            if (StringUtils.hasText(jwtVerificationConfigProperties.getIssuer())) {
+                verification.withIssuer(jwtVerificationConfigProperties.getIssuer());
+            }
+            if (StringUtils.hasText(jwtVerificationConfigProperties.getAudience())) {
+                verification.withAudience(jwtVerificationConfigProperties.getAudience());
+            }
+
+            // signature and exp are always checked by the verifier
+            return verification.build().verify(unverifiedJwt);
+        }
+        catch (JwkException | JWTVerificationException e) {
+            throw new UnauthorizedException("Token is not valid", e);
+        }
+    }
+
+    private boolean isRevocationCheckDue(final String tokenHash) {
+        final Instant lastChecked = revocationChecks.getIfPresent(tokenHash);
+        return lastChecked == null || lastChecked
+                .plusSeconds(jwtVerificationConfigProperties.getRevocationCheckTtlSeconds()).isBefore(Instant.now());
+    }
+
+    private void verifyTokenWithUserService(final String jwt) {
         final String url = userServiceConfig.getDomain() + "/is-user-logged-in";
         final HttpHeaders requestHeaders = new HttpHeaders();
         requestHeaders.add("Cookie", userServiceConfig.getCookieName() + "=" + jwt);
@@ -38,7 +108,6 @@ public class JwtService {
         if (!isJwtValid.getBody()) {
             throw new UnauthorizedException("Token is not valid");
         }
-        return JWT.decode(jwt);
     }
 
     public JwtPayload getPayloadFromJwt(DecodedJWT decodedJWT) throws IllegalArgumentException {
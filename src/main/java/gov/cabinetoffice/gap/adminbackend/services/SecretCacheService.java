@@ -0,0 +1,112 @@
+package gov.cabinetoffice.gap.adminbackend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import gov.cabinetoffice.gap.adminbackend.config.SecretCacheConfigProperties;
+import gov.cabinetoffice.gap.adminbackend.exceptions.SecretValueException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps JSON secrets from AWS Secrets Manager in memory. Every cached secret is reloaded
+ * in the background on a fixed schedule, shorter than the ttl, so callers that read less
+ * often than the ttl (e.g. the Spotlight job) still get a cached value and only wait on
+ * Secrets Manager for the first read, or once refreshes have been failing for a full ttl.
+ */
+@Service
+@Log4j2
+public class SecretCacheService {
+
+    private final SecretsManagerClient secretsManagerClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final ExecutorService refreshExecutor;
+
+    private final LoadingCache<String, JsonNode> secrets;
+
+    public SecretCacheService(SecretsManagerClient secretsManagerClient, ObjectMapper objectMapper,
+            SecretCacheConfigProperties secretCacheConfigProperties) {
+        this.secretsManagerClient = secretsManagerClient;
+        this.objectMapper = objectMapper;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("secret-cache-refresh-%d").setDaemon(true).build());
+        this.secrets = CacheBuilder.newBuilder().expireAfterWrite(secretCacheConfigProperties.getTtl())
+                .build(CacheLoader.asyncReloading(CacheLoader.from(this::fetchSecret), refreshExecutor));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs on every instance rather than under a scheduler lock, as each one has its own
+     * cache. A failed reload is logged by the cache and the current value kept until it
+     * expires.
+     */
+    @Scheduled(fixedDelayString = "#{@secretCacheConfigProperties.refreshAfter.toMillis()}",
+            initialDelayString = "#{@secretCacheConfigProperties.refreshAfter.toMillis()}")
+    public void refreshSecrets() {
+        secrets.asMap().keySet().forEach(secrets::refresh);
+    }
+
+    public String getSecretValue(String secretId, String key) {
+        final JsonNode value = getSecret(secretId).get(key);
+
+        if (value == null || !value.isTextual()) {
+            log.error("Secret {} has no text value for key {}", secretId, key);
+            throw new SecretValueException();
+        }
+
+        return value.asText();
+    }
+
+    /**
+     * Drops the cached copy of a secret, e.g. after the credential it holds was rejected,
+     * so the next read fetches the current value.
+     */
+    public void invalidate(String secretId) {
+        secrets.invalidate(secretId);
+    }
+
+    private JsonNode getSecret(String secretId) {
+        try {
+            return secrets.getUnchecked(secretId);
+        }
+        catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private JsonNode fetchSecret(String secretId) {
+        log.info("Getting secret {}...", secretId);
+
+        final String secretString = secretsManagerClient
+                .getSecretValue(GetSecretValueRequest.builder().secretId(secretId).build()).secretString();
+
+        try {
+            return objectMapper.readTree(secretString);
+        }
+        catch (JsonProcessingException e) {
+            log.error("could not read json value for secret {}", secretId);
+            throw new SecretValueException();
+        }
+    }
+
+}
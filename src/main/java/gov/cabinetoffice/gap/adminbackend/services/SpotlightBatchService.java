@@ -1,12 +1,23 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import gov.cabinetoffice.gap.adminbackend.config.SpotlightConfigProperties;
+import gov.cabinetoffice.gap.adminbackend.constants.AWSConstants;
 import gov.cabinetoffice.gap.adminbackend.config.SpotlightQueueConfigProperties;
+import gov.cabinetoffice.gap.adminbackend.config.TaskExecutorConfig;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.DraftAssessmentDto;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.SendToSpotlightDto;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.SpotlightSchemeDto;
@@ -14,40 +25,46 @@ import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.response.DraftAssessmen
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.response.SpotlightResponseDto;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlight.response.SpotlightResponseResultsDto;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.GetSpotlightBatchErrorCountDTO;
+import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.SpotlightErrorCountsView;
+import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightBatch;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightBatchStatus;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightSubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.JsonParseException;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
-import gov.cabinetoffice.gap.adminbackend.exceptions.SecretValueException;
 import gov.cabinetoffice.gap.adminbackend.mappers.MandatoryQuestionsMapper;
 import gov.cabinetoffice.gap.adminbackend.repositories.SpotlightBatchRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.SpotlightSubmissionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.jetbrains.annotations.NotNull;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
-import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -66,11 +83,21 @@ public class SpotlightBatchService {
 
     private static final String RESPONSE_MESSAGE_409_LENGTH = "data value too large";
 
+    // no expiry on purpose: every read checks the entry against the scheme's current revision,
+    // so it can't be served stale, and the size limit is what bounds the memory it takes
+    private final Cache<Integer, ErrorCounts> spotlightErrorCountCache = CacheBuilder.newBuilder()
+            .maximumSize(10_000).build();
+
+    // created on first use so the configured rate is available; shared by every dispatch
+    // thread so concurrent batches and their retries stay within Spotlight's quota
+    private final Supplier<RateLimiter> spotlightRateLimiter = Suppliers
+            .memoize(() -> RateLimiter.create(this.spotlightConfig.getRequestsPerSecond()));
+
     private final SpotlightBatchRepository spotlightBatchRepository;
 
     private final MandatoryQuestionsMapper mandatoryQuestionsMapper;
 
-    private final SecretsManagerClient secretsManagerClient;
+    private final SecretCacheService secretCacheService;
 
     private final RestTemplate restTemplate;
 
@@ -88,12 +115,15 @@ public class SpotlightBatchService {
 
     private final SnsService snsService;
 
+    @Qualifier(TaskExecutorConfig.SPOTLIGHT_REQUEUE_EXECUTOR)
+    private final Executor requeueExecutor;
+
     public boolean existsByStatusAndMaxBatchSize(SpotlightBatchStatus status, int maxSize) {
         return spotlightBatchRepository.existsByStatusAndSpotlightSubmissionsSizeLessThan(status, maxSize);
     }
 
     public SpotlightBatch getMostRecentSpotlightBatchWithStatus(SpotlightBatchStatus status, int maxSize) {
-        return spotlightBatchRepository.findByStatusAndSpotlightSubmissionsSizeLessThan(status, maxSize).orElseThrow(
+        return spotlightBatchRepository.findOpenBatch(status.toString(), maxSize).orElseThrow(
                 () -> new NotFoundException("A spotlight batch with status " + status + " could not be found"));
     }
 
@@ -106,36 +136,41 @@ public class SpotlightBatchService {
         return spotlightBatchRepository.save(SpotlightBatch.builder().version(1).lastUpdated(Instant.now()).build());
     }
 
-    public SpotlightBatch addSpotlightSubmissionToSpotlightBatch(SpotlightSubmission spotlightSubmission,
+    /**
+     * Adds the submission to the batch with a single insert into the join table. Adding a
+     * submission that's already in the batch is a no-op.
+     */
+    public UUID addSpotlightSubmissionToSpotlightBatch(SpotlightSubmission spotlightSubmission,
             UUID spotlightBatchId) {
-        final SpotlightBatch spotlightBatch = getSpotlightBatch(spotlightBatchId);
-        final List<SpotlightSubmission> existingSpotlightSubmissions = spotlightBatch.getSpotlightSubmissions();
+        if (!spotlightBatchRepository.existsById(spotlightBatchId)) {
+            throw new NotFoundException("A spotlight batch with id " + spotlightBatchId + " could not be found");
+        }
 
-        // Check if submission is already in the batch (idempotent operation)
-        boolean alreadyExists = existingSpotlightSubmissions != null
-                && existingSpotlightSubmissions.stream()
-                        .anyMatch(s -> s.getId().equals(spotlightSubmission.getId()));
+        final int added = spotlightBatchRepository.addSpotlightSubmission(spotlightBatchId.toString(),
+                spotlightSubmission.getId().toString());
 
-        if (alreadyExists) {
-            log.info("Submission {} is already in batch {}. Returning existing batch (idempotent).",
-                    spotlightSubmission.getId(), spotlightBatchId);
-            return spotlightBatch;
+        if (added == 0) {
+            log.info("Submission {} is already in batch {} (idempotent).", spotlightSubmission.getId(),
+                    spotlightBatchId);
         }
 
-        final List<SpotlightBatch> existingSpotlightBatches = spotlightSubmission.getBatches();
-
-        existingSpotlightSubmissions.add(spotlightSubmission);
-        existingSpotlightBatches.add(spotlightBatch);
+        return spotlightBatchId;
+    }
 
-        spotlightBatch.setSpotlightSubmissions(existingSpotlightSubmissions);
-        spotlightSubmission.setBatches(existingSpotlightBatches);
+    /**
+     * Adds the submission to the most recent queued batch with room for it, creating a new
+     * batch if there isn't one. Callers are serialised on a database lock so concurrent
+     * requests fill the same batch rather than racing to create their own.
+     */
+    @Transactional
+    public UUID addSpotlightSubmissionToOpenSpotlightBatch(SpotlightSubmission spotlightSubmission, int maxSize) {
+        spotlightBatchRepository.lockOpenBatch();
 
-        return spotlightBatchRepository.save(spotlightBatch);
-    }
+        final SpotlightBatch spotlightBatch = spotlightBatchRepository
+                .findOpenBatch(SpotlightBatchStatus.QUEUED.toString(), maxSize)
+                .orElseGet(this::createSpotlightBatch);
 
-    private SpotlightBatch getSpotlightBatch(UUID spotlightBatchId) {
-        return spotlightBatchRepository.findById(spotlightBatchId).orElseThrow(
-                () -> new NotFoundException("A spotlight batch with id " + spotlightBatchId + " could not be found"));
+        return addSpotlightSubmissionToSpotlightBatch(spotlightSubmission, spotlightBatch.getId());
     }
 
     public SpotlightBatch getSpotlightBatchWithQueuedStatusByMandatoryQuestionGapId(String gapId) {
@@ -157,7 +192,7 @@ public class SpotlightBatchService {
     }
 
     public List<SpotlightBatch> getSpotlightBatchesByStatus(SpotlightBatchStatus status) {
-        return spotlightBatchRepository.findByStatus(status).orElse(new ArrayList<>());
+        return spotlightBatchRepository.findWithSubmissionsByStatus(status);
     }
 
     public List<SendToSpotlightDto> generateSendToSpotlightDtosList(SpotlightBatchStatus status) {
@@ -215,15 +250,13 @@ public class SpotlightBatchService {
      * Adds spotlight scheme DTOs to the list using a pre-filtered list of submissions.
      * This prevents duplicate submissions being sent to Spotlight.
      */
-    private void addSpotlightSchemeDtoToListFiltered(SpotlightBatch spotlightBatch, 
+    private void addSpotlightSchemeDtoToListFiltered(SpotlightBatch spotlightBatch,
             List<SpotlightSchemeDto> schemes, List<SpotlightSubmission> submissionsToProcess) {
-        
-        final List<String> uniqueSchemeIds = getUniqueSchemeIds(submissionsToProcess);
-        log.info("uniqueSchemeIds for batch {}: {}", spotlightBatch.getId(), uniqueSchemeIds);
+        final List<SpotlightSchemeDto> schemeDtos = generateSchemeDtos(submissionsToProcess);
+        log.info("uniqueSchemeIds for batch {}: {}", spotlightBatch.getId(),
+                schemeDtos.stream().map(SpotlightSchemeDto::getGgisSchemeId).toList());
 
-        uniqueSchemeIds.stream()
-                .map(uniqueSchemeId -> generateSchemeDto(uniqueSchemeId, submissionsToProcess))
-                .forEach(schemes::add);
+        schemes.addAll(schemeDtos);
     }
 
     public List<String> getUniqueSchemeIds(List<SpotlightSubmission> spotlightSubmissions) {
@@ -233,60 +266,74 @@ public class SpotlightBatchService {
 
     }
 
-    private List<SpotlightSubmission> getSpotlightSubmissionByGGisIdentifier(String uniqueSchemeId,
-            List<SpotlightSubmission> spotlightSubmissions) {
-        return spotlightSubmissions.stream().filter(submission -> submission.getMandatoryQuestions().getSchemeEntity()
-                .getGgisIdentifier().equals(uniqueSchemeId)).toList();
-    }
-
     protected void addSpotlightSchemeDtoToList(SpotlightBatch spotlightBatch, List<SpotlightSchemeDto> schemes) {
+        final List<SpotlightSchemeDto> schemeDtos = generateSchemeDtos(spotlightBatch.getSpotlightSubmissions());
+        log.info("uniqueSchemeIds: {}", schemeDtos.stream().map(SpotlightSchemeDto::getGgisSchemeId).toList());
 
-        final List<SpotlightSubmission> spotlightSubmissions = spotlightBatch.getSpotlightSubmissions();
-
-        // get all the schemeId present in the submissions
-        final List<String> uniqueSchemeIds = getUniqueSchemeIds(spotlightSubmissions);
-
-        log.info("uniqueSchemeIds: {}", uniqueSchemeIds);
-
-        // for each scheme ggis id build a spotlightSchemeDto
-        uniqueSchemeIds.stream().map(uniqueSchemeId -> generateSchemeDto(uniqueSchemeId, spotlightSubmissions))
-                .forEach(schemes::add);
+        schemes.addAll(schemeDtos);
     }
 
-    private SpotlightSchemeDto generateSchemeDto(String schemeId, List<SpotlightSubmission> spotlightSubmissions) {
-        final List<DraftAssessmentDto> draftAssessments = generateDraftAssessmentsFromMandatoryQuestions(schemeId,
-                spotlightSubmissions);
-
-        return SpotlightSchemeDto.builder().ggisSchemeId(schemeId).draftAssessments(draftAssessments).build();
-    }
-
-    @NotNull
-    private List<DraftAssessmentDto> generateDraftAssessmentsFromMandatoryQuestions(String uniqueSchemeId,
-            List<SpotlightSubmission> spotlightSubmissions) {
-
-        final List<SpotlightSubmission> filteredSubmissions = getSpotlightSubmissionByGGisIdentifier(uniqueSchemeId,
-                spotlightSubmissions);
+    /**
+     * Groups the submissions' draft assessments by scheme GGIS id in a single pass,
+     * keeping schemes in the order they're first seen.
+     */
+    private List<SpotlightSchemeDto> generateSchemeDtos(List<SpotlightSubmission> spotlightSubmissions) {
+        final Map<String, List<DraftAssessmentDto>> draftAssessmentsBySchemeId = new LinkedHashMap<>();
+
+        for (SpotlightSubmission submission : spotlightSubmissions) {
+            final GrantMandatoryQuestions mandatoryQuestions = submission.getMandatoryQuestions();
+            draftAssessmentsBySchemeId
+                    .computeIfAbsent(mandatoryQuestions.getSchemeEntity().getGgisIdentifier(),
+                            schemeId -> new ArrayList<>())
+                    .add(mandatoryQuestionsMapper.mandatoryQuestionsToDraftAssessmentDto(mandatoryQuestions));
+        }
 
-        return filteredSubmissions.stream().map(submission -> mandatoryQuestionsMapper
-                .mandatoryQuestionsToDraftAssessmentDto(submission.getMandatoryQuestions())).toList();
+        return draftAssessmentsBySchemeId.entrySet().stream()
+                .map(entry -> SpotlightSchemeDto.builder().ggisSchemeId(entry.getKey())
+                        .draftAssessments(entry.getValue()).build())
+                .toList();
     }
 
     public void sendQueuedBatchesToSpotlightAndProcessThem() {
         final List<SendToSpotlightDto> spotlightData = this
                 .generateSendToSpotlightDtosList(SpotlightBatchStatus.QUEUED);
 
-        final String accessToken = getAccessTokenFromSecretsManager();
+        if (spotlightData.isEmpty()) {
+            log.info("No queued batches to send to Spotlight");
+            return;
+        }
 
-        for (SendToSpotlightDto spotlightBatch : spotlightData) {
-            try {
-                final SpotlightResponseResultsDto spotlightResponses = sendBatchToSpotlight(spotlightBatch,
-                        accessToken);
-                processSpotlightResponse(spotlightBatch, spotlightResponses);
-            }
-            catch (Exception e) {
-                log.error("An exception occurred while sending batches to spotlight", e);
+        final String accessToken = getAccessToken();
+
+        final ExecutorService dispatchExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(spotlightConfig.getMaxConcurrentBatches(), spotlightData.size())),
+                new ThreadFactoryBuilder().setNameFormat("spotlight-dispatch-%d").setDaemon(true).build());
+
+        try {
+            // only the calls to Spotlight run on the dispatch threads. The responses are processed
+            // back on this thread, which keeps the status writes in the caller's persistence context
+            final List<CompletableFuture<SpotlightResponseResultsDto>> spotlightResponses = spotlightData.stream()
+                    .map(spotlightBatch -> CompletableFuture
+                            .supplyAsync(() -> sendBatchToSpotlight(spotlightBatch, accessToken), dispatchExecutor))
+                    .toList();
+
+            for (int i = 0; i < spotlightData.size(); i++) {
+                processSentBatch(spotlightData.get(i), spotlightResponses.get(i));
             }
         }
+        finally {
+            dispatchExecutor.shutdown();
+        }
+    }
+
+    private void processSentBatch(SendToSpotlightDto spotlightBatch,
+            CompletableFuture<SpotlightResponseResultsDto> spotlightResponse) {
+        try {
+            processSpotlightResponse(spotlightBatch, spotlightResponse.join());
+        }
+        catch (Exception e) {
+            log.error("An exception occurred while sending batches to spotlight", e);
+        }
     }
 
     public void processSpotlightResponse(SendToSpotlightDto spotlightBatchDto,
@@ -303,9 +350,7 @@ public class SpotlightBatchService {
         }
         else {
 
-            for (SpotlightResponseDto spotlightResponse : spotlightResponses.getResults()) {
-                processSpotlightResults(spotlightResponse, errorCount);
-            }
+            processSpotlightResults(spotlightResponses.getResults(), errorCount);
 
             if (errorCount.get() == 0) {
                 updateSpotlightBatchStatus(spotlightBatchDto, SpotlightBatchStatus.SUCCESS);
@@ -316,21 +361,60 @@ public class SpotlightBatchService {
         }
     }
 
-    private void processSpotlightResults(SpotlightResponseDto spotlightResponse, AtomicInteger errorCount) {
-        for (DraftAssessmentResponseDto draftAssessmentResponse : spotlightResponse.getDraftAssessmentsResults()) {
-            SpotlightSubmission spotlightSubmission = getSpotlightSubmissionByApplicationNumber(
-                    draftAssessmentResponse.getApplicationNumber());
+    /**
+     * Loads every spotlight submission named in the response with one query, works out
+     * their new statuses in memory and then writes them with one update per status.
+     */
+    private void processSpotlightResults(List<SpotlightResponseDto> spotlightResponses, AtomicInteger errorCount) {
+        final List<DraftAssessmentResponseDto> draftAssessmentResponses = spotlightResponses.stream()
+                .flatMap(spotlightResponse -> spotlightResponse.getDraftAssessmentsResults().stream()).toList();
+
+        final Map<String, SpotlightSubmission> spotlightSubmissionsByApplicationNumber = spotlightSubmissionService
+                .getSpotlightSubmissionsByMandatoryQuestionGapIds(draftAssessmentResponses.stream()
+                        .map(DraftAssessmentResponseDto::getApplicationNumber).collect(Collectors.toSet()));
+
+        final Map<String, Set<UUID>> spotlightSubmissionIdsByStatus = new LinkedHashMap<>();
+        final List<SpotlightSubmission> spotlightSubmissionsToRequeue = new ArrayList<>();
+
+        for (DraftAssessmentResponseDto draftAssessmentResponse : draftAssessmentResponses) {
+            final SpotlightSubmission spotlightSubmission = spotlightSubmissionsByApplicationNumber
+                    .get(draftAssessmentResponse.getApplicationNumber());
+
+            if (spotlightSubmission == null) {
+                log.error("A spotlight submission with mandatory question gapId {} could not be found",
+                        draftAssessmentResponse.getApplicationNumber());
+                errorCount.incrementAndGet();
+                continue;
+            }
 
             if (isSuccess(draftAssessmentResponse)) {
                 spotlightSubmission.setStatus(SpotlightSubmissionStatus.SENT.toString());
             }
             else {
-                handleError(spotlightSubmission, draftAssessmentResponse);
+                handleError(spotlightSubmission, draftAssessmentResponse, spotlightSubmissionsToRequeue);
                 errorCount.incrementAndGet();
             }
 
-            updateSpotlightSubmission(spotlightSubmission);
+            spotlightSubmissionIdsByStatus.computeIfAbsent(spotlightSubmission.getStatus(), status -> new HashSet<>())
+                    .add(spotlightSubmission.getId());
+        }
+
+        if (!spotlightSubmissionsToRequeue.isEmpty()) {
+            final Set<UUID> failedRequeues = requeueSpotlightSubmissions(spotlightSubmissionsToRequeue);
+
+            if (!failedRequeues.isEmpty()) {
+                spotlightSubmissionIdsByStatus.get(SpotlightSubmissionStatus.SEND_ERROR.toString())
+                        .removeAll(failedRequeues);
+                spotlightSubmissionIdsByStatus.put(SpotlightSubmissionStatus.REQUEUE_ERROR.toString(), failedRequeues);
+            }
         }
+
+        final Instant sendAttempt = Instant.now();
+        spotlightSubmissionIdsByStatus.forEach((status, ids) -> {
+            if (!ids.isEmpty()) {
+                spotlightSubmissionRepository.updateStatusAndLastSendAttemptByIdIn(ids, status, sendAttempt);
+            }
+        });
     }
 
     private boolean isSuccess(DraftAssessmentResponseDto draftAssessmentResponseDto) {
@@ -338,13 +422,14 @@ public class SpotlightBatchService {
     }
 
     private void handleError(SpotlightSubmission spotlightSubmission,
-            DraftAssessmentResponseDto draftAssessmentResponse) {
+            DraftAssessmentResponseDto draftAssessmentResponse,
+            List<SpotlightSubmission> spotlightSubmissionsToRequeue) {
         if (draftAssessmentResponse.getMessage() != null) {
             handleErrorMessage(spotlightSubmission, draftAssessmentResponse.getMessage());
         }
         else {
             spotlightSubmission.setStatus(SpotlightSubmissionStatus.SEND_ERROR.toString());
-            sendMessageToQueue(spotlightSubmission);
+            spotlightSubmissionsToRequeue.add(spotlightSubmission);
         }
     }
 
@@ -369,25 +454,10 @@ public class SpotlightBatchService {
         }
     }
 
-    private void updateSpotlightSubmission(SpotlightSubmission spotlightSubmission) {
-        spotlightSubmission.setLastUpdated(Instant.now());
-        spotlightSubmission.setLastSendAttempt(Instant.now());
-        spotlightSubmissionRepository.save(spotlightSubmission);
-    }
-
-    private SpotlightSubmission getSpotlightSubmissionByApplicationNumber(String applicationNumber) {
-        return spotlightSubmissionService.getSpotlightSubmissionByMandatoryQuestionGapId(applicationNumber);
-
-    }
-
     public SpotlightResponseResultsDto sendBatchToSpotlight(SendToSpotlightDto spotlightBatch, String accessToken) {
-        final HttpHeaders requestHeaders = new HttpHeaders();
-        requestHeaders.add("Authorization", "Bearer " + accessToken);
-        requestHeaders.add("Content-Type", "application/json");
-
         final String spotlightBatchAsJsonString = convertBatchToJsonString(spotlightBatch);
 
-        final HttpEntity<String> requestEntity = new HttpEntity<>(spotlightBatchAsJsonString, requestHeaders);
+        HttpEntity<String> requestEntity = buildRequestEntity(spotlightBatchAsJsonString, accessToken);
 
         // Construct the endpoint URL - avoid duplicating the path if already in config
         String baseUrl = spotlightConfig.getSpotlightUrl();
@@ -395,48 +465,99 @@ public class SpotlightBatchService {
                 ? baseUrl
                 : baseUrl + "/services/apexrest/DraftAssessments";
 
-        SpotlightResponseResultsDto list = SpotlightResponseResultsDto.builder().build();
+        log.info("Spotlight request endpoint: {}", draftAssessmentsEndpoint);
+        log.info("Spotlight request body: {}", spotlightBatchAsJsonString);
 
-        try {
-            log.info("Spotlight request endpoint: {}", draftAssessmentsEndpoint);
-            log.info("Spotlight request body: {}", requestEntity.toString());
+        boolean accessTokenRefreshed = false;
 
-            final ResponseEntity<String> response = restTemplate.postForEntity(draftAssessmentsEndpoint, requestEntity,
-                    String.class);
+        for (int attempt = 0;; attempt++) {
+            spotlightRateLimiter.get().acquire();
 
-            list = mapToDto(response.getBody());
-        }
-        catch (HttpClientErrorException e) { // 4xx codes
+            try {
+                final ResponseEntity<String> response = restTemplate.postForEntity(draftAssessmentsEndpoint,
+                        requestEntity, String.class);
 
-            if (e.getStatusCode().equals(HttpStatus.UNAUTHORIZED)) {
-                log.info("Sending Spotlight OAuth disconnected support email using SNS for status code: "
-                        + e.getStatusCode());
-                final String snsResponse = snsService.spotlightOAuthDisconnected();
-                log.info(snsResponse);
+                return mapToDto(response.getBody());
             }
-            // if 406 or 409, map the response as we would need to handle every
-            // spotlightSubmission status
-            if (e.getStatusCode().equals(HttpStatus.NOT_ACCEPTABLE) || e.getStatusCode().equals(HttpStatus.CONFLICT)) {
-                list = mapToDto(e.getResponseBodyAsString());
+            catch (HttpClientErrorException e) { // 4xx codes
+                if (e.getStatusCode().equals(HttpStatus.UNAUTHORIZED) && !accessTokenRefreshed) {
+                    // the cached token may have been rotated since it was read, so try once
+                    // more with the current one before treating OAuth as disconnected
+                    accessTokenRefreshed = true;
+                    final String refreshedAccessToken = refreshAccessToken();
+
+                    if (!refreshedAccessToken.equals(accessToken)) {
+                        log.info("Spotlight rejected the cached access token, retrying with a refreshed one");
+                        requestEntity = buildRequestEntity(spotlightBatchAsJsonString, refreshedAccessToken);
+                        continue;
+                    }
+                }
+
+                return handleClientError(e, draftAssessmentsEndpoint);
             }
+            catch (HttpServerErrorException e) { // 5xx codes
+                if (attempt < spotlightConfig.getMaxRetries()) {
+                    log.warn("Hitting {} returned status code {}, retrying (attempt {} of {})",
+                            draftAssessmentsEndpoint, e.getStatusCode(), attempt + 1, spotlightConfig.getMaxRetries());
+
+                    if (waitBeforeRetry(attempt)) {
+                        continue;
+                    }
+                }
 
-            log.error("Hitting {} returned status code {} with body {}", draftAssessmentsEndpoint, e.getStatusCode(),
-                    e.getResponseBodyAsString());
-        }
-        catch (HttpServerErrorException e) {
-            if (e.getStatusCode().is5xxServerError()) { // 5xx codes
                 log.info("Sending spotlight API error support email using SNS for status code: " + e.getStatusCode());
                 final String snsResponse = snsService.spotlightApiError();
                 log.info(snsResponse);
 
                 log.error("Hitting {} returned status code {} with body {}", draftAssessmentsEndpoint,
                         e.getStatusCode(), e.getResponseBodyAsString());
+
+                return SpotlightResponseResultsDto.builder().build();
             }
         }
+    }
+
+    private SpotlightResponseResultsDto handleClientError(HttpClientErrorException e,
+            String draftAssessmentsEndpoint) {
+        SpotlightResponseResultsDto list = SpotlightResponseResultsDto.builder().build();
+
+        if (e.getStatusCode().equals(HttpStatus.UNAUTHORIZED)) {
+            log.info("Sending Spotlight OAuth disconnected support email using SNS for status code: "
+                    + e.getStatusCode());
+            final String snsResponse = snsService.spotlightOAuthDisconnected();
+            log.info(snsResponse);
+        }
+        // if 406 or 409, map the response as we would need to handle every
+        // spotlightSubmission status
+        if (e.getStatusCode().equals(HttpStatus.NOT_ACCEPTABLE) || e.getStatusCode().equals(HttpStatus.CONFLICT)) {
+            list = mapToDto(e.getResponseBodyAsString());
+        }
+
+        log.error("Hitting {} returned status code {} with body {}", draftAssessmentsEndpoint, e.getStatusCode(),
+                e.getResponseBodyAsString());
 
         return list;
     }
 
+    /**
+     * Sleeps for a random time up to an exponentially growing cap (full jitter), so
+     * batches that failed together during an outage don't all retry at the same moment.
+     * Returns false if the thread was interrupted and the retry should be abandoned.
+     */
+    private boolean waitBeforeRetry(int attempt) {
+        final long capMillis = Math.min(spotlightConfig.getRetryMaxDelay().toMillis(),
+                spotlightConfig.getRetryBaseDelay().toMillis() << Math.min(attempt, 20));
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(capMillis + 1));
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     public void updateSpotlightBatchStatus(SendToSpotlightDto spotlightBatchDto, SpotlightBatchStatus status) {
         final SpotlightBatch spotlightBatch = getSpotlightBatchWithQueuedStatusByMandatoryQuestionGapId(
                 spotlightBatchDto.getSchemes().get(0).getDraftAssessments().get(0).getApplicationNumber());
@@ -470,21 +591,64 @@ public class SpotlightBatchService {
         final SpotlightBatch spotlightBatch = getSpotlightBatchWithQueuedStatusByMandatoryQuestionGapId(
                 spotlightBatchDto.getSchemes().get(0).getDraftAssessments().get(0).getApplicationNumber());
 
-        final List<SpotlightSubmission> spotlightSubmissions = spotlightBatch.getSpotlightSubmissions();
+        final Set<UUID> failedRequeues = requeueSpotlightSubmissions(spotlightBatch.getSpotlightSubmissions());
 
-        spotlightSubmissions.forEach(this::sendMessageToQueue);
+        if (!failedRequeues.isEmpty()) {
+            spotlightSubmissionRepository.updateStatusAndLastSendAttemptByIdIn(failedRequeues,
+                    SpotlightSubmissionStatus.REQUEUE_ERROR.toString(), Instant.now());
+        }
     }
 
-    public void sendMessageToQueue(SpotlightSubmission spotlightSubmission) {
-        final UUID messageId = UUID.randomUUID();
+    /**
+     * Puts the submissions back on the Spotlight queue using SendMessageBatch calls of 10,
+     * with the calls made concurrently. Each message keeps its own message group, as
+     * before. Returns the ids of the submissions SQS didn't accept, which callers mark as
+     * REQUEUE_ERROR so they can be told apart from submissions waiting on the queue.
+     */
+    public Set<UUID> requeueSpotlightSubmissions(Collection<SpotlightSubmission> spotlightSubmissions) {
+        final List<UUID> spotlightSubmissionIds = spotlightSubmissions.stream().map(SpotlightSubmission::getId)
+                .distinct().toList();
 
-        final SendMessageRequest messageRequest = new SendMessageRequest()
-                .withQueueUrl(spotlightQueueProperties.getQueueUrl()).withMessageGroupId(messageId.toString())
-                .withMessageBody(spotlightSubmission.getId().toString())
-                .withMessageDeduplicationId(messageId.toString());
+        final List<CompletableFuture<Set<UUID>>> sends = Lists
+                .partition(spotlightSubmissionIds, AWSConstants.MAX_ALLOWED_SQS_FIFO_BATCH_SIZE).stream()
+                .map(ids -> CompletableFuture.supplyAsync(() -> sendMessageBatchToQueue(ids), requeueExecutor))
+                .toList();
+
+        final Set<UUID> failedSpotlightSubmissionIds = sends.stream().map(CompletableFuture::join)
+                .flatMap(Set::stream).collect(Collectors.toSet());
+
+        if (failedSpotlightSubmissionIds.isEmpty()) {
+            log.info("Re-queued {} spotlight submissions", spotlightSubmissionIds.size());
+        }
+        else {
+            log.error("Failed to re-queue {} of {} spotlight submissions: {}", failedSpotlightSubmissionIds.size(),
+                    spotlightSubmissionIds.size(), failedSpotlightSubmissionIds);
+        }
 
-        amazonSqs.sendMessage(messageRequest);
-        log.info("Message sent to queue for spotlight_submission {}", spotlightSubmission.getId().toString());
+        return failedSpotlightSubmissionIds;
+    }
+
+    private Set<UUID> sendMessageBatchToQueue(List<UUID> spotlightSubmissionIds) {
+        final List<SendMessageBatchRequestEntry> entries = spotlightSubmissionIds.stream().map(id -> {
+            final String messageId = UUID.randomUUID().toString();
+            return new SendMessageBatchRequestEntry().withId(id.toString()).withMessageBody(id.toString())
+                    .withMessageGroupId(messageId).withMessageDeduplicationId(messageId);
+        }).toList();
+
+        try {
+            final SendMessageBatchResult result = amazonSqs.sendMessageBatch(
+                    new SendMessageBatchRequest(spotlightQueueProperties.getQueueUrl()).withEntries(entries));
+
+            return result.getFailed().stream().map(failure -> {
+                log.error("SQS rejected spotlight_submission {}: {} {}", failure.getId(), failure.getCode(),
+                        failure.getMessage());
+                return UUID.fromString(failure.getId());
+            }).collect(Collectors.toSet());
+        }
+        catch (AmazonClientException e) {
+            log.error("Could not send spotlight submissions " + spotlightSubmissionIds + " to the queue", e);
+            return new HashSet<>(spotlightSubmissionIds);
+        }
     }
 
     private SpotlightResponseResultsDto mapToDto(String responseBodyAsString) {
@@ -509,49 +673,30 @@ public class SpotlightBatchService {
         }
     }
 
-    private String getAccessTokenFromSecretsManager() {
-        log.info("Getting secret {}...", spotlightConfig.getSecretName());
-
-        final GetSecretValueRequest valueRequest = GetSecretValueRequest.builder()
-                .secretId(spotlightConfig.getSecretName()).build();
-
-        log.info("Request to AWS secrets manager: {}", valueRequest.toString());
-
-        final GetSecretValueResponse valueResponse = secretsManagerClient.getSecretValue(valueRequest);
-
-        log.info("Response from AWS secrets manager: {}", valueResponse.toString());
+    private HttpEntity<String> buildRequestEntity(String spotlightBatchAsJsonString, String accessToken) {
+        final HttpHeaders requestHeaders = new HttpHeaders();
+        requestHeaders.add("Authorization", "Bearer " + accessToken);
+        requestHeaders.add("Content-Type", "application/json");
 
-        return getSecretValue(ACCESS_TOKEN, valueResponse.secretString());
+        return new HttpEntity<>(spotlightBatchAsJsonString, requestHeaders);
     }
 
-    private String getSecretValue(String objectKey, String secretString) {
-        try {
-            final JsonNode apiNode = jacksonObjectMapper.readTree(secretString).get(objectKey);
+    private String getAccessToken() {
+        return secretCacheService.getSecretValue(spotlightConfig.getSecretName(), ACCESS_TOKEN);
+    }
 
-            return jacksonObjectMapper.readValue(apiNode.toString(), String.class);
-        }
-        catch (JsonProcessingException e) {
-            log.error("could not read json value ", e);
-            throw new SecretValueException();
-        }
+    private String refreshAccessToken() {
+        secretCacheService.invalidate(spotlightConfig.getSecretName());
+        return getAccessToken();
     }
 
     private GetSpotlightBatchErrorCountDTO orderSpotlightErrorStatusesByPriority(
-            List<SpotlightSubmission> filteredSubmissions, boolean hasValidationError) {
-        int apiErrorCount = 0;
-        int ggisErrorCount = 0;
-        int validationErrorCount = 0;
-
-        for (SpotlightSubmission submission : filteredSubmissions) {
-            switch (SpotlightSubmissionStatus.valueOf(submission.getStatus())) {
-                case SEND_ERROR -> apiErrorCount++;
-                case GGIS_ERROR -> ggisErrorCount++;
-                case VALIDATION_ERROR -> validationErrorCount++;
-                default -> {
-                    // do nothing as no errors found
-                }
-            }
-        }
+            SpotlightErrorCountsView errorCounts) {
+        final int apiErrorCount = errorCounts.getApiErrorCount();
+        final int ggisErrorCount = errorCounts.getGgisErrorCount();
+        final int validationErrorCount = errorCounts.getValidationErrorCount();
+        final boolean hasValidationError = Boolean.TRUE.equals(errorCounts.getValidationErrorPresent());
+
         if (apiErrorCount == 0 && ggisErrorCount == 0 && validationErrorCount == 0) {
             return GetSpotlightBatchErrorCountDTO.builder().errorCount(0).errorStatus("OK").errorFound(false)
                     .isValidationErrorPresent(hasValidationError).build();
@@ -579,44 +724,28 @@ public class SpotlightBatchService {
                 .isValidationErrorPresent(hasValidationError).build();
     }
 
+    /**
+     * Counts come from one grouped query, as the dashboard asks for them on every scheme
+     * page view. They're cached against the scheme's revision, which is two indexed MAX
+     * lookups and moves on whenever a batch is sent or one of the scheme's submissions
+     * changes, so every instance sees a Spotlight run as soon as it happens.
+     */
     public GetSpotlightBatchErrorCountDTO getSpotlightBatchErrorCount(Integer schemeId) {
-        final List<SpotlightSubmission> filteredSubmissions = getSpotlightBatchSubmissionsBySchemeId(schemeId);
-        final boolean hasValidationError = spotlightSubmissionService.existBySchemeIdAndStatus(schemeId,
-                SpotlightSubmissionStatus.VALIDATION_ERROR);
+        final Long revision = spotlightBatchRepository.findErrorCountsRevisionBySchemeId(schemeId);
 
-        if (filteredSubmissions.isEmpty()) {
-
-            log.info("No spotlight_submission for scheme id {} found in the latest batch", schemeId);
-
-            return GetSpotlightBatchErrorCountDTO.builder().errorCount(0).errorStatus("OK").errorFound(false)
-                    .isValidationErrorPresent(hasValidationError).build();
+        final ErrorCounts cached = spotlightErrorCountCache.getIfPresent(schemeId);
+        if (cached != null && Objects.equals(cached.revision(), revision)) {
+            return cached.counts();
         }
 
-        log.info("Found {} spotlight_submission for scheme id {},  in the latest batch", filteredSubmissions.size(),
-                schemeId);
-
-        return this.orderSpotlightErrorStatusesByPriority(filteredSubmissions, hasValidationError);
+        // the counts are read after the revision, so they're never older than the revision they're kept under
+        final GetSpotlightBatchErrorCountDTO counts = this.orderSpotlightErrorStatusesByPriority(
+                spotlightBatchRepository.countErrorsInLatestSentBatchBySchemeId(schemeId));
+        spotlightErrorCountCache.put(schemeId, new ErrorCounts(revision, counts));
+        return counts;
     }
 
-    @NotNull
-    private List<SpotlightSubmission> getSpotlightBatchSubmissionsBySchemeId(Integer schemeId) {
-        final Pageable pageable = PageRequest.of(0, 1);
-        final List<SpotlightBatch> spotlightBatches = spotlightBatchRepository
-                .findByLastSendAttemptNotNullOrderByLastSendAttemptDesc(pageable);
-
-        if (!spotlightBatches.isEmpty()) {
-
-            final SpotlightBatch spotlightBatch = spotlightBatches.get(0);
-
-            log.info("Last sent spotlight batch has id {}", spotlightBatch.getId());
-
-            return spotlightBatch.getSpotlightSubmissions().stream()
-                    .filter(s -> s.getGrantScheme().getId().equals(schemeId)).toList();
-        }
-
-        log.info("No spotlight batch found in the db");
-        return List.of();
-
+    private record ErrorCounts(Long revision, GetSpotlightBatchErrorCountDTO counts) {
     }
 
 }
@@ -1,25 +1,29 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
-import com.google.common.collect.Lists;
 import gov.cabinetoffice.gap.adminbackend.constants.SpotlightHeaders;
 import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
-import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
+import gov.cabinetoffice.gap.adminbackend.dtos.spotlightSubmissions.SpotlightDownloadRowView;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightSubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.repositories.SpotlightSubmissionRepository;
+import gov.cabinetoffice.gap.adminbackend.utils.KeysetPages;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrgType.*;
 
@@ -28,6 +32,15 @@ import static gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrg
 @RequiredArgsConstructor
 public class SpotlightSubmissionService {
 
+    private static final int DOWNLOAD_ROWS_PER_FILE = 999;
+
+    private static final int DOWNLOAD_PAGE_SIZE = 500;
+
+    private static final List<String> COMPANIES_AND_CHARITIES = Stream
+            .of(LIMITED_COMPANY, CHARITY, REGISTERED_CHARITY, UNREGISTERED_CHARITY).map(Enum::name).toList();
+
+    private static final List<String> NON_LIMITED_COMPANIES = List.of(NON_LIMITED_COMPANY.name());
+
     // make sure to don't use SpotlighBatchService here, otherwise you will get a circular
     // dependency
     private final SpotlightSubmissionRepository spotlightSubmissionRepository;
@@ -74,63 +87,71 @@ public class SpotlightSubmissionService {
                         "A spotlight submission with mandatory question gapId " + gapId + " could not be found"));
     }
 
+    /**
+     * Loads the spotlight submissions for several mandatory question gap ids in one query,
+     * keyed by gap id. Gap ids with no spotlight submission are left out of the map.
+     */
+    public Map<String, SpotlightSubmission> getSpotlightSubmissionsByMandatoryQuestionGapIds(
+            Collection<String> gapIds) {
+        if (gapIds.isEmpty()) {
+            return Map.of();
+        }
+
+        return spotlightSubmissionRepository.findByMandatoryQuestions_GapIdIn(gapIds).stream()
+                .collect(Collectors.toMap(submission -> submission.getMandatoryQuestions().getGapId(),
+                        Function.identity(), (first, second) -> first));
+    }
+
     public boolean doesSchemeHaveSpotlightSubmission(Integer schemeId) {
         return spotlightSubmissionRepository.existsByGrantScheme_Id(schemeId);
     }
 
-    public ByteArrayOutputStream generateDownloadFile(SchemeDTO scheme, boolean onlyValidationErrors) {
-        List<SpotlightSubmission> spotlightSubmissions = spotlightSubmissionRepository
-                .findByGrantScheme_Id(scheme.getSchemeId());
+    /**
+     * Checked before the download starts streaming, while an error response can still be
+     * sent, so that an admin never gets a file with applicants silently left out.
+     */
+    public void verifyDownloadFileData(Integer schemeId, boolean onlyValidationErrors) {
+        final long incompleteRows = spotlightSubmissionRepository.countDownloadRowsMissingMandatoryData(schemeId,
+                downloadStatuses(onlyValidationErrors),
+                Stream.concat(COMPANIES_AND_CHARITIES.stream(), NON_LIMITED_COMPANIES.stream()).toList());
 
-        if (onlyValidationErrors) {
-            spotlightSubmissions = spotlightSubmissions.stream()
-                    .filter(s -> s.getStatus().equals(SpotlightSubmissionStatus.VALIDATION_ERROR.toString())).toList();
+        if (incompleteRows > 0) {
+            throw new SpotlightExportException(
+                    incompleteRows + " spotlight submissions are missing mandatory data for schemeId " + schemeId);
         }
-
-        final List<SpotlightSubmission> companiesAndCharitiesSubmissions = spotlightSubmissions.stream()
-                .filter(s -> s.getMandatoryQuestions().getOrgType().equals(LIMITED_COMPANY)
-                        || s.getMandatoryQuestions().getOrgType().equals(CHARITY)
-                        || s.getMandatoryQuestions().getOrgType().equals(REGISTERED_CHARITY)
-                        || s.getMandatoryQuestions().getOrgType().equals(UNREGISTERED_CHARITY))
-                .toList();
-
-        final List<SpotlightSubmission> nonLimitedCompanySubmissions = spotlightSubmissions.stream()
-                .filter(s -> s.getMandatoryQuestions().getOrgType().equals(NON_LIMITED_COMPANY)).toList();
-
-        return generateZipFile(companiesAndCharitiesSubmissions, nonLimitedCompanySubmissions, scheme);
-
     }
 
-    private ByteArrayOutputStream generateZipFile(List<SpotlightSubmission> companiesAndCharitiesSubmissions,
-            List<SpotlightSubmission> nonLimitedSubmissions, SchemeDTO scheme) {
-
-        final List<List<List<String>>> dataList = new ArrayList<>();
-        final List<String> filenames = new ArrayList<>();
-        processSubmissions(companiesAndCharitiesSubmissions, dataList, filenames, "charities_and_companies", scheme);
-        processSubmissions(nonLimitedSubmissions, dataList, filenames, "non_limited_companies", scheme);
+    /**
+     * Writes the due diligence zip for a scheme straight to the given stream, with
+     * charities and companies in one set of files and non-limited companies in another.
+     * Each set is read from the database a page at a time and its rows are written out
+     * as soon as they're built, so memory use doesn't grow with the number of
+     * submissions. Callers are expected to have called
+     * {@link #verifyDownloadFileData(Integer, boolean)} first.
+     */
+    public void writeDownloadFile(SchemeDTO scheme, boolean onlyValidationErrors, OutputStream outputStream) {
+        final List<String> statuses = downloadStatuses(onlyValidationErrors);
 
-        return zipService.createZip(SpotlightHeaders.SPOTLIGHT_HEADERS, dataList, filenames);
+        zipService.writeZip(SpotlightHeaders.SPOTLIGHT_HEADERS,
+                List.of(downloadFileSource(scheme, statuses, COMPANIES_AND_CHARITIES, "charities_and_companies"),
+                        downloadFileSource(scheme, statuses, NON_LIMITED_COMPANIES, "non_limited_companies")),
+                DOWNLOAD_ROWS_PER_FILE, outputStream);
     }
 
-    private void processSubmissions(List<SpotlightSubmission> submissions, List<List<List<String>>> dataList,
-            List<String> filenames, String filenameSuffix, SchemeDTO scheme) {
-        int index = 1;
-
-        for (List<SpotlightSubmission> list : Lists.partition(submissions, 999)) {
-            final List<List<String>> exportedData = exportSpotlightChecks(list);
-            final String generatedFilename = generateExportFileName(scheme, filenameSuffix + "_" + index);
-
-            dataList.add(exportedData);
-            filenames.add(generatedFilename);
-
-            index++;
-        }
+    private List<String> downloadStatuses(boolean onlyValidationErrors) {
+        return onlyValidationErrors ? List.of(SpotlightSubmissionStatus.VALIDATION_ERROR.toString())
+                : Arrays.stream(SpotlightSubmissionStatus.values()).map(SpotlightSubmissionStatus::toString).toList();
     }
 
-    private List<List<String>> exportSpotlightChecks(List<SpotlightSubmission> spotlightSubmissions) {
-        return spotlightSubmissions.stream()
-                .map(spotlightSubmission -> buildSingleSpotlightRow(spotlightSubmission.getMandatoryQuestions()))
-                .toList();
+    private ZipService.PartSource downloadFileSource(SchemeDTO scheme, List<String> statuses,
+            List<String> orgTypes, String filenameSuffix) {
+        final Iterator<List<String>> rows = KeysetPages
+                .stream(lastId -> spotlightSubmissionRepository.findDownloadPage(scheme.getSchemeId(), statuses,
+                        orgTypes, lastId, PageRequest.of(0, DOWNLOAD_PAGE_SIZE)), SpotlightDownloadRowView::getId)
+                .map(row -> buildSingleSpotlightRow(scheme.getSchemeId(), row)).iterator();
+
+        return new ZipService.PartSource(rows,
+                part -> generateExportFileName(scheme, filenameSuffix + "_" + part));
     }
 
     /**
@@ -138,26 +159,17 @@ public class SpotlightSubmissionService {
      * headers are added or the ordering is changed in SPOTLIGHT_HEADERS, this will need
      * manually reflected here.
      */
-    public List<String> buildSingleSpotlightRow(GrantMandatoryQuestions grantMandatoryQuestions) {
-        try {
-            final Integer schemeId = grantMandatoryQuestions.getSchemeEntity().getId();
-            final List<String> row = new ArrayList<>(
-                    List.of(mandatoryValue(schemeId, "gap id", grantMandatoryQuestions.getGapId()),
-                            mandatoryValue(schemeId, "organisation name", grantMandatoryQuestions.getName()),
-                            combineAddressLines(grantMandatoryQuestions.getAddressLine1(),
-                                    grantMandatoryQuestions.getAddressLine2()),
-                            grantMandatoryQuestions.getCity(), grantMandatoryQuestions.getCounty(),
-                            mandatoryValue(schemeId, "postcode", grantMandatoryQuestions.getPostcode()),
-                            mandatoryValue(schemeId, "application amount",
-                                    grantMandatoryQuestions.getFundingAmount().toString()),
-                            Objects.requireNonNullElse(grantMandatoryQuestions.getCharityCommissionNumber(), ""),
-                            Objects.requireNonNullElse(grantMandatoryQuestions.getCompaniesHouseNumber(), "")));
-            row.add(""); // similarities data - should always be blank
-            return row;
-        }
-        catch (NullPointerException e) {
-            throw new SpotlightExportException("Unable to find mandatory question data: " + e.getMessage());
-        }
+    public List<String> buildSingleSpotlightRow(Integer schemeId, SpotlightDownloadRowView row) {
+        final List<String> spotlightRow = new ArrayList<>(List.of(mandatoryValue(schemeId, "gap id", row.getGapId()),
+                mandatoryValue(schemeId, "organisation name", row.getName()),
+                combineAddressLines(row.getAddressLine1(), row.getAddressLine2()),
+                Objects.requireNonNullElse(row.getCity(), ""), Objects.requireNonNullElse(row.getCounty(), ""),
+                mandatoryValue(schemeId, "postcode", row.getPostcode()),
+                mandatoryValue(schemeId, "application amount", Objects.toString(row.getFundingAmount(), null)),
+                Objects.requireNonNullElse(row.getCharityCommissionNumber(), ""),
+                Objects.requireNonNullElse(row.getCompaniesHouseNumber(), "")));
+        spotlightRow.add(""); // similarities data - should always be blank
+        return spotlightRow;
     }
 
     public String generateExportFileName(SchemeDTO scheme, String orgType) {
@@ -1,15 +1,23 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.MessageAttributeValue;
 import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
 import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import gov.cabinetoffice.gap.adminbackend.client.UserServiceClient;
+import gov.cabinetoffice.gap.adminbackend.config.TaskExecutorConfig;
 import gov.cabinetoffice.gap.adminbackend.constants.AWSConstants;
 import gov.cabinetoffice.gap.adminbackend.constants.SpotlightHeaders;
 import gov.cabinetoffice.gap.adminbackend.dtos.application.ApplicationFormDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.LambdaSubmissionDefinition;
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SpotlightExportRowView;
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportView;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportsDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionSection;
 import gov.cabinetoffice.gap.adminbackend.dtos.user.UserDto;
@@ -28,24 +36,46 @@ import gov.cabinetoffice.gap.adminbackend.repositories.GrantExportBatchRepositor
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantExportRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.SubmissionRepository;
 import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
+import gov.cabinetoffice.gap.adminbackend.utils.KeysetPages;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SubmissionsService {
 
+    private static final int SPOTLIGHT_EXPORT_ROWS_PER_FILE = 999;
+
+    private static final int SPOTLIGHT_EXPORT_PAGE_SIZE = 500;
+
+    private static final Duration EXPORT_STATUS_CACHE_TTL = Duration.ofSeconds(3);
+
+    private static final Duration EXPORT_BATCH_LEASE = Duration.ofMinutes(10);
+
+    private static final int MAX_EXPORT_BATCH_ATTEMPTS = 5;
+
+    private final Cache<Integer, GrantExportStatus> exportStatusCache = CacheBuilder.newBuilder()
+            .maximumSize(10_000).expireAfterWrite(EXPORT_STATUS_CACHE_TTL).build();
+
     private final SubmissionRepository submissionRepository;
 
     private final GrantExportRepository grantExportRepository;
@@ -68,6 +98,12 @@ public class SubmissionsService {
 
     private final UserServiceClient userServiceClient;
 
+    @Qualifier(TaskExecutorConfig.SUBMISSION_EXPORT_BATCH_EXECUTOR)
+    private final Executor exportBatchExecutor;
+
+    @Qualifier(TaskExecutorConfig.SUBMISSION_EXPORT_SQS_EXECUTOR)
+    private final Executor exportMessageExecutor;
+
     @Value("${cloud.aws.sqs.submissions-export-queue}")
     private String submissionsExportQueue;
 
@@ -79,7 +115,7 @@ public class SubmissionsService {
                 String.format("No Submission with ID %s was found", submissionId)));
     }
 
-    public ByteArrayOutputStream exportSpotlightChecks(Integer applicationId) {
+    public void verifySpotlightExportAccess(Integer applicationId) {
         AdminSession adminSession = HelperUtils.getAdminSessionForAuthenticatedUser();
 
         Integer createdBy = applicationFormService.retrieveApplicationFormSummary(applicationId, false, false)
@@ -89,35 +125,40 @@ public class SubmissionsService {
             throw new AccessDeniedException("Admin " + adminSession.getGrantAdminId()
                     + " is unable to access application with id " + applicationId);
         }
+    }
 
-        final List<Submission> submissionsByAppId = submissionRepository
-                .findByApplicationGrantApplicationIdAndStatus(applicationId, SubmissionStatus.SUBMITTED);
-        log.info("Found {} submissions in SUBMITTED state for application ID {}", submissionsByAppId.size(),
-                applicationId);
-
-        final List<List<List<String>>> dataList = new ArrayList<>();
-        final List<String> filenames = new ArrayList<>();
-        int index = 1;
-
-        for (List<Submission> submissionList : Lists.partition(submissionsByAppId, 999)) {
-            final String filename = generateExportFileName(applicationId, index);
-            List<List<String>> spotlightExportData = new ArrayList<>();
-            submissionList.forEach(submission -> {
-                try {
-                    spotlightExportData.add(buildSingleSpotlightRow(submission));
-                }
-                catch (SpotlightExportException e) {
-                    log.error("Problem extracting data: " + e.getMessage());
-                }
-            });
+    /**
+     * Writes the spotlight checks zip for an application straight to the given stream.
+     * Submissions are read from the database a page at a time and each row is written
+     * out as soon as it's built, so memory use doesn't grow with the number of
+     * submissions. Callers are expected to have called
+     * {@link #verifySpotlightExportAccess(Integer)} first.
+     */
+    public void exportSpotlightChecks(Integer applicationId, OutputStream outputStream) {
+        final String filenamePrefix = generateExportFileNamePrefix(applicationId);
+        final Iterator<List<String>> rows = streamSpotlightExportRows(applicationId).iterator();
 
-            dataList.add(spotlightExportData);
-            filenames.add(filename);
+        zipService.writeZip(SpotlightHeaders.SPOTLIGHT_HEADERS, rows, SPOTLIGHT_EXPORT_ROWS_PER_FILE,
+                part -> filenamePrefix + "_" + part + ".xlsx", outputStream);
+    }
 
-            index++;
-        }
+    private Stream<List<String>> streamSpotlightExportRows(Integer applicationId) {
+        return KeysetPages
+                .stream(lastId -> findSpotlightExportPage(applicationId, lastId), SpotlightExportRowView::getId)
+                .map(row -> {
+                    try {
+                        return buildSingleSpotlightRow(row);
+                    }
+                    catch (SpotlightExportException e) {
+                        log.error("Problem extracting data: " + e.getMessage());
+                        return null;
+                    }
+                }).filter(Objects::nonNull);
+    }
 
-        return zipService.createZip(SpotlightHeaders.SPOTLIGHT_HEADERS, dataList, filenames);
+    private List<SpotlightExportRowView> findSpotlightExportPage(Integer applicationId, UUID lastId) {
+        return submissionRepository.findSpotlightExportPage(applicationId, SubmissionStatus.SUBMITTED.toString(),
+                lastId, PageRequest.of(0, SPOTLIGHT_EXPORT_PAGE_SIZE));
     }
 
     public void updateSubmissionLastRequiredChecksExport(Integer applicationId) {
@@ -139,38 +180,65 @@ public class SubmissionsService {
         try {
             SubmissionSection section = submission.getDefinition().getSectionById("ESSENTIAL");
 
-            final UUID subId = submission.getId();
-            final String gapId = submission.getGapId();
-            final String organisationName = section.getQuestionById("APPLICANT_ORG_NAME").getResponse();
             final String[] applicantAddress = section.getQuestionById("APPLICANT_ORG_ADDRESS").getMultiResponse();
-            final String addressStreet = combineAddressLines(applicantAddress);
-            final String addressTown = applicantAddress[2];
-            final String addressCounty = applicantAddress[3];
-            final String postcode = applicantAddress[4];
-            final String charityNumber = section.getQuestionById("APPLICANT_ORG_CHARITY_NUMBER").getResponse();
-            final String companyNumber = section.getQuestionById("APPLICANT_ORG_COMPANIES_HOUSE").getResponse();
-            final String applicationAmount = section.getQuestionById("APPLICANT_AMOUNT").getResponse();
-
-            List<String> row = new ArrayList<>();
-            row.add(mandatoryValue(subId, "GAP_ID", gapId));
-            row.add(mandatoryValue(subId, "APPLICANT_ORG_NAME", organisationName));
-            row.add(addressStreet);
-            row.add(addressTown);
-            row.add(addressCounty);
-            row.add(mandatoryValue(subId, "POSTCODE", postcode));
-            row.add(mandatoryValue(subId, "APPLICANT_AMOUNT", applicationAmount));
-            row.add(charityNumber);
-            row.add(companyNumber);
-            row.add(""); // similarities data - should always be blank
-
-            return row;
+
+            return buildSpotlightRow(submission.getId(), submission.getGapId(),
+                    section.getQuestionById("APPLICANT_ORG_NAME").getResponse(), applicantAddress,
+                    section.getQuestionById("APPLICANT_AMOUNT").getResponse(),
+                    section.getQuestionById("APPLICANT_ORG_CHARITY_NUMBER").getResponse(),
+                    section.getQuestionById("APPLICANT_ORG_COMPANIES_HOUSE").getResponse());
         }
         catch (NotFoundException e) {
             throw new SpotlightExportException("Unable to find submission section or question: " + e.getMessage());
         }
     }
 
+    /**
+     * Same as {@link #buildSingleSpotlightRow(Submission)}, for rows whose answers have
+     * already been extracted from the submission definition by the database.
+     */
+    public List<String> buildSingleSpotlightRow(SpotlightExportRowView exportRow) {
+        final UUID subId = UUID.fromString(exportRow.getId());
+        if (!Boolean.TRUE.equals(exportRow.getHasEssentialQuestions())) {
+            throw new SpotlightExportException(
+                    "Unable to find submission section or question: ESSENTIAL section or questions missing for submission_id "
+                            + subId);
+        }
+
+        final String[] applicantAddress = { exportRow.getAddressLine1(), exportRow.getAddressLine2(),
+                exportRow.getAddressTown(), exportRow.getAddressCounty(), exportRow.getAddressPostcode() };
+
+        return buildSpotlightRow(subId, exportRow.getGapId(), exportRow.getOrganisationName(), applicantAddress,
+                exportRow.getApplicationAmount(), exportRow.getCharityNumber(), exportRow.getCompanyNumber());
+    }
+
+    private List<String> buildSpotlightRow(UUID subId, String gapId, String organisationName,
+            String[] applicantAddress, String applicationAmount, String charityNumber, String companyNumber) {
+        final String addressStreet = combineAddressLines(applicantAddress);
+        final String addressTown = applicantAddress[2];
+        final String addressCounty = applicantAddress[3];
+        final String postcode = applicantAddress[4];
+
+        List<String> row = new ArrayList<>();
+        row.add(mandatoryValue(subId, "GAP_ID", gapId));
+        row.add(mandatoryValue(subId, "APPLICANT_ORG_NAME", organisationName));
+        row.add(addressStreet);
+        row.add(addressTown);
+        row.add(addressCounty);
+        row.add(mandatoryValue(subId, "POSTCODE", postcode));
+        row.add(mandatoryValue(subId, "APPLICANT_AMOUNT", applicationAmount));
+        row.add(charityNumber);
+        row.add(companyNumber);
+        row.add(""); // similarities data - should always be blank
+
+        return row;
+    }
+
     public String generateExportFileName(Integer applicationId, Integer count) {
+        return generateExportFileNamePrefix(applicationId) + "_" + count + ".xlsx";
+    }
+
+    private String generateExportFileNamePrefix(Integer applicationId) {
         ApplicationFormDTO applicationFormDTO = applicationFormService.retrieveApplicationFormSummary(applicationId,
                 false, false);
         String ggisReference = schemeService.getSchemeBySchemeId(applicationFormDTO.getGrantSchemeId())
@@ -179,45 +247,167 @@ public class SubmissionsService {
                 "");
         String dateString = new SimpleDateFormat("yyyy-MM-dd", Locale.UK).format(System.currentTimeMillis());
 
-        return dateString + "_" + ggisReference + "_" + applicationName + "_" + count + ".xlsx";
+        return dateString + "_" + ggisReference + "_" + applicationName;
     }
 
-    public void triggerSubmissionsExport(Integer applicationId) {
-        List<Submission> submissions = submissionRepository.findByApplicationGrantApplicationIdAndStatus(applicationId,
-                SubmissionStatus.SUBMITTED);
-
-        if (submissions.isEmpty()) {
+    /**
+     * Records an export batch for the application and returns its id straight away. The
+     * export records and SQS messages are created by {@link #processExportBatch(UUID)} in
+     * the background, and the batch moves from REQUESTED to NOT_GENERATED once that's
+     * done. If this instance dies part way through, the batch is picked up again by the
+     * submission export scheduler once its lease runs out, up to a limited number of
+     * attempts.
+     */
+    public UUID requestSubmissionsExport(Integer applicationId) {
+        if (!submissionRepository.existsByApplicationGrantApplicationIdAndStatus(applicationId,
+                SubmissionStatus.SUBMITTED)) {
             throw new NotFoundException("No submissions in SUBMITTED state for application " + applicationId);
         }
 
-        UUID exportBatchId = UUID.randomUUID();
-        AdminSession adminSession = HelperUtils.getAdminSessionForAuthenticatedUser();
+        final UUID exportBatchId = UUID.randomUUID();
+        final AdminSession adminSession = HelperUtils.getAdminSessionForAuthenticatedUser();
+
+        grantExportBatchRepository.save(GrantExportBatchEntity.builder().id(exportBatchId).applicationId(applicationId)
+                .status(GrantExportStatus.REQUESTED).createdBy(adminSession.getGrantAdminId())
+                .emailAddress(adminSession.getEmailAddress()).build());
+        exportStatusCache.invalidate(applicationId);
 
-        // split the submissions into groups of 10, process in batches
-        List<List<Submission>> partitionedSubmissions = Lists.partition(submissions,
-                AWSConstants.MAX_ALLOWED_SQS_FIFO_BATCH_SIZE);
-
-        partitionedSubmissions.stream().map(submissionsBatch -> mapExportRecordListToBatchMessageRequest(applicationId,
-                exportBatchId, adminSession, submissionsBatch)).forEach(exportRecordsBatch -> {
-                    grantExportBatchRepository.saveAll(mapGrantExportToGrantExportBatch(exportRecordsBatch));
-                    grantExportRepository.saveAll(exportRecordsBatch);
-                    grantExportBatchRepository.saveAll(mapGrantExportToGrantExportBatch(exportRecordsBatch));
-                    amazonSQS.sendMessageBatch(mapExportRecordListToBatchMessageRequest(exportRecordsBatch));
-                });
+        exportBatchExecutor.execute(() -> processExportBatch(exportBatchId));
+
+        return exportBatchId;
     }
 
-    // TODO handle new EXPIRED and ERROR statuses
+    /**
+     * Fans a REQUESTED export batch out into export records and SQS messages. Does nothing
+     * if another worker holds the batch's lease, it's already been processed or it has used
+     * up its attempts. Only records inserted by this attempt have their messages sent, and
+     * records whose messages weren't accepted are removed again so the next attempt resends
+     * them. A failed attempt is logged and the batch is left REQUESTED to be retried once
+     * the lease expires, until MAX_EXPORT_BATCH_ATTEMPTS have been made and it's marked
+     * FAILED.
+     */
+    public void processExportBatch(UUID exportBatchId) {
+        if (grantExportBatchRepository.claimRequestedBatch(exportBatchId.toString(), MAX_EXPORT_BATCH_ATTEMPTS,
+                EXPORT_BATCH_LEASE.toSeconds()) != 1) {
+            log.info("Export batch {} is already being processed", exportBatchId);
+            return;
+        }
+
+        Integer applicationId = null;
+        try {
+            final GrantExportBatchEntity exportBatch = grantExportBatchRepository.findById(exportBatchId)
+                    .orElseThrow(() -> new NotFoundException("No export batch with id " + exportBatchId));
+            applicationId = exportBatch.getApplicationId();
+            final List<SubmissionExportView> submissions = submissionRepository
+                    .findExportViewsByApplicationIdAndStatus(exportBatch.getApplicationId(), SubmissionStatus.SUBMITTED);
+
+            // records an earlier attempt inserted have already had their messages sent
+            final List<GrantExportEntity> newExportRecords = grantExportRepository
+                    .insertAll(mapSubmissionsToExportRecords(exportBatch, submissions));
+
+            final Set<UUID> unsentSubmissionIds = sendExportMessages(newExportRecords);
+            if (!unsentSubmissionIds.isEmpty()) {
+                grantExportRepository.deleteByExportBatchIdAndSubmissionIdIn(exportBatchId, unsentSubmissionIds);
+                throw new IllegalStateException(
+                        unsentSubmissionIds.size() + " export messages were not accepted by SQS");
+            }
+
+            grantExportBatchRepository.updateStatusById(exportBatchId.toString(),
+                    GrantExportStatus.NOT_GENERATED.toString());
+            exportStatusCache.invalidate(exportBatch.getApplicationId());
+            log.info("Queued {} submissions for export batch {}", newExportRecords.size(), exportBatchId);
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to queue submissions for export batch " + exportBatchId, e);
+
+            if (grantExportBatchRepository.failBatchIfOutOfAttempts(exportBatchId.toString(),
+                    MAX_EXPORT_BATCH_ATTEMPTS) > 0) {
+                log.error("Export batch {} failed after {} attempts", exportBatchId, MAX_EXPORT_BATCH_ATTEMPTS);
+                if (applicationId != null) {
+                    exportStatusCache.invalidate(applicationId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks REQUESTED batches that have used up their attempts as FAILED when their last
+     * attempt stopped without recording a result, e.g. because the instance was restarted.
+     */
+    public void failAbandonedExportBatches() {
+        final int failed = grantExportBatchRepository.failAbandonedBatchesOutOfAttempts(MAX_EXPORT_BATCH_ATTEMPTS,
+                EXPORT_BATCH_LEASE.toSeconds());
+        if (failed > 0) {
+            log.error("Marked {} abandoned export batch(es) as failed after {} attempts", failed,
+                    MAX_EXPORT_BATCH_ATTEMPTS);
+            exportStatusCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Sends the export messages in batches of 10, with as many batches in flight at once as
+     * the export SQS executor has threads. The export lambda doesn't rely on the order
+     * messages arrive in. Returns the ids of the submissions whose messages SQS didn't
+     * accept.
+     */
+    private Set<UUID> sendExportMessages(List<GrantExportEntity> exportRecords) {
+        final List<CompletableFuture<Set<UUID>>> sends = Lists
+                .partition(exportRecords, AWSConstants.MAX_ALLOWED_SQS_FIFO_BATCH_SIZE).stream()
+                .map(exportRecordsBatch -> CompletableFuture.supplyAsync(
+                        () -> sendExportMessageBatch(mapExportRecordListToBatchMessageRequest(exportRecordsBatch)),
+                        exportMessageExecutor))
+                .toList();
+
+        return sends.stream().map(CompletableFuture::join).flatMap(Set::stream).collect(Collectors.toSet());
+    }
+
+    private Set<UUID> sendExportMessageBatch(SendMessageBatchRequest request) {
+        final Map<String, UUID> submissionIdsByEntryId = request.getEntries().stream()
+                .collect(Collectors.toMap(SendMessageBatchRequestEntry::getId, entry -> UUID
+                        .fromString(entry.getMessageAttributes().get("submissionId").getStringValue())));
+
+        try {
+            return amazonSQS.sendMessageBatch(request).getFailed().stream().map(failure -> {
+                log.error("SQS rejected export message for submission {}: {} {}",
+                        submissionIdsByEntryId.get(failure.getId()), failure.getCode(), failure.getMessage());
+                return submissionIdsByEntryId.get(failure.getId());
+            }).collect(Collectors.toSet());
+        }
+        catch (AmazonClientException e) {
+            log.error("Could not send export messages for submissions " + submissionIdsByEntryId.values(), e);
+            return new HashSet<>(submissionIdsByEntryId.values());
+        }
+    }
+
+    /**
+     * Polled by the frontend while an export runs, so the result is cached for a few
+     * seconds and worked out from a single grouped query over the application's export
+     * records.
+     */
     public GrantExportStatus getExportStatus(Integer applicationId) {
-        if (!grantExportRepository.existsByApplicationId(applicationId)) {
+        try {
+            return exportStatusCache.get(applicationId, () -> findExportStatus(applicationId));
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private GrantExportStatus findExportStatus(Integer applicationId) {
+        final List<GrantExportStatus> statuses = grantExportRepository.findStatusesByApplicationId(applicationId)
+                .stream().map(GrantExportStatus::valueOf).toList();
+        if (statuses.isEmpty()) {
             return GrantExportStatus.NOT_STARTED;
         }
-        if (grantExportRepository.existsByApplicationIdAndStatus(applicationId, GrantExportStatus.PROCESSING)) {
+        // TODO handle new EXPIRED and ERROR statuses
+        if (statuses.contains(GrantExportStatus.PROCESSING)) {
             return GrantExportStatus.PROCESSING;
         }
-        if (grantExportRepository.existsByApplicationIdAndStatus(applicationId, GrantExportStatus.REQUESTED)) {
+        if (statuses.contains(GrantExportStatus.REQUESTED)) {
             return GrantExportStatus.REQUESTED;
         }
-        if (grantExportRepository.existsByApplicationIdAndStatus(applicationId, GrantExportStatus.FAILED)) {
+        if (statuses.contains(GrantExportStatus.FAILED)) {
             return GrantExportStatus.FAILED;
         }
         return GrantExportStatus.COMPLETE;
@@ -306,26 +496,14 @@ public class SubmissionsService {
                 StringUtils.defaultString(addressLines[1]));
     }
 
-    private List<GrantExportEntity> mapExportRecordListToBatchMessageRequest(Integer applicationId, UUID exportId,
-            AdminSession adminSession, List<Submission> list) {
-        return list.stream()
-                .map(submission -> GrantExportEntity.builder().id(new GrantExportId(exportId, submission.getId()))
-                        .status(GrantExportStatus.REQUESTED).applicationId(applicationId)
-                        .emailAddress(adminSession.getEmailAddress()).createdBy(adminSession.getGrantAdminId())
-                        .schemeId(submission.getScheme().getId()).build())
-                .toList();
-    }
-
-    private List<GrantExportBatchEntity> mapGrantExportToGrantExportBatch(List<GrantExportEntity> grantExportEntityList) {
-        return grantExportEntityList.stream()
-                .map(grantExportEntity -> GrantExportBatchEntity.builder()
-                        .id(grantExportEntity.getId().getExportBatchId())
-                        .applicationId(grantExportEntity.getApplicationId())
-                        .status(GrantExportStatus.NOT_GENERATED)
-                        .created(grantExportEntity.getCreated())
-                        .createdBy(grantExportEntity.getCreatedBy())
-                        .emailAddress(grantExportEntity.getEmailAddress())
-                        .build())
+    private List<GrantExportEntity> mapSubmissionsToExportRecords(GrantExportBatchEntity exportBatch,
+            List<SubmissionExportView> submissions) {
+        return submissions.stream()
+                .map(submission -> GrantExportEntity.builder()
+                        .id(new GrantExportId(exportBatch.getId(), submission.getId()))
+                        .status(GrantExportStatus.REQUESTED).applicationId(exportBatch.getApplicationId())
+                        .emailAddress(exportBatch.getEmailAddress()).createdBy(exportBatch.getCreatedBy())
+                        .created(exportBatch.getCreated()).schemeId(submission.getSchemeId()).build())
                 .toList();
     }
 
@@ -14,6 +14,7 @@ import gov.cabinetoffice.gap.adminbackend.repositories.FundingOrganisationReposi
 import gov.cabinetoffice.gap.adminbackend.repositories.GapUserRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdminRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantApplicantRepository;
+import gov.cabinetoffice.gap.adminbackend.security.AdminSessionCache;
 import gov.cabinetoffice.gap.adminbackend.services.encryption.AwsEncryptionServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
@@ -61,6 +62,7 @@ public class UserService {
 
     private final AwsEncryptionServiceImpl encryptionService;
 
+    private final AdminSessionCache adminSessionCache;
 
     @Transactional
     public void migrateUser(final String oneLoginSub, final UUID colaSub) {
@@ -73,6 +75,8 @@ public class UserService {
             grantApplicant.setUserId(oneLoginSub);
             grantApplicantRepository.save(grantApplicant);
         });
+
+        adminSessionCache.invalidateUser(colaSub.toString());
     }
 
     @Transactional
@@ -82,12 +86,14 @@ public class UserService {
             grantApplicantRepository.deleteByUserId(sub);
             grantAdminRepository.deleteByGapUserUserSub(sub);
             gapUserRepository.deleteByUserSub(sub);
+            adminSessionCache.invalidateUser(sub);
         });
 
         if (colaSubOptional.isPresent()) {
             grantApplicantRepository.deleteByUserId(colaSubOptional.get().toString());
             grantAdminRepository.deleteByGapUserUserSub(colaSubOptional.get().toString());
             gapUserRepository.deleteByUserSub(colaSubOptional.get().toString());
+            adminSessionCache.invalidateUser(colaSubOptional.get().toString());
         }
     }
 
@@ -95,6 +101,7 @@ public class UserService {
     public void deleteAdminUser(String userSub) {
             grantAdminRepository.deleteByGapUserUserSub(userSub);
             gapUserRepository.deleteByUserSub(userSub);
+            adminSessionCache.invalidateUser(userSub);
     }
 
     public Boolean verifyAdminRoles(final String emailAddress, final String roles) {
@@ -167,6 +174,8 @@ public class UserService {
             log.info("Updated user's funding organisation: {}", grantAdmin.getGapUser());
 
         }
+
+        adminSessionCache.invalidateUser(grantAdmin.getGapUser().getUserSub());
     }
 
     public byte[] getEmailAddressForSub(final String sub) {
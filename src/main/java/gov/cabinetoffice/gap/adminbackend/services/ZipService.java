@@ -1,43 +1,249 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import gov.cabinetoffice.gap.adminbackend.config.ZipExportConfigProperties;
 import gov.cabinetoffice.gap.adminbackend.utils.XlsxGenerator;
-import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 @Service
-@RequiredArgsConstructor
 public class ZipService {
 
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final int parallelism;
+
+    private final int maxPartsInMemory;
+
+    private final boolean storeEntries;
+
+    // only started when parallel rendering is configured, otherwise parts are rendered on the calling thread
+    private final ExecutorService renderExecutor;
+
+    public ZipService(ZipExportConfigProperties zipExportConfigProperties) {
+        this.parallelism = zipExportConfigProperties.getParallelism() > 0 ? zipExportConfigProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.maxPartsInMemory = Math.max(1, zipExportConfigProperties.getMaxPartsInMemory());
+        this.storeEntries = zipExportConfigProperties.isStoreEntries();
+        this.renderExecutor = parallelism == 1 ? null
+                : Executors.newFixedThreadPool(parallelism,
+                        new ThreadFactoryBuilder().setNameFormat("zip-export-%d").setDaemon(true).build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (renderExecutor == null) {
+            return;
+        }
+        renderExecutor.shutdown();
+        try {
+            if (!renderExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                renderExecutor.shutdownNow();
+            }
+        }
+        catch (InterruptedException e) {
+            renderExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public ByteArrayOutputStream createZip(List<String> headersList, List<List<List<String>>> dataList,
             List<String> filenames) {
         ByteArrayOutputStream zipStream = new ByteArrayOutputStream();
 
         try (ZipOutputStream zipOut = new ZipOutputStream(zipStream)) {
+            // rendered in memory, so columns are auto sized to fit rather than estimated
+            final PartWriter partWriter = new PartWriter(
+                    rows -> XlsxGenerator.createResource(headersList, rows).toByteArray(), zipOut);
             for (int i = 0; i < dataList.size(); i++) {
                 List<List<String>> data = dataList.get(i);
                 if (!data.isEmpty()) {
-                    final String filename = filenames.get(i);
+                    partWriter.submit(filenames.get(i), data);
+                }
+            }
+            partWriter.drain();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to create ZIP file: " + e.getMessage());
+        }
 
-                    final ByteArrayOutputStream excelStream = XlsxGenerator.createResource(headersList, data);
+        return zipStream;
+    }
+
+    /**
+     * Streaming alternative to {@link #createZip(List, List, List)}. Rows are split into
+     * XLSX files of at most rowsPerFile rows. Files are named by filenameForPart, starting
+     * from part 1. The output stream is finished but not closed.
+     * <p>
+     * With a single render thread and deflated entries each file is written straight into
+     * the zip as it's generated. Otherwise rows are still read on the calling thread, but
+     * each part is rendered in memory, with up to maxPartsInMemory rendered concurrently
+     * when parallelism is configured, and written in order.
+     */
+    public void writeZip(List<String> headersList, Iterator<List<String>> rows, int rowsPerFile,
+            IntFunction<String> filenameForPart, OutputStream outputStream) {
+        writeZip(headersList, List.of(new PartSource(rows, filenameForPart)), rowsPerFile, outputStream);
+    }
 
-                    final ZipEntry entry = new ZipEntry(filename);
-                    zipOut.putNextEntry(entry);
-                    zipOut.write(excelStream.toByteArray());
-                    zipOut.closeEntry();
+    /**
+     * As {@link #writeZip(List, Iterator, int, IntFunction, OutputStream)}, but writes the
+     * files for each source one after the other into the same zip. Each source is only
+     * read once the previous one is exhausted, and numbers its files from part 1.
+     */
+    public void writeZip(List<String> headersList, List<PartSource> sources, int rowsPerFile,
+            OutputStream outputStream) {
+        final ZipOutputStream zipOut = new ZipOutputStream(outputStream);
+
+        try {
+            if (parallelism == 1 && !storeEntries) {
+                for (PartSource source : sources) {
+                    writeSequentially(headersList, source.rows(), rowsPerFile, source.filenameForPart(), zipOut);
+                }
+            }
+            else {
+                final PartWriter partWriter = new PartWriter(rows -> renderPart(headersList, rows), zipOut);
+                for (PartSource source : sources) {
+                    int part = 1;
+                    while (source.rows().hasNext()) {
+                        final List<List<String>> partRows = new ArrayList<>(rowsPerFile);
+                        Iterators.addAll(partRows, Iterators.limit(source.rows(), rowsPerFile));
+                        partWriter.submit(source.filenameForPart().apply(part), partRows);
+                        part++;
+                    }
                 }
+                partWriter.drain();
             }
+            zipOut.finish();
         }
         catch (IOException e) {
             throw new RuntimeException("Failed to create ZIP file: " + e.getMessage());
         }
+    }
 
-        return zipStream;
+    private void writeSequentially(List<String> headersList, Iterator<List<String>> rows, int rowsPerFile,
+            IntFunction<String> filenameForPart, ZipOutputStream zipOut) throws IOException {
+        int part = 1;
+        while (rows.hasNext()) {
+            zipOut.putNextEntry(new ZipEntry(filenameForPart.apply(part)));
+            // POI may close the stream it's given, which would close the whole zip
+            XlsxGenerator.writeResource(headersList, Iterators.limit(rows, rowsPerFile),
+                    CloseShieldOutputStream.wrap(zipOut));
+            zipOut.closeEntry();
+            part++;
+        }
+    }
+
+    private static byte[] renderPart(List<String> headersList, List<List<String>> rows) {
+        final ByteArrayOutputStream excelStream = new ByteArrayOutputStream();
+        XlsxGenerator.writeResource(headersList, rows.iterator(), excelStream);
+        return excelStream.toByteArray();
+    }
+
+    private void writeEntry(ZipOutputStream zipOut, String filename, byte[] content) throws IOException {
+        final ZipEntry entry = new ZipEntry(filename);
+        if (storeEntries) {
+            final CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCompressedSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        zipOut.putNextEntry(entry);
+        zipOut.write(content);
+        zipOut.closeEntry();
+    }
+
+    /**
+     * Renders parts on the shared executor, or on the calling thread when there isn't one,
+     * and writes them to the zip in submission order, blocking the caller once
+     * maxPartsInMemory parts are outstanding.
+     */
+    private class PartWriter {
+
+        private final Function<List<List<String>>, byte[]> render;
+
+        private final ZipOutputStream zipOut;
+
+        private final Deque<PendingPart> pending = new ArrayDeque<>();
+
+        private PartWriter(Function<List<List<String>>, byte[]> render, ZipOutputStream zipOut) {
+            this.render = render;
+            this.zipOut = zipOut;
+        }
+
+        private void submit(String filename, List<List<String>> rows) throws IOException {
+            if (pending.size() >= maxPartsInMemory) {
+                writeNext();
+            }
+            final Future<byte[]> content = renderExecutor == null
+                    ? CompletableFuture.completedFuture(render.apply(rows))
+                    : renderExecutor.submit(() -> render.apply(rows));
+            pending.add(new PendingPart(filename, content));
+        }
+
+        private void drain() throws IOException {
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() throws IOException {
+            final PendingPart part = pending.remove();
+            try {
+                writeEntry(zipOut, part.filename(), part.content().get());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelPending();
+                throw new RuntimeException("Interrupted while creating ZIP file");
+            }
+            catch (ExecutionException e) {
+                cancelPending();
+                throw new RuntimeException("Failed to create ZIP file: " + e.getCause().getMessage(), e.getCause());
+            }
+            catch (IOException | RuntimeException e) {
+                cancelPending();
+                throw e;
+            }
+        }
+
+        private void cancelPending() {
+            pending.forEach(part -> part.content().cancel(true));
+            pending.clear();
+        }
+
+    }
+
+    private record PendingPart(String filename, Future<byte[]> content) {
+    }
+
+    /**
+     * Rows to be split into their own run of numbered files within a zip.
+     */
+    public record PartSource(Iterator<List<String>> rows, IntFunction<String> filenameForPart) {
     }
 
 }
@@ -37,13 +37,31 @@ public class PagesAdvertService {
 
     public AdvertSectionOverviewPageDTO buildSectionOverviewPageContent(String schemeId, UUID advertId) {
         final String grantSchemeName = schemeService.getSchemeBySchemeId(parseInt(schemeId)).getName();
+
+        // the scheme can be renamed without touching the advert, so its name isn't part of the cached view
+        final AdvertSectionOverviewPageDTO advertOverview = grantAdvertService.getAdvertView(advertId,
+                "section-overview", this::buildAdvertSectionOverview);
+
+        // builds the dto needed to the frontend
+        final AdvertSectionOverviewPageDTO response = AdvertSectionOverviewPageDTO.builder()
+                .sections(advertOverview.getSections())
+                .advertName(advertOverview.getAdvertName())
+                .grantSchemeName(grantSchemeName)
+                .isPublishDisabled(advertOverview.isPublishDisabled())
+                .build();
+
+        log.info("{} with id {} and advert id {}, section-overview page content, successfully created", grantSchemeName,
+                schemeId, advertId);
+
+        return response;
+    }
+
+    private AdvertSectionOverviewPageDTO buildAdvertSectionOverview(GrantAdvert grantAdvert) {
         boolean isPublishDisabled = true;
 
         final List<AdvertSectionOverviewPageSectionDto> dtoSectionsList = new ArrayList<>();
         final List<AdvertDefinitionSection> statelessSections = definition.getSections();
 
-        final GrantAdvert grantAdvert = grantAdvertService.getAdvertById(advertId);
-
         final List<GrantAdvertSectionResponse> sectionsWithStatus = grantAdvert.getResponse() != null
                 ? grantAdvert.getResponse().getSections() : new ArrayList<>();
 
@@ -59,24 +77,20 @@ public class PagesAdvertService {
             isPublishDisabled = !nonCompletedSections.isEmpty();
         }
 
-        // builds the dto needed to the frontend
-        final AdvertSectionOverviewPageDTO response = AdvertSectionOverviewPageDTO.builder()
-                .sections(dtoSectionsList)
+        return AdvertSectionOverviewPageDTO.builder()
+                .sections(List.copyOf(dtoSectionsList))
                 .advertName(grantAdvert.getGrantAdvertName())
-                .grantSchemeName(grantSchemeName)
                 .isPublishDisabled(isPublishDisabled)
                 .build();
-
-        log.info("{} with id {} and advert id {}, section-overview page content, successfully created", grantSchemeName,
-                schemeId, advertId);
-
-        return response;
     }
 
     public AdvertSummaryPageDTO buildSummaryPageContent(UUID advertId) {
+        return grantAdvertService.getAdvertView(advertId, "summary", this::buildAdvertSummary);
+    }
+
+    private AdvertSummaryPageDTO buildAdvertSummary(GrantAdvert grantAdvert) {
 
         final AdvertSummaryPageDTO advertSummaryPageDTO = new AdvertSummaryPageDTO();
-        final GrantAdvert grantAdvert = grantAdvertService.getAdvertById(advertId);
         final List<AdvertDefinitionSection> advertDefinitionSections = definition.getSections();
         final List<AdvertSummaryPageDTO.AdvertSummaryPageSectionDTO> sections =
                 mergeDefinitionAndQuestionResponseForSummaryPage(advertDefinitionSections,
@@ -86,6 +100,7 @@ public class PagesAdvertService {
         advertSummaryPageDTO.setAdvertName(grantAdvert.getGrantAdvertName());
         advertSummaryPageDTO.setSections(sections);
         advertSummaryPageDTO.setStatus(grantAdvert.getStatus());
+        advertSummaryPageDTO.setPublishFailed(grantAdvert.isPublishFailed());
         advertSummaryPageDTO.setOpeningDate(grantAdvert.getOpeningDate());
         advertSummaryPageDTO.setClosingDate(grantAdvert.getClosingDate());
 
@@ -189,8 +204,11 @@ public class PagesAdvertService {
     }
 
     public AdvertPreviewPageDto buildAdvertPreview(UUID grantAdvertId) {
+        return grantAdvertService.getAdvertView(grantAdvertId, "preview", this::buildAdvertPreviewPage);
+    }
+
+    private AdvertPreviewPageDto buildAdvertPreviewPage(GrantAdvert grantAdvert) {
 
-        final GrantAdvert grantAdvert = grantAdvertService.getAdvertById(grantAdvertId);
         final GrantAdvertResponse response = grantAdvert.getResponse();
 
         // quick check, if the response is null, immediately return with just advert name
@@ -0,0 +1,33 @@
+package gov.cabinetoffice.gap.adminbackend.utils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Reads a query a page at a time in id order, each page starting after the last id of the
+ * page before, so exports can stream every row without holding them all in memory or
+ * paying for an OFFSET that grows with each page.
+ */
+public final class KeysetPages {
+
+    // postgres sorts the nil UUID before every other UUID
+    public static final UUID FIRST_ID = new UUID(0L, 0L);
+
+    private KeysetPages() {
+    }
+
+    /**
+     * Streams every row returned by {@code findPageAfter}, which is given the id to start
+     * after and must order its rows by that id. The first page is read straight away and
+     * each later one only once the stream reaches it.
+     */
+    public static <T> Stream<T> stream(Function<UUID, List<T>> findPageAfter, Function<T, String> idOf) {
+        return Stream
+                .iterate(findPageAfter.apply(FIRST_ID), page -> !page.isEmpty(),
+                        page -> findPageAfter.apply(UUID.fromString(idOf.apply(page.get(page.size() - 1)))))
+                .flatMap(List::stream);
+    }
+
+}
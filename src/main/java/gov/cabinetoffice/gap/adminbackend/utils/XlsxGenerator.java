@@ -4,16 +4,29 @@ import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 public final class XlsxGenerator {
 
     private static final String SHEET_NAME = "Sheet1";
 
+    // number of rows SXSSF keeps in memory before flushing them to a temp file
+    private static final int ROW_ACCESS_WINDOW_SIZE = 100;
+
+    // number of data rows used to estimate column widths in streaming mode
+    private static final int COLUMN_WIDTH_SAMPLE_SIZE = 100;
+
+    private static final int MAX_COLUMN_WIDTH_IN_CHARS = 100;
+
     private XlsxGenerator() {
     }
 
@@ -29,6 +42,64 @@ public final class XlsxGenerator {
         }
     }
 
+    public static void writeResource(List<String> headers, Stream<List<String>> data, OutputStream out) {
+        writeResource(headers, data.iterator(), out);
+    }
+
+    /**
+     * Streaming alternative to {@link #createResource(List, List)}. Rows are pulled from
+     * the iterator and flushed to disk as they're written, so only a small window of
+     * the sheet is ever held in memory. Column widths are estimated from the headers and
+     * the first rows rather than auto-sized across the whole sheet. The output stream is
+     * not closed.
+     */
+    public static void writeResource(List<String> headers, Iterator<List<String>> data, OutputStream out) {
+        if (headers == null || headers.isEmpty()) {
+            throw new IllegalArgumentException("Headers cannot be null or empty");
+        }
+
+        final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try (workbook) {
+            final SXSSFSheet sheet = workbook.createSheet(SHEET_NAME);
+            final int[] columnWidths = new int[headers.size()];
+
+            writeRow(sheet.createRow(0), headers, columnWidths);
+
+            int rowIndex = 1;
+            while (data.hasNext()) {
+                final List<String> rowData = data.next();
+                final boolean isSampledRow = rowIndex <= COLUMN_WIDTH_SAMPLE_SIZE;
+                writeRow(sheet.createRow(rowIndex), rowData, isSampledRow ? columnWidths : null);
+                rowIndex++;
+            }
+
+            for (int col = 0; col < columnWidths.length; col++) {
+                sheet.setColumnWidth(col, (Math.min(columnWidths[col], MAX_COLUMN_WIDTH_IN_CHARS) + 2) * 256);
+            }
+
+            workbook.write(out);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to generate stream for XlsxGenerator:" + e.getMessage());
+        }
+        finally {
+            // removes the temp files backing the flushed rows
+            workbook.dispose();
+        }
+    }
+
+    private static void writeRow(Row row, List<String> rowData, int[] columnWidths) {
+        for (int col = 0; col < rowData.size(); col++) {
+            final String value = rowData.get(col);
+            row.createCell(col).setCellValue(value);
+
+            if (columnWidths != null && col < columnWidths.length && value != null) {
+                columnWidths[col] = Math.max(columnWidths[col], value.length());
+            }
+        }
+    }
+
     static Workbook createWorkbook(List<String> headers, List<List<String>> data) {
         if (headers == null || headers.isEmpty()) {
             throw new IllegalArgumentException("Headers cannot be null or empty");
@@ -0,0 +1,9 @@
+ALTER TABLE public.spotlight_batch ADD COLUMN IF NOT EXISTS submission_count int4 NOT NULL DEFAULT 0;
+
+UPDATE public.spotlight_batch b
+SET submission_count = (
+    SELECT COUNT(*) FROM public.spotlight_batch_submission s WHERE s.spotlight_batch_id = b.id
+);
+
+CREATE INDEX IF NOT EXISTS spotlight_batch_status_submission_count_last_send_attempt_idx
+ON public.spotlight_batch (status, submission_count, last_send_attempt);
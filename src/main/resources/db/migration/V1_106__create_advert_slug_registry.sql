@@ -0,0 +1,26 @@
+CREATE TABLE IF NOT EXISTS public.advert_slug
+(
+    slug character varying(255) NOT NULL,
+    base_slug character varying(255) NOT NULL,
+    suffix int4 NOT NULL,
+    grant_advert_id uuid,
+    created timestamp without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT advert_slug_pkey PRIMARY KEY (slug),
+    CONSTRAINT advert_slug_grant_advert_id_fkey FOREIGN KEY (grant_advert_id)
+        REFERENCES public.grant_advert (grant_advert_id) ON DELETE SET NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS advert_slug_base_slug_suffix_idx ON public.advert_slug (base_slug, suffix);
+
+-- seed the registry with the slugs still recorded against adverts, whatever their status. Only
+-- slugs ending in -<number> can clash with a generated one. Labels Contentful has for deleted
+-- adverts, or for adverts whose slug was cleared on unpublish, aren't known here and are caught
+-- by the Contentful check made before an advert's label is written
+INSERT INTO public.advert_slug (slug, base_slug, suffix, grant_advert_id)
+SELECT contentful_slug,
+       regexp_replace(contentful_slug, '-\d+$', ''),
+       CAST(substring(contentful_slug FROM '-(\d+)$') AS int4),
+       grant_advert_id
+FROM public.grant_advert
+WHERE contentful_slug ~ '-\d+$'
+ON CONFLICT DO NOTHING;
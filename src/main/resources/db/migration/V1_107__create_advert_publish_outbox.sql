@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS public.advert_publish_outbox
+(
+    id uuid NOT NULL,
+    grant_advert_id uuid NOT NULL,
+    action character varying(255) NOT NULL,
+    status character varying(255) NOT NULL DEFAULT 'PENDING',
+    attempts int4 NOT NULL DEFAULT 0,
+    next_attempt_at timestamp without time zone NOT NULL DEFAULT now(),
+    last_error text,
+    created timestamp without time zone NOT NULL DEFAULT now(),
+    last_updated timestamp without time zone,
+    CONSTRAINT advert_publish_outbox_pkey PRIMARY KEY (id),
+    CONSTRAINT advert_publish_outbox_grant_advert_id_fkey FOREIGN KEY (grant_advert_id)
+        REFERENCES public.grant_advert (grant_advert_id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS advert_publish_outbox_pending_idx
+ON public.advert_publish_outbox (grant_advert_id, created) WHERE status = 'PENDING';
@@ -0,0 +1 @@
+ALTER TABLE public.grant_advert ADD COLUMN IF NOT EXISTS revision int8 NOT NULL DEFAULT 0;
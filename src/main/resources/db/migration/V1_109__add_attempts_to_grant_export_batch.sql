@@ -0,0 +1 @@
+ALTER TABLE public.grant_export_batch ADD COLUMN IF NOT EXISTS attempts int4 NOT NULL DEFAULT 0;
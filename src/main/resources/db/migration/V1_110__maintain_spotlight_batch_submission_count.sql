@@ -0,0 +1,28 @@
+-- keeps submission_count in step with spotlight_batch_submission however rows are added or
+-- removed, including the cascades when a submission or its mandatory questions are deleted
+CREATE OR REPLACE FUNCTION public.spotlight_batch_submission_count_trg()
+RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE public.spotlight_batch SET submission_count = submission_count - 1
+        WHERE id = OLD.spotlight_batch_id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE public.spotlight_batch SET submission_count = submission_count + 1
+        WHERE id = NEW.spotlight_batch_id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS spotlight_batch_submission_count ON public.spotlight_batch_submission;
+
+CREATE TRIGGER spotlight_batch_submission_count
+AFTER INSERT OR DELETE OR UPDATE OF spotlight_batch_id ON public.spotlight_batch_submission
+FOR EACH ROW EXECUTE FUNCTION public.spotlight_batch_submission_count_trg();
+
+-- counts may have drifted through deletes since V1_105
+UPDATE public.spotlight_batch b
+SET submission_count = (
+    SELECT COUNT(*) FROM public.spotlight_batch_submission s WHERE s.spotlight_batch_id = b.id
+);
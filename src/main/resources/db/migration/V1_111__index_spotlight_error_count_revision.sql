@@ -0,0 +1,6 @@
+-- back the MAX lookups that read the spotlight error counts revision on every scheme page view
+CREATE INDEX IF NOT EXISTS spotlight_batch_last_send_attempt_idx
+ON public.spotlight_batch (last_send_attempt);
+
+CREATE INDEX IF NOT EXISTS spotlight_submission_grant_scheme_last_updated_idx
+ON public.spotlight_submission (grant_scheme, last_updated);
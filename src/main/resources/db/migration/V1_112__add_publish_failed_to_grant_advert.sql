@@ -0,0 +1,2 @@
+-- set when an advert's publish or unpublish couldn't be sent to Contentful after every retry
+ALTER TABLE public.grant_advert ADD COLUMN IF NOT EXISTS publish_failed boolean NOT NULL DEFAULT false;
@@ -6,10 +6,10 @@ import gov.cabinetoffice.gap.adminbackend.dtos.errors.GenericErrorDTO;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
 import gov.cabinetoffice.gap.adminbackend.mappers.ValidationErrorMapperImpl;
 import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
+import gov.cabinetoffice.gap.adminbackend.security.AdminRolesValidationCache;
 import gov.cabinetoffice.gap.adminbackend.security.AuthManager;
 import gov.cabinetoffice.gap.adminbackend.security.WebSecurityConfig;
 import gov.cabinetoffice.gap.adminbackend.services.JwtService;
-import gov.cabinetoffice.gap.adminbackend.services.UserService;
 import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,7 +51,7 @@ class LoginControllerTest {
     private JwtService jwtService;
 
     @MockBean
-    private UserService userService;
+    private AdminRolesValidationCache adminRolesValidationCache;
 
     @Resource
     private WebApplicationContext context;
@@ -1,7 +1,7 @@
 package gov.cabinetoffice.gap.adminbackend.controllers;
 
+import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.mappers.ValidationErrorMapperImpl;
-import gov.cabinetoffice.gap.adminbackend.services.FileService;
 import gov.cabinetoffice.gap.adminbackend.services.GrantMandatoryQuestionService;
 import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
 import org.junit.jupiter.api.Nested;
@@ -12,19 +12,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 import static gov.cabinetoffice.gap.adminbackend.controllers.SubmissionsController.EXPORT_CONTENT_TYPE;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -39,9 +38,6 @@ class MandatoryQuestionsControllerTest {
     @MockBean
     private GrantMandatoryQuestionService grantMandatoryQuestionService;
 
-    @MockBean
-    private FileService fileService;
-
     @MockBean
     private SubmissionsService submissionsService;
 
@@ -79,40 +75,60 @@ class MandatoryQuestionsControllerTest {
         void exportDueDiligenceDataHappyPathTest() throws Exception {
             doReturn("test_file_name").when(grantMandatoryQuestionService).generateExportFileName(SCHEME_ID, null);
             final byte[] data = exampleFile.getInputStream().readAllBytes();
-            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            outputStream.write(data);
-            final InputStreamResource inputStream = new InputStreamResource(
-                    new ByteArrayInputStream(outputStream.toByteArray()));
+            doAnswer(invocation -> {
+                invocation.getArgument(2, OutputStream.class).write(data);
+                return null;
+            }).when(grantMandatoryQuestionService).writeDueDiligenceData(eq(SCHEME_ID), eq(true),
+                    any(OutputStream.class));
 
-            when(fileService.createTemporaryFile(outputStream, "test_file_name")).thenReturn(inputStream);
-            when(grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, true)).thenReturn(outputStream);
+            final MvcResult result = mockMvc
+                    .perform(get("/mandatory-questions/scheme/" + SCHEME_ID + "/due-diligence?isInternal=true"))
+                    .andExpect(request().asyncStarted()).andReturn();
 
-            mockMvc.perform(get("/mandatory-questions/scheme/" + SCHEME_ID + "/due-diligence?isInternal=true"))
-                    .andExpect(status().isOk())
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
                     .andExpect(
                             header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"test_file_name\""))
                     .andExpect(header().string(HttpHeaders.CONTENT_TYPE, EXPORT_CONTENT_TYPE))
-                    .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(data.length)))
                     .andExpect(content().bytes(data));
+
+            verify(grantMandatoryQuestionService).verifyDueDiligenceExportAccess(SCHEME_ID);
+            verify(grantMandatoryQuestionService).verifyDueDiligenceExportData(SCHEME_ID, true);
+            verify(submissionsService).updateLastRequiredChecksExportBySchemeId(SCHEME_ID);
         }
 
         @Test
         void exportDueDiligenceDataWrongAdminTest() throws Exception {
-            when(grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, false)).thenThrow(
-                    new AccessDeniedException("Admin 1 is unable to access mandatory questions with scheme id 1"));
+            doThrow(new AccessDeniedException("Admin 1 is unable to access mandatory questions with scheme id 1"))
+                    .when(grantMandatoryQuestionService).verifyDueDiligenceExportAccess(SCHEME_ID);
 
             mockMvc.perform(get("/mandatory-questions/scheme/" + SCHEME_ID + "/due-diligence?isInternal=false"))
                     .andExpect(status().isForbidden());
+            verify(grantMandatoryQuestionService, never()).writeDueDiligenceData(anyInt(), anyBoolean(), any());
         }
 
         @Test
-        void exportDueDiligenceDataGenericErrorTest() throws Exception {
-            when(grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, false)).thenThrow(new RuntimeException());
+        void exportDueDiligenceDataIncompleteDataTest() throws Exception {
+            doThrow(new SpotlightExportException("1 mandatory questions are missing mandatory data"))
+                    .when(grantMandatoryQuestionService).verifyDueDiligenceExportData(SCHEME_ID, false);
 
             mockMvc.perform(get("/mandatory-questions/scheme/" + SCHEME_ID + "/due-diligence?isInternal=false"))
                     .andExpect(status().isInternalServerError());
+            verify(grantMandatoryQuestionService, never()).writeDueDiligenceData(anyInt(), anyBoolean(), any());
+        }
+
+        @Test
+        void exportDueDiligenceDataGenericErrorTest() throws Exception {
+            doThrow(new RuntimeException()).when(grantMandatoryQuestionService).writeDueDiligenceData(eq(SCHEME_ID),
+                    eq(false), any(OutputStream.class));
+
+            final MvcResult result = mockMvc
+                    .perform(get("/mandatory-questions/scheme/" + SCHEME_ID + "/due-diligence?isInternal=false"))
+                    .andExpect(request().asyncStarted()).andReturn();
+
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
+            verify(submissionsService, never()).updateLastRequiredChecksExportBySchemeId(SCHEME_ID);
         }
 
     }
 
-}
\ No newline at end of file
+}
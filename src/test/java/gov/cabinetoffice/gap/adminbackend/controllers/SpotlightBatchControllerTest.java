@@ -28,6 +28,9 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -189,7 +192,6 @@ public class SpotlightBatchControllerTest {
             final UUID spotlightSubmissionId = UUID.randomUUID();
             final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder().id(spotlightSubmissionId)
                     .build();
-            final SpotlightBatch spotlightBatch = SpotlightBatch.builder().id(spotlightBatchId).build();
             final SpotlightBatch spotlightBatchWithSpotlightSubmission = SpotlightBatch.builder().id(spotlightBatchId)
                     .spotlightSubmissions(List.of(spotlightSubmission)).build();
             final SpotlightBatchDto expectedResult = SpotlightBatchDto.builder().id(spotlightBatchId).build();
@@ -197,7 +199,7 @@ public class SpotlightBatchControllerTest {
             when(mockSpotlightSubmissionService.getSpotlightSubmissionById(spotlightSubmissionId))
                     .thenReturn(Optional.of(spotlightSubmission));
             when(mockSpotlightBatchService.addSpotlightSubmissionToSpotlightBatch(spotlightSubmission,
-                    spotlightBatchId)).thenReturn(spotlightBatch);
+                    spotlightBatchId)).thenReturn(spotlightBatchId);
 
             when(mockSpotlightBatchService.getSpotlightBatchById(spotlightBatchId))
                     .thenReturn(spotlightBatchWithSpotlightSubmission);
@@ -236,6 +238,49 @@ public class SpotlightBatchControllerTest {
 
     }
 
+    @Nested
+    class addSpotlightSubmissionToOpenSpotlightBatch {
+
+        @Test
+        void successfullyAddSpotlightSubmissionToOpenSpotlightBatch() throws Exception {
+            final UUID spotlightBatchId = UUID.randomUUID();
+            final UUID spotlightSubmissionId = UUID.randomUUID();
+            final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder().id(spotlightSubmissionId)
+                    .build();
+            final SpotlightBatch spotlightBatch = SpotlightBatch.builder().id(spotlightBatchId)
+                    .spotlightSubmissions(List.of(spotlightSubmission)).build();
+            final SpotlightBatchDto expectedResult = SpotlightBatchDto.builder().id(spotlightBatchId).build();
+
+            when(mockSpotlightSubmissionService.getSpotlightSubmission(spotlightSubmissionId))
+                    .thenReturn(spotlightSubmission);
+            when(mockSpotlightBatchService.addSpotlightSubmissionToOpenSpotlightBatch(spotlightSubmission, 150))
+                    .thenReturn(spotlightBatchId);
+            when(mockSpotlightBatchService.getSpotlightBatchById(spotlightBatchId)).thenReturn(spotlightBatch);
+            when(mockSpotlightBatchMapper.spotlightBatchToGetSpotlightBatchDto(spotlightBatch))
+                    .thenReturn(expectedResult);
+
+            mockMvc.perform(post("/spotlight-batch/queued/add-spotlight-submission/{spotlightSubmissionId}",
+                    spotlightSubmissionId).param("batchSizeLimit", "150")
+                    .header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER)).andExpect(status().isOk())
+                    .andExpect(content().string(containsString("id\":\"" + spotlightBatchId)));
+        }
+
+        @Test
+        void notFoundAddSpotlightSubmissionToOpenSpotlightBatch() throws Exception {
+            final UUID spotlightSubmissionId = UUID.randomUUID();
+
+            when(mockSpotlightSubmissionService.getSpotlightSubmission(spotlightSubmissionId))
+                    .thenThrow(NotFoundException.class);
+
+            mockMvc.perform(post("/spotlight-batch/queued/add-spotlight-submission/{spotlightSubmissionId}",
+                    spotlightSubmissionId).header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER))
+                    .andExpect(status().isNotFound());
+
+            verify(mockSpotlightBatchService, never()).addSpotlightSubmissionToOpenSpotlightBatch(any(), anyInt());
+        }
+
+    }
+
     @Nested
     class sendQueuedBatchesAndProcessSpotlightResponse {
 
@@ -1,16 +1,15 @@
 package gov.cabinetoffice.gap.adminbackend.controllers;
 
 import gov.cabinetoffice.gap.adminbackend.config.LambdasInterceptor;
-import gov.cabinetoffice.gap.adminbackend.constants.SpotlightExports;
 import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.spotlightSubmissions.SpotlightSubmissionDto;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightSubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
+import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.mappers.SpotlightSubmissionMapper;
 import gov.cabinetoffice.gap.adminbackend.mappers.ValidationErrorMapper;
 import gov.cabinetoffice.gap.adminbackend.security.interceptors.AuthorizationHeaderInterceptor;
-import gov.cabinetoffice.gap.adminbackend.services.FileService;
 import gov.cabinetoffice.gap.adminbackend.services.SchemeService;
 import gov.cabinetoffice.gap.adminbackend.services.SpotlightSubmissionService;
 import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
@@ -21,13 +20,13 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.UUID;
 import java.util.zip.ZipEntry;
@@ -35,6 +34,7 @@ import java.util.zip.ZipOutputStream;
 
 import static gov.cabinetoffice.gap.adminbackend.controllers.SubmissionsController.EXPORT_CONTENT_TYPE;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -68,9 +68,6 @@ class SpotlightSubmissionControllerTest {
     @MockBean
     private SchemeService schemeService;
 
-    @MockBean
-    private FileService fileService;
-
     @MockBean
     private SubmissionsService submissionsService;
 
@@ -178,25 +175,60 @@ class SpotlightSubmissionControllerTest {
             final SchemeDTO scheme = SchemeDTO.builder().schemeId(SCHEME_ID).build();
 
             when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenReturn(scheme);
-            when(mockSpotlightSubmissionService.generateDownloadFile(scheme, false)).thenReturn(zipStream);
+            doAnswer(invocation -> {
+                invocation.getArgument(2, OutputStream.class).write(zipStream.toByteArray());
+                return null;
+            }).when(mockSpotlightSubmissionService).writeDownloadFile(eq(scheme), eq(false), any(OutputStream.class));
 
-            when(fileService.createTemporaryFile(zipStream, SpotlightExports.SPOTLIGHT_CHECKS_FILENAME))
-                    .thenReturn(new InputStreamResource(new ByteArrayInputStream(zipStream.toByteArray())));
+            final MvcResult result = mockMvc
+                    .perform(get("/spotlight-submissions/scheme/{schemeId}/download?onlyValidationErrors=false",
+                            SCHEME_ID).header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER))
+                    .andExpect(request().asyncStarted()).andReturn();
 
-            mockMvc.perform(
-                    get("/spotlight-submissions/scheme/{schemeId}/download?onlyValidationErrors=false", SCHEME_ID)
-                            .header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER))
-                    .andExpect(status().isOk())
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
                     .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment; filename=\"spotlight_checks.zip\""))
                     .andExpect(header().string(HttpHeaders.CONTENT_TYPE, EXPORT_CONTENT_TYPE))
-                    .andExpect(
-                            header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipStream.toByteArray().length)))
                     .andExpect(content().bytes(zipStream.toByteArray()));
 
-            verify(mockSpotlightSubmissionService, times(1)).generateDownloadFile(scheme, false);
+            verify(mockSpotlightSubmissionService).verifyDownloadFileData(SCHEME_ID, false);
+            verify(mockSpotlightSubmissionService, times(1)).writeDownloadFile(eq(scheme), eq(false),
+                    any(OutputStream.class));
+            verify(submissionsService, times(1)).updateLastRequiredChecksExportBySchemeId(SCHEME_ID);
+        }
+
+        @Test
+        void downloadDueDiligenceChecks_DoesNotUpdateExportDateWhenWritingFails() throws Exception {
+            final SchemeDTO scheme = SchemeDTO.builder().schemeId(SCHEME_ID).build();
+
+            when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenReturn(scheme);
+            doThrow(new RuntimeException()).when(mockSpotlightSubmissionService).writeDownloadFile(eq(scheme),
+                    eq(true), any(OutputStream.class));
+
+            final MvcResult result = mockMvc
+                    .perform(get("/spotlight-submissions/scheme/{schemeId}/download?onlyValidationErrors=true",
+                            SCHEME_ID).header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER))
+                    .andExpect(request().asyncStarted()).andReturn();
+
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
+            verify(submissionsService, never()).updateLastRequiredChecksExportBySchemeId(SCHEME_ID);
+        }
+
+        @Test
+        void downloadDueDiligenceChecks_ReturnsErrorBeforeStreamingWhenDataIsIncomplete() throws Exception {
+            final SchemeDTO scheme = SchemeDTO.builder().schemeId(SCHEME_ID).build();
+
+            when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenReturn(scheme);
+            doThrow(new SpotlightExportException("1 spotlight submissions are missing mandatory data"))
+                    .when(mockSpotlightSubmissionService).verifyDownloadFileData(SCHEME_ID, false);
+
+            mockMvc.perform(get("/spotlight-submissions/scheme/{schemeId}/download?onlyValidationErrors=false",
+                    SCHEME_ID).header(HttpHeaders.AUTHORIZATION, LAMBDA_AUTH_HEADER))
+                    .andExpect(status().isInternalServerError());
+
+            verify(mockSpotlightSubmissionService, never()).writeDownloadFile(any(), anyBoolean(), any());
         }
 
     }
 
-}
\ No newline at end of file
+}
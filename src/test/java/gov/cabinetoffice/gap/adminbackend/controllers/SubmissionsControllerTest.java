@@ -1,7 +1,6 @@
 package gov.cabinetoffice.gap.adminbackend.controllers;
 
 import gov.cabinetoffice.gap.adminbackend.config.LambdasInterceptor;
-import gov.cabinetoffice.gap.adminbackend.constants.SpotlightExports;
 import gov.cabinetoffice.gap.adminbackend.dtos.S3ObjectKeyDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.UrlDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.LambdaSubmissionDefinition;
@@ -19,13 +18,10 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
@@ -33,8 +29,8 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -43,6 +39,7 @@ import java.util.zip.ZipOutputStream;
 
 import static gov.cabinetoffice.gap.adminbackend.controllers.SubmissionsController.EXPORT_CONTENT_TYPE;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -69,9 +66,6 @@ class SubmissionsControllerTest {
     @MockBean
     private SchemeService schemeService;
 
-    @MockBean
-    private FileService fileService;
-
     @MockBean
     @Qualifier("submissionExportAndScheduledPublishingLambdasInterceptor")
     private AuthorizationHeaderInterceptor mockAuthorizationHeaderInterceptor;
@@ -82,9 +76,6 @@ class SubmissionsControllerTest {
     @SpyBean
     private ValidationErrorMapperImpl validationErrorMapper;
 
-    @Value("classpath:spotlight/XLSX_Spotlight_Template.xlsx")
-    Resource exampleFile;
-
     private final String LAMBDA_AUTH_HEADER = "topSecretKey";
 
     @Nested
@@ -100,56 +91,64 @@ class SubmissionsControllerTest {
                 zipOut.closeEntry();
             }
 
-            when(fileService.createTemporaryFile(zipStream, SpotlightExports.REQUIRED_CHECKS_FILENAME))
-                    .thenReturn(new InputStreamResource(new ByteArrayInputStream(zipStream.toByteArray()))
-
-                    );
-            when(submissionsService.exportSpotlightChecks(1)).thenReturn(zipStream);
+            doAnswer(invocation -> {
+                invocation.getArgument(1, OutputStream.class).write(zipStream.toByteArray());
+                return null;
+            }).when(submissionsService).exportSpotlightChecks(eq(1), any(OutputStream.class));
             doNothing().when(submissionsService).updateSubmissionLastRequiredChecksExport(1);
 
-            mockMvc.perform(get("/submissions/spotlight-export/" + 1)).andExpect(status().isOk())
+            final MvcResult result = mockMvc.perform(get("/submissions/spotlight-export/" + 1))
+                    .andExpect(request().asyncStarted()).andReturn();
+
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
                     .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
                             "attachment; filename=\"required_checks.zip\""))
                     .andExpect(header().string(HttpHeaders.CONTENT_TYPE, EXPORT_CONTENT_TYPE))
-                    .andExpect(
-                            header().string(HttpHeaders.CONTENT_LENGTH, String.valueOf(zipStream.toByteArray().length)))
                     .andExpect(content().bytes(zipStream.toByteArray()));
+
+            verify(submissionsService).verifySpotlightExportAccess(1);
+            verify(submissionsService).updateSubmissionLastRequiredChecksExport(1);
         }
 
         @Test
         void exportSpotlightChecksApplicationNotFoundTest() throws Exception {
-            when(submissionsService.exportSpotlightChecks(1))
-                    .thenThrow(new ApplicationFormException("Application form not found with id 1"));
+            doThrow(new ApplicationFormException("Application form not found with id 1")).when(submissionsService)
+                    .verifySpotlightExportAccess(1);
 
             mockMvc.perform(get("/submissions/spotlight-export/" + 1)).andExpect(status().isInternalServerError());
+            verify(submissionsService, never()).exportSpotlightChecks(anyInt(), any());
         }
 
         @Test
         void exportSpotlightChecksWrongAdminTest() throws Exception {
-            when(submissionsService.exportSpotlightChecks(1))
-                    .thenThrow(new AccessDeniedException("Admin 1 is unable to access application with id 1"));
+            doThrow(new AccessDeniedException("Admin 1 is unable to access application with id 1"))
+                    .when(submissionsService).verifySpotlightExportAccess(1);
 
             mockMvc.perform(get("/submissions/spotlight-export/" + 1)).andExpect(status().isForbidden());
+            verify(submissionsService, never()).exportSpotlightChecks(anyInt(), any());
         }
 
         @Test
         void exportSpotlightChecksGenericErrorTest() throws Exception {
-            when(submissionsService.exportSpotlightChecks(1)).thenThrow(new RuntimeException());
+            doThrow(new RuntimeException()).when(submissionsService).exportSpotlightChecks(eq(1),
+                    any(OutputStream.class));
 
-            mockMvc.perform(get("/submissions/spotlight-export/" + 1)).andExpect(status().isInternalServerError());
+            final MvcResult result = mockMvc.perform(get("/submissions/spotlight-export/" + 1))
+                    .andExpect(request().asyncStarted()).andReturn();
+
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
+            verify(submissionsService, never()).updateSubmissionLastRequiredChecksExport(1);
         }
 
         @Test
         void exportSpotlightChecksUpdateApplicationSpotlightExportFailsTest() throws Exception {
-            final byte[] data = exampleFile.getInputStream().readAllBytes();
-            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            outputStream.write(data);
-            when(submissionsService.exportSpotlightChecks(1)).thenReturn(outputStream);
-            when(submissionsService.generateExportFileName(1, 1)).thenReturn("test_file_name");
             doThrow(new RuntimeException("forced service error")).when(submissionsService)
                     .updateSubmissionLastRequiredChecksExport(1);
 
-            mockMvc.perform(get("/submissions/spotlight-export/" + 1)).andExpect(status().isInternalServerError());
+            final MvcResult result = mockMvc.perform(get("/submissions/spotlight-export/" + 1))
+                    .andExpect(request().asyncStarted()).andReturn();
+
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isInternalServerError());
         }
 
     }
@@ -159,14 +158,16 @@ class SubmissionsControllerTest {
 
         @Test
         void exportAllSubmissions_HappyPathTest() throws Exception {
-            doNothing().when(submissionsService).triggerSubmissionsExport(1);
+            final UUID exportBatchId = UUID.randomUUID();
+            when(submissionsService.requestSubmissionsExport(1)).thenReturn(exportBatchId);
 
-            mockMvc.perform(post("/submissions/export-all/" + 1)).andExpect(status().isOk());
+            mockMvc.perform(post("/submissions/export-all/" + 1)).andExpect(status().isOk())
+                    .andExpect(jsonPath("$.exportBatchId").value(exportBatchId.toString()));
         }
 
         @Test
         void exportAllSubmissions_GenericErrorTest() throws Exception {
-            doThrow(new RuntimeException("Error message")).when(submissionsService).triggerSubmissionsExport(1);
+            when(submissionsService.requestSubmissionsExport(1)).thenThrow(new RuntimeException("Error message"));
 
             mockMvc.perform(post("/submissions/export-all/" + 1)).andExpect(status().isInternalServerError());
         }
@@ -191,7 +192,16 @@ class SubmissionsControllerTest {
             when(submissionsService.getExportStatus(1)).thenReturn(GrantExportStatus.COMPLETE);
 
             mockMvc.perform(get("/submissions/status/1")).andExpect(status().isOk())
-                    .andExpect(content().string(GrantExportStatus.COMPLETE.toString()));
+                    .andExpect(content().string(GrantExportStatus.COMPLETE.toString()))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"COMPLETE\""));
+        }
+
+        @Test
+        void getExportStatus_UnchangedSinceLastPoll() throws Exception {
+            when(submissionsService.getExportStatus(1)).thenReturn(GrantExportStatus.PROCESSING);
+
+            mockMvc.perform(get("/submissions/status/1").header(HttpHeaders.IF_NONE_MATCH, "\"PROCESSING\""))
+                    .andExpect(status().isNotModified()).andExpect(content().string(""));
         }
 
     }
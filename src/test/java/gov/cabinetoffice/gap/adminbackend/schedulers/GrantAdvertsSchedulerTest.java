@@ -1,27 +1,21 @@
 package gov.cabinetoffice.gap.adminbackend.schedulers;
 
-import com.amazonaws.services.sqs.AmazonSQS;
-import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
-import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
-import gov.cabinetoffice.gap.adminbackend.config.GrantAdvertsSchedulerConfigProperties;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GrantAdvertSchedulerView;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSchedulerAction;
+import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdvertSchedulerViewRepository;
+import gov.cabinetoffice.gap.adminbackend.services.GrantAdvertService;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 
-import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,68 +25,42 @@ public class GrantAdvertsSchedulerTest {
     private GrantAdvertSchedulerViewRepository advertSchedulerRepository;
 
     @Mock
-    private AmazonSQS amazonSQS;
-
-    @Spy
-    private GrantAdvertsSchedulerConfigProperties advertsSchedulerConfigProperties = GrantAdvertsSchedulerConfigProperties
-            .builder().grantAdvertSchedulerQueue("test-sqs-queue.com").build();
+    private GrantAdvertService grantAdvertService;
 
     @InjectMocks
     private GrantAdvertsScheduler grantAdvertsScheduler;
 
     @Nested
-    class grantAdvertsSchedulerQueue {
+    class getGrantAdvertsToBeActioned {
 
         @Test
-        void successfullyScheduleAdverts_singleBatch() {
-            UUID advertId = UUID.randomUUID();
-            GrantAdvertSchedulerView scheduleView = new GrantAdvertSchedulerView(advertId,
-                    GrantAdvertSchedulerAction.PUBLISH);
-            List<GrantAdvertSchedulerView> scheduleViewList = Collections.singletonList(scheduleView);
+        void successfullyActionsAdverts() {
+            final UUID advertToPublish = UUID.randomUUID();
+            final UUID advertToUnpublish = UUID.randomUUID();
 
-            when(advertSchedulerRepository.findAll()).thenReturn(scheduleViewList);
+            when(advertSchedulerRepository.findAll()).thenReturn(
+                    List.of(new GrantAdvertSchedulerView(advertToPublish, GrantAdvertSchedulerAction.PUBLISH),
+                            new GrantAdvertSchedulerView(advertToUnpublish, GrantAdvertSchedulerAction.UNPUBLISH)));
 
             grantAdvertsScheduler.getGrantAdvertsToBeActioned();
 
-            ArgumentCaptor<SendMessageBatchRequest> argument = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
-            verify(amazonSQS, times(1)).sendMessageBatch(argument.capture());
-
-            SendMessageBatchRequest batchRequest = argument.getValue();
-
-            assertThat(batchRequest.getQueueUrl()).isEqualTo("test-sqs-queue.com");
-
-            SendMessageBatchRequestEntry batchEntry = batchRequest.getEntries().get(0);
-
-            assertThat(argument.getValue().getEntries()).hasSize(1);
-            assertThat(batchEntry.getMessageAttributes().get("grantAdvertId").getStringValue())
-                    .isEqualTo(advertId.toString());
-            assertThat(batchEntry.getMessageAttributes().get("action").getStringValue())
-                    .isEqualTo(GrantAdvertSchedulerAction.PUBLISH.toString());
+            verify(grantAdvertService).publishAdvert(advertToPublish);
+            verify(grantAdvertService).unpublishAdvert(advertToUnpublish);
         }
 
         @Test
-        void successfullyScheduleAdverts_multipleBatchesOf10() {
-            List<GrantAdvertSchedulerView> scheduleViewList = new ArrayList<>();
+        void carriesOnAfterAnAdvertFails() {
+            final UUID failingAdvert = UUID.randomUUID();
+            final UUID advertToPublish = UUID.randomUUID();
 
-            for (int i = 0; i < 15; ++i) {
-                GrantAdvertSchedulerView scheduleView = new GrantAdvertSchedulerView(UUID.randomUUID(),
-                        GrantAdvertSchedulerAction.PUBLISH);
-                scheduleViewList.add(scheduleView);
-            }
-
-            when(advertSchedulerRepository.findAll()).thenReturn(scheduleViewList);
+            when(advertSchedulerRepository.findAll()).thenReturn(
+                    List.of(new GrantAdvertSchedulerView(failingAdvert, GrantAdvertSchedulerAction.PUBLISH),
+                            new GrantAdvertSchedulerView(advertToPublish, GrantAdvertSchedulerAction.PUBLISH)));
+            when(grantAdvertService.publishAdvert(failingAdvert)).thenThrow(NotFoundException.class);
 
             grantAdvertsScheduler.getGrantAdvertsToBeActioned();
 
-            ArgumentCaptor<SendMessageBatchRequest> argument = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
-            verify(amazonSQS, times(2)).sendMessageBatch(argument.capture());
-
-            List<SendMessageBatchRequest> capturedBatchRequests = argument.getAllValues();
-
-            assertThat(capturedBatchRequests).hasSize(2)
-                    .allMatch(batchRequest -> batchRequest.getQueueUrl().equals("test-sqs-queue.com"));
-            assertThat(capturedBatchRequests.get(0).getEntries()).hasSize(10);
-            assertThat(capturedBatchRequests.get(1).getEntries()).hasSize(5);
+            verify(grantAdvertService).publishAdvert(advertToPublish);
         }
 
         @Test
@@ -101,8 +69,7 @@ public class GrantAdvertsSchedulerTest {
 
             grantAdvertsScheduler.getGrantAdvertsToBeActioned();
 
-            verify(amazonSQS, times(0)).sendMessageBatch(any());
-
+            verifyNoInteractions(grantAdvertService);
         }
 
     }
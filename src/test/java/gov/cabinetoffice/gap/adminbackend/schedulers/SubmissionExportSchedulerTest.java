@@ -0,0 +1,58 @@
+package gov.cabinetoffice.gap.adminbackend.schedulers;
+
+import gov.cabinetoffice.gap.adminbackend.enums.GrantExportStatus;
+import gov.cabinetoffice.gap.adminbackend.repositories.GrantExportBatchRepository;
+import gov.cabinetoffice.gap.adminbackend.services.SubmissionsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionExportSchedulerTest {
+
+    @Mock
+    private GrantExportBatchRepository grantExportBatchRepository;
+
+    @Mock
+    private SubmissionsService submissionsService;
+
+    @InjectMocks
+    private SubmissionExportScheduler submissionExportScheduler;
+
+    @Test
+    void resumeRequestedBatches_processesEachRequestedBatch() {
+        final UUID firstBatchId = UUID.randomUUID();
+        final UUID secondBatchId = UUID.randomUUID();
+        when(grantExportBatchRepository.findIdsByStatus(GrantExportStatus.REQUESTED))
+                .thenReturn(List.of(firstBatchId, secondBatchId));
+
+        submissionExportScheduler.resumeRequestedBatches();
+
+        final InOrder inOrder = inOrder(submissionsService);
+        inOrder.verify(submissionsService).failAbandonedExportBatches();
+        inOrder.verify(submissionsService).processExportBatch(firstBatchId);
+        inOrder.verify(submissionsService).processExportBatch(secondBatchId);
+    }
+
+    @Test
+    void resumeRequestedBatches_nothingRequested() {
+        when(grantExportBatchRepository.findIdsByStatus(GrantExportStatus.REQUESTED))
+                .thenReturn(Collections.emptyList());
+
+        submissionExportScheduler.resumeRequestedBatches();
+
+        verify(submissionsService).failAbandonedExportBatches();
+        verify(submissionsService, never()).processExportBatch(any());
+    }
+
+}
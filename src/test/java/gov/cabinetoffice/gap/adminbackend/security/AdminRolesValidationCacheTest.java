@@ -0,0 +1,80 @@
+package gov.cabinetoffice.gap.adminbackend.security;
+
+import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
+import gov.cabinetoffice.gap.adminbackend.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdminRolesValidationCacheTest {
+
+    private @Mock UserService userService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdminRolesValidationCache adminRolesValidationCache;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        adminRolesValidationCache = new AdminRolesValidationCache(userService, meterRegistry, 30, 100);
+    }
+
+    @Test
+    void verifyAdminRoles_OnlyCallsUserServiceOncePerAdmin() {
+        when(userService.verifyAdminRoles("test@example.com", "ADMIN")).thenReturn(Boolean.TRUE);
+
+        assertThat(adminRolesValidationCache.verifyAdminRoles("test@example.com", "ADMIN")).isTrue();
+        assertThat(adminRolesValidationCache.verifyAdminRoles("test@example.com", "ADMIN")).isTrue();
+
+        verify(userService, times(1)).verifyAdminRoles("test@example.com", "ADMIN");
+        assertThat(meterRegistry.get("admin.roles.validation.upstream").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void verifyAdminRoles_CoalescesConcurrentCalls() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        when(userService.verifyAdminRoles("test@example.com", "ADMIN")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Boolean.TRUE;
+        });
+
+        final List<CompletableFuture<Boolean>> futures = IntStream.range(0, 5)
+                .mapToObj(i -> CompletableFuture
+                        .supplyAsync(() -> adminRolesValidationCache.verifyAdminRoles("test@example.com", "ADMIN")))
+                .toList();
+        release.countDown();
+
+        for (CompletableFuture<Boolean> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        verify(userService, times(1)).verifyAdminRoles("test@example.com", "ADMIN");
+    }
+
+    @Test
+    void verifyAdminRoles_RethrowsAndDoesNotCacheFailures() {
+        when(userService.verifyAdminRoles("test@example.com", "ADMIN"))
+                .thenThrow(new UnauthorizedException("Invalid roles")).thenReturn(Boolean.TRUE);
+
+        assertThrows(UnauthorizedException.class,
+                () -> adminRolesValidationCache.verifyAdminRoles("test@example.com", "ADMIN"));
+        assertThat(adminRolesValidationCache.verifyAdminRoles("test@example.com", "ADMIN")).isTrue();
+
+        verify(userService, times(2)).verifyAdminRoles("test@example.com", "ADMIN");
+    }
+
+}
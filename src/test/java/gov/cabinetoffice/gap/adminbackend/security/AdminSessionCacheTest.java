@@ -0,0 +1,67 @@
+package gov.cabinetoffice.gap.adminbackend.security;
+
+import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdminSessionCacheTest {
+
+    private AdminSessionCache adminSessionCache;
+
+    private final AdminSession adminSession = new AdminSession(1, 1, "Test", "User", "Cabinet Office",
+            "test@example.com", "[FIND, APPLY, ADMIN]", "userSub");
+
+    private final List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    @BeforeEach
+    void setup() {
+        adminSessionCache = new AdminSessionCache(100, 60);
+    }
+
+    @Test
+    void get_ReturnsCachedAuthentication() {
+        adminSessionCache.put("tokenHash", adminSession, authorities, Date.from(Instant.now().plusSeconds(3600)));
+
+        final Optional<Authentication> authentication = adminSessionCache.get("tokenHash");
+
+        assertThat(authentication).isPresent();
+        assertThat(authentication.get().getPrincipal()).isEqualTo(adminSession);
+        assertThat(authentication.get().getAuthorities()).containsExactlyElementsOf(authorities);
+    }
+
+    @Test
+    void get_ReturnsEmpty_WhenTokenHasExpired() {
+        adminSessionCache.put("tokenHash", adminSession, authorities, Date.from(Instant.now().minusSeconds(1)));
+
+        assertThat(adminSessionCache.get("tokenHash")).isEmpty();
+    }
+
+    @Test
+    void get_ReturnsEmpty_WhenNothingCached() {
+        assertThat(adminSessionCache.get("tokenHash")).isEmpty();
+    }
+
+    @Test
+    void invalidateUser_RemovesOnlyThatUsersSessions() {
+        final AdminSession otherAdminSession = new AdminSession(2, 1, "Other", "User", "Cabinet Office",
+                "other@example.com", "[FIND, APPLY, ADMIN]", "otherUserSub");
+        final Date expiresAt = Date.from(Instant.now().plusSeconds(3600));
+        adminSessionCache.put("tokenHash", adminSession, authorities, expiresAt);
+        adminSessionCache.put("otherTokenHash", otherAdminSession, authorities, expiresAt);
+
+        adminSessionCache.invalidateUser("userSub");
+
+        assertThat(adminSessionCache.get("tokenHash")).isEmpty();
+        assertThat(adminSessionCache.get("otherTokenHash")).isPresent();
+    }
+
+}
@@ -4,7 +4,6 @@ import gov.cabinetoffice.gap.adminbackend.config.JwtTokenFilterConfig;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
 import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
 import gov.cabinetoffice.gap.adminbackend.models.JwtPayload;
-import gov.cabinetoffice.gap.adminbackend.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,7 +27,7 @@ class JwtTokenFilterTest {
 
     private JwtTokenFilter jwtTokenFilter;
 
-    private @Mock UserService userService;
+    private @Mock AdminRolesValidationCache adminRolesValidationCache;
 
     private @Mock JwtTokenFilterConfig jwtTokenFilterConfig;
 
@@ -36,7 +35,7 @@ class JwtTokenFilterTest {
     void setup() {
         jwtTokenFilterConfig.oneLoginEnabled = true;
         jwtTokenFilterConfig.validateUserRolesInMiddleware = true;
-        jwtTokenFilter = new JwtTokenFilter(userService, jwtTokenFilterConfig);
+        jwtTokenFilter = new JwtTokenFilter(adminRolesValidationCache, jwtTokenFilterConfig);
     }
 
     @Test
@@ -56,11 +55,11 @@ class JwtTokenFilterTest {
 
         AdminSession adminSession = new AdminSession(1, 1, payload);
         when(authentication.getPrincipal()).thenReturn(adminSession);
-        when(userService.verifyAdminRoles(eq("test@example.com"), eq("ADMIN"))).thenReturn(Boolean.TRUE);
+        when(adminRolesValidationCache.verifyAdminRoles(eq("test@example.com"), eq("ADMIN"))).thenReturn(Boolean.TRUE);
 
         jwtTokenFilter.doFilterInternal(request, response, chain);
         verify(chain, times(1)).doFilter(request, response);
-        verify(userService, times(1)).verifyAdminRoles("test@example.com", "ADMIN");
+        verify(adminRolesValidationCache, times(1)).verifyAdminRoles("test@example.com", "ADMIN");
     }
 
     @Test
@@ -82,7 +81,7 @@ class JwtTokenFilterTest {
 
         AdminSession adminSession = new AdminSession(1, 1, payload);
         when(authentication.getPrincipal()).thenReturn(adminSession);
-        doThrow(UnauthorizedException.class).when(userService).verifyAdminRoles(eq("test@example.com"), eq("ADMIN"));
+        doThrow(UnauthorizedException.class).when(adminRolesValidationCache).verifyAdminRoles(eq("test@example.com"), eq("ADMIN"));
 
         verify(chain, times(0)).doFilter(request, response);
         assertThrows(UnauthorizedException.class, () -> jwtTokenFilter.doFilterInternal(request, response, chain));
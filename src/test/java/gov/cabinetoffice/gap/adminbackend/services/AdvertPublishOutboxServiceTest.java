@@ -0,0 +1,128 @@
+package gov.cabinetoffice.gap.adminbackend.services;
+
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertPublishOutbox;
+import gov.cabinetoffice.gap.adminbackend.enums.AdvertPublishOutboxStatus;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSchedulerAction;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertPublishOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdvertPublishOutboxServiceTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-03-01T10:00:00Z"), ZoneId.of("UTC"));
+
+    @Mock
+    private AdvertPublishOutboxRepository advertPublishOutboxRepository;
+
+    @Mock
+    private GrantAdvertService grantAdvertService;
+
+    private AdvertPublishOutboxService advertPublishOutboxService;
+
+    @BeforeEach
+    void setup() {
+        advertPublishOutboxService = new AdvertPublishOutboxService(advertPublishOutboxRepository, grantAdvertService,
+                clock);
+    }
+
+    private AdvertPublishOutbox message(GrantAdvertSchedulerAction action, int attempts) {
+        return AdvertPublishOutbox.builder().id(UUID.randomUUID()).grantAdvertId(UUID.randomUUID()).action(action)
+                .attempts(attempts).build();
+    }
+
+    @Test
+    void sendPendingMessages_SendsEachMessage_UntilNoneAreReady() {
+        final AdvertPublishOutbox publish = message(GrantAdvertSchedulerAction.PUBLISH, 0);
+        final AdvertPublishOutbox unpublish = message(GrantAdvertSchedulerAction.UNPUBLISH, 0);
+
+        when(advertPublishOutboxRepository.findReadyToSend(anyInt())).thenReturn(List.of(publish), List.of(unpublish),
+                Collections.emptyList());
+
+        advertPublishOutboxService.sendPendingMessages();
+
+        verify(grantAdvertService).sendPublishedAdvertToContentful(publish.getGrantAdvertId(), publish.getId());
+        verify(grantAdvertService).sendUnpublishedAdvertToContentful(unpublish.getGrantAdvertId(), unpublish.getId());
+        verify(advertPublishOutboxRepository).save(publish);
+        verify(advertPublishOutboxRepository).save(unpublish);
+
+        assertThat(publish.getStatus()).isEqualTo(AdvertPublishOutboxStatus.SENT);
+        assertThat(publish.getAttempts()).isEqualTo(1);
+        assertThat(unpublish.getStatus()).isEqualTo(AdvertPublishOutboxStatus.SENT);
+
+        verify(grantAdvertService).setPublishFailed(publish.getGrantAdvertId(), false);
+        verify(grantAdvertService).setPublishFailed(unpublish.getGrantAdvertId(), false);
+    }
+
+    @Test
+    void sendPendingMessages_BacksOffAfterAFailure() {
+        final AdvertPublishOutbox publish = message(GrantAdvertSchedulerAction.PUBLISH, 1);
+
+        when(advertPublishOutboxRepository.findReadyToSend(anyInt())).thenReturn(List.of(publish),
+                Collections.emptyList());
+        doThrow(new RuntimeException("Contentful is down")).when(grantAdvertService)
+                .sendPublishedAdvertToContentful(publish.getGrantAdvertId(), publish.getId());
+
+        advertPublishOutboxService.sendPendingMessages();
+
+        verify(advertPublishOutboxRepository).save(publish);
+
+        assertThat(publish.getStatus()).isEqualTo(AdvertPublishOutboxStatus.PENDING);
+        assertThat(publish.getAttempts()).isEqualTo(2);
+        assertThat(publish.getLastError()).isEqualTo("Contentful is down");
+        assertThat(publish.getNextAttemptAt())
+                .isEqualTo(Instant.now(clock).plus(AdvertPublishOutboxService.RETRY_BACKOFF.multipliedBy(2)));
+
+        verify(grantAdvertService, never()).setPublishFailed(any(), anyBoolean());
+    }
+
+    @Test
+    void sendPendingMessages_GivesUpAfterTheLastAttempt() {
+        final AdvertPublishOutbox unpublish = message(GrantAdvertSchedulerAction.UNPUBLISH,
+                AdvertPublishOutboxService.MAX_ATTEMPTS - 1);
+
+        when(advertPublishOutboxRepository.findReadyToSend(anyInt())).thenReturn(List.of(unpublish),
+                Collections.emptyList());
+        doThrow(RuntimeException.class).when(grantAdvertService)
+                .sendUnpublishedAdvertToContentful(unpublish.getGrantAdvertId(), unpublish.getId());
+
+        advertPublishOutboxService.sendPendingMessages();
+
+        assertThat(unpublish.getStatus()).isEqualTo(AdvertPublishOutboxStatus.FAILED);
+        assertThat(unpublish.getAttempts()).isEqualTo(AdvertPublishOutboxService.MAX_ATTEMPTS);
+
+        verify(grantAdvertService).setPublishFailed(unpublish.getGrantAdvertId(), true);
+    }
+
+    @Test
+    void sendPendingMessages_StillMarksMessageFailed_IfTheAdvertCantBeFlagged() {
+        final AdvertPublishOutbox publish = message(GrantAdvertSchedulerAction.PUBLISH,
+                AdvertPublishOutboxService.MAX_ATTEMPTS - 1);
+
+        when(advertPublishOutboxRepository.findReadyToSend(anyInt())).thenReturn(List.of(publish),
+                Collections.emptyList());
+        doThrow(RuntimeException.class).when(grantAdvertService)
+                .sendPublishedAdvertToContentful(publish.getGrantAdvertId(), publish.getId());
+        doThrow(RuntimeException.class).when(grantAdvertService).setPublishFailed(publish.getGrantAdvertId(), true);
+
+        advertPublishOutboxService.sendPendingMessages();
+
+        verify(advertPublishOutboxRepository).save(publish);
+
+        assertThat(publish.getStatus()).isEqualTo(AdvertPublishOutboxStatus.FAILED);
+    }
+
+}
@@ -1,28 +1,31 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
 import com.amazonaws.services.sqs.AmazonSQS;
-import com.contentful.java.cda.CDAArray;
-import com.contentful.java.cda.CDAClient;
-import com.contentful.java.cda.FetchQuery;
+import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.contentful.java.cma.CMAClient;
 import com.contentful.java.cma.ModuleEntries;
+import com.contentful.java.cma.model.CMAArray;
 import com.contentful.java.cma.model.CMAEntry;
+import com.contentful.java.cma.model.CMAHttpException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gov.cabinetoffice.gap.adminbackend.annotations.WithAdminSession;
-import gov.cabinetoffice.gap.adminbackend.config.ContentfulConfigProperties;
 import gov.cabinetoffice.gap.adminbackend.config.FeatureFlagsConfigurationProperties;
 import gov.cabinetoffice.gap.adminbackend.config.OpenSearchSqsProperties;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertPageResponseDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertPublishingInformationResponseDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GetGrantAdvertStatusResponseDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.grantadvert.GrantAdvertPageResponseValidationDto;
+import gov.cabinetoffice.gap.adminbackend.entities.AdvertPublishOutbox;
 import gov.cabinetoffice.gap.adminbackend.entities.FundingOrganisation;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantAdmin;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantAdvert;
 import gov.cabinetoffice.gap.adminbackend.entities.SchemeEntity;
 import gov.cabinetoffice.gap.adminbackend.enums.AdvertDefinitionQuestionResponseType;
+import gov.cabinetoffice.gap.adminbackend.enums.AdvertPublishOutboxStatus;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertPageResponseStatus;
+import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSchedulerAction;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertSectionResponseStatus;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantAdvertStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.ConflictException;
@@ -30,20 +33,21 @@ import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.mappers.GrantAdvertMapper;
 import gov.cabinetoffice.gap.adminbackend.mappers.GrantAdvertMapperImpl;
 import gov.cabinetoffice.gap.adminbackend.models.*;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertPublishOutboxRepository;
+import gov.cabinetoffice.gap.adminbackend.repositories.AdvertSlugRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdminRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdvertRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.SchemeRepository;
 import gov.cabinetoffice.gap.adminbackend.testdata.generators.RandomGrantAdvertGenerators;
 import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
 import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import reactor.core.publisher.Mono;
 
 import java.time.*;
 import java.util.*;
@@ -68,13 +72,16 @@ class GrantAdvertServiceTest {
     private SchemeRepository schemeRepository;
 
     @Mock
-    private AdvertDefinition advertDefinition;
+    private AdvertSlugRepository advertSlugRepository;
 
     @Mock
-    private CMAClient contentfulManagementClient;
+    private AdvertPublishOutboxRepository advertPublishOutboxRepository;
 
     @Mock
-    private CDAClient contentfulDeliveryClient;
+    private AdvertDefinition advertDefinition;
+
+    @Mock
+    private CMAClient contentfulManagementClient;
 
     @Mock
     private ObjectMapper mapper;
@@ -85,14 +92,6 @@ class GrantAdvertServiceTest {
     @Spy
     private GrantAdvertMapper grantAdvertMapper = new GrantAdvertMapperImpl();
 
-    @Spy
-    private ContentfulConfigProperties contentfulConfigProperties = ContentfulConfigProperties.builder()
-            .accessToken("an-access-token")
-            .environmentId("dev")
-            .spaceId("a-space-id")
-            .deliveryAPIAccessToken("a-delivery-access-token")
-            .build();
-
     @Spy
     private OpenSearchSqsProperties openSearchSqsProperties = OpenSearchSqsProperties.builder()
             .queueUrl("a-url")
@@ -101,18 +100,9 @@ class GrantAdvertServiceTest {
     @Mock
     private ModuleEntries contentfulEntries;
 
-    @Mock
-    private FetchQuery mockedFetchQuery;
-
-    @Mock
-    private CDAArray mockCDAArray;
-
     @Mock
     private FeatureFlagsConfigurationProperties featureFlagsConfigurationProperties;
 
-    @Mock
-    private WebClient.Builder webClientBuilder;
-
     @Mock
     private Clock clock;
 
@@ -304,6 +294,7 @@ class GrantAdvertServiceTest {
             final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
                     .randomAdvertDefinitionSection().build();
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
             when(advertDefinition.getSectionById(sectionId)).thenReturn(mockAdvertDefinitionSection);
@@ -326,6 +317,7 @@ class GrantAdvertServiceTest {
             final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
                     .randomAdvertDefinitionSection().build();
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
             when(advertDefinition.getSectionById(sectionId)).thenReturn(mockAdvertDefinitionSection);
@@ -352,6 +344,7 @@ class GrantAdvertServiceTest {
             final AdvertDefinitionSection mockSectionDef = RandomGrantAdvertGenerators.randomAdvertDefinitionSection()
                     .pages(List.of(mockPageOne, mockPageTwo, mockPageThree)).build();
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
             when(advertDefinition.getSectionById(sectionId)).thenReturn(mockSectionDef);
@@ -381,6 +374,7 @@ class GrantAdvertServiceTest {
             final GrantAdvertQuestionResponse mockQuestionResponse = mockGrantAdvert.getResponse().getSections().get(0)
                     .getPages().get(0).getQuestions().get(0);
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
             when(advertDefinition.getSectionById(sectionId)).thenReturn(mockSection);
@@ -409,6 +403,7 @@ class GrantAdvertServiceTest {
             final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
                     .randomAdvertDefinitionSection().build();
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
             when(advertDefinition.getSectionById(sectionId)).thenReturn(mockAdvertDefinitionSection);
@@ -426,6 +421,7 @@ class GrantAdvertServiceTest {
             final String sectionId = "section-id";
             final String pageId = "page-id";
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenThrow(new AccessDeniedException("Access Denied"));
 
             assertThrows(AccessDeniedException.class,
@@ -438,6 +434,7 @@ class GrantAdvertServiceTest {
             final String sectionId = "section-id";
             final String pageId = "page-id";
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.empty());
 
             assertThrows(NotFoundException.class,
@@ -450,6 +447,7 @@ class GrantAdvertServiceTest {
             final String sectionId = "missing-section-id";
             final String pageId = "page-id";
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId))
                     .thenReturn(Optional.of(RandomGrantAdvertGenerators.randomGrantAdvertEntity().build()));
 
@@ -467,6 +465,7 @@ class GrantAdvertServiceTest {
             final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
                     .randomAdvertDefinitionSection().build();
 
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
             when(grantAdvertRepository.findById(grantAdvertId))
                     .thenReturn(Optional.of(RandomGrantAdvertGenerators.randomGrantAdvertEntity().build()));
 
@@ -476,6 +475,59 @@ class GrantAdvertServiceTest {
                     () -> grantAdvertService.getAdvertBuilderPageData(grantAdvertId, sectionId, pageId));
         }
 
+        @Test
+        void cache_reusesPageDataUntilAdvertRevisionChanges() {
+            final UUID grantAdvertId = UUID.randomUUID();
+            final String sectionId = "section-id";
+            final String pageId = "page-id";
+            final GrantAdvert mockGrantAdvert = RandomGrantAdvertGenerators.randomGrantAdvertEntity().build();
+            final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
+                    .randomAdvertDefinitionSection().build();
+
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L), Optional.of(0L),
+                    Optional.of(1L));
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(mockAdvertDefinitionSection);
+
+            final GetGrantAdvertPageResponseDTO first = grantAdvertService.getAdvertBuilderPageData(grantAdvertId,
+                    sectionId, pageId);
+            final GetGrantAdvertPageResponseDTO second = grantAdvertService.getAdvertBuilderPageData(grantAdvertId,
+                    sectionId, pageId);
+            final GetGrantAdvertPageResponseDTO afterUpdate = grantAdvertService
+                    .getAdvertBuilderPageData(grantAdvertId, sectionId, pageId);
+
+            assertThat(second).isSameAs(first);
+            assertThat(afterUpdate).isNotSameAs(first).isEqualTo(first);
+            verify(grantAdvertRepository, times(2)).findById(grantAdvertId);
+        }
+
+        @Test
+        void cache_saveInvalidatesPageData() {
+            final UUID grantAdvertId = UUID.randomUUID();
+            final String sectionId = "section-id";
+            final String pageId = "page-id";
+            final GrantAdvert mockGrantAdvert = RandomGrantAdvertGenerators.randomGrantAdvertEntity()
+                    .id(grantAdvertId).build();
+            final AdvertDefinitionSection mockAdvertDefinitionSection = RandomGrantAdvertGenerators
+                    .randomAdvertDefinitionSection().build();
+
+            when(grantAdvertRepository.findRevisionById(grantAdvertId)).thenReturn(Optional.of(0L));
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
+            when(grantAdvertRepository.save(mockGrantAdvert)).thenReturn(mockGrantAdvert);
+            when(grantAdminRepository.findByGapUserUserSub(any()))
+                    .thenReturn(Optional.of(GrantAdmin.builder().id(1).build()));
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(mockAdvertDefinitionSection);
+
+            final GetGrantAdvertPageResponseDTO first = grantAdvertService.getAdvertBuilderPageData(grantAdvertId,
+                    sectionId, pageId);
+            grantAdvertService.save(mockGrantAdvert);
+            final GetGrantAdvertPageResponseDTO afterSave = grantAdvertService.getAdvertBuilderPageData(grantAdvertId,
+                    sectionId, pageId);
+
+            assertThat(afterSave).isNotSameAs(first);
+            verify(grantAdvertRepository, times(2)).findById(grantAdvertId);
+        }
+
     }
 
     @Nested
@@ -492,6 +544,12 @@ class GrantAdvertServiceTest {
 
         String expectedResponse = "This is a description";
 
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        GrantAdmin grantAdmin = GrantAdmin.builder().id(1).build();
+
+        SchemeEntity scheme = SchemeEntity.builder().grantAdmins(List.of(grantAdmin)).build();
+
         GrantAdvertPageResponse samplePageDto = GrantAdvertPageResponse.builder().id(pageId)
                 .status(GrantAdvertPageResponseStatus.COMPLETED)
                 .questions(Collections.singletonList(GrantAdvertQuestionResponse.builder().id(questionId).seen(true)
@@ -508,39 +566,18 @@ class GrantAdvertServiceTest {
         AdvertDefinitionSection definitionSection = AdvertDefinitionSection.builder().id(sectionId)
                 .pages(List.of(AdvertDefinitionPage.builder().questions(List.of(definitionQuestion)).build())).build();
 
-        @Test
-        void updatePageResponse_HappyPathNoDefinition() {
-            final GrantAdvert advert = GrantAdvert.builder().build();
-
-            when(grantAdvertRepository.findById(grantAdvertId))
-                    .thenReturn(Optional.of(GrantAdvert.builder().id(grantAdvertId).build()));
-            when(advertDefinition.getSectionById(sectionId)).thenReturn(definitionSection);
-            doReturn(advert).when(grantAdvertService).save(any());
-
-            grantAdvertService.updatePageResponse(pagePatchDto);
-
-            ArgumentCaptor<GrantAdvert> argument = ArgumentCaptor.forClass(GrantAdvert.class);
-            verify(grantAdvertService).save(argument.capture());
+        ArgumentCaptor<String> valueCaptor = ArgumentCaptor.forClass(String.class);
 
-            GrantAdvertResponse response = argument.getValue().getResponse();
-            assertThat(response).isNotNull();
-            Optional<GrantAdvertSectionResponse> sectionById = response.getSectionById(sectionId);
-            assertThat(sectionById).isPresent();
-            assertThat(sectionById.get().getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.COMPLETED);
-            Optional<GrantAdvertPageResponse> pageById = sectionById.get().getPageById(pageId);
-            assertThat(pageById).isPresent();
-            Optional<GrantAdvertQuestionResponse> questionById = pageById.get().getQuestionById(questionId);
-            assertThat(questionById).isPresent();
-            assertThat(questionById.get().getResponse()).isEqualTo(expectedResponse);
+        @BeforeEach
+        void setup() {
+            when(mapper.valueToTree(any())).thenAnswer(invocation -> objectMapper.valueToTree(invocation.getArgument(0)));
+            when(grantAdminRepository.findByGapUserUserSub(any())).thenReturn(Optional.of(grantAdmin));
+            when(grantAdvertRepository.patchResponse(any(), anyLong(), anyString(), anyString(), anyString(),
+                    anyString())).thenReturn(1);
         }
 
-        @Test
-        void updatePageResponse_HappyPathExistingDefinition() {
-            final GrantAdvert advert = GrantAdvert.builder().build();
-
-            ArgumentCaptor<GrantAdvert> argument = ArgumentCaptor.forClass(GrantAdvert.class);
-
-            GrantAdvertResponse originalResponse = GrantAdvertResponse.builder()
+        GrantAdvertResponse existingResponse() {
+            return GrantAdvertResponse.builder()
                     .sections(Collections.singletonList(GrantAdvertSectionResponse.builder().id(sectionId)
                             .pages(Collections.singletonList(GrantAdvertPageResponse.builder().id(pageId)
                                     .status(GrantAdvertPageResponseStatus.IN_PROGRESS)
@@ -549,65 +586,135 @@ class GrantAdvertServiceTest {
                                     .build()))
                             .build()))
                     .build();
+        }
 
-            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(
-                    Optional.of(GrantAdvert.builder().id(grantAdvertId).response(originalResponse).build()));
+        AdvertDefinitionSection sectionWithPages(String... pageIds) {
+            return AdvertDefinitionSection.builder().id(sectionId)
+                    .pages(Arrays.stream(pageIds).map(id -> AdvertDefinitionPage.builder().id(id).build()).toList())
+                    .build();
+        }
+
+        @Test
+        void updatePageResponse_HappyPathNoDefinition() throws JsonProcessingException {
+            when(grantAdvertRepository.findById(grantAdvertId))
+                    .thenReturn(Optional.of(GrantAdvert.builder().id(grantAdvertId).scheme(scheme).build()));
             when(advertDefinition.getSectionById(sectionId)).thenReturn(definitionSection);
-            doReturn(advert).when(grantAdvertService).save(any());
 
             grantAdvertService.updatePageResponse(pagePatchDto);
 
-            verify(grantAdvertService).save(argument.capture());
+            verify(grantAdvertRepository).patchResponse(eq(grantAdvertId), eq(0L), eq("{sections,0}"),
+                    valueCaptor.capture(), eq("{sections,0,status}"), eq("\"COMPLETED\""));
+            verify(grantAdvertRepository, never()).save(any());
 
-            GrantAdvertResponse response = argument.getValue().getResponse();
-            assertThat(response).isNotNull();
-            Optional<GrantAdvertSectionResponse> sectionById = response.getSectionById(sectionId);
-            assertThat(sectionById).isPresent();
-            assertThat(sectionById.get().getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.COMPLETED);
-            Optional<GrantAdvertPageResponse> pageById = sectionById.get().getPageById(pageId);
+            GrantAdvertSectionResponse section = objectMapper.readValue(valueCaptor.getValue(),
+                    GrantAdvertSectionResponse.class);
+            assertThat(section.getId()).isEqualTo(sectionId);
+            assertThat(section.getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.COMPLETED);
+            Optional<GrantAdvertPageResponse> pageById = section.getPageById(pageId);
             assertThat(pageById).isPresent();
-            assertThat(pageById.get().getStatus()).isEqualTo(GrantAdvertPageResponseStatus.COMPLETED);
             Optional<GrantAdvertQuestionResponse> questionById = pageById.get().getQuestionById(questionId);
             assertThat(questionById).isPresent();
             assertThat(questionById.get().getResponse()).isEqualTo(expectedResponse);
-            assertThat(questionById.get().getSeen()).isTrue();
         }
 
         @Test
-        void updatePageResponse_SectionNotComplete() {
-            final GrantAdvert advert = GrantAdvert.builder().build();
+        void updatePageResponse_HappyPathExistingDefinition() throws JsonProcessingException {
+            final GrantAdvert advert = GrantAdvert.builder().id(grantAdvertId).revision(3L).scheme(scheme)
+                    .response(existingResponse()).build();
 
-            ArgumentCaptor<GrantAdvert> argument = ArgumentCaptor.forClass(GrantAdvert.class);
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(advert));
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(definitionSection);
 
-            GrantAdvertResponse originalResponse = GrantAdvertResponse.builder()
-                    .sections(Collections.singletonList(GrantAdvertSectionResponse.builder().id(sectionId)
-                            .pages(Collections.singletonList(GrantAdvertPageResponse.builder().id(pageId)
-                                    .status(GrantAdvertPageResponseStatus.IN_PROGRESS)
-                                    .questions(Collections.singletonList(GrantAdvertQuestionResponse.builder()
-                                            .id(questionId).seen(false).response("Old response").build()))
-                                    .build()))
-                            .build()))
-                    .build();
+            grantAdvertService.updatePageResponse(pagePatchDto);
+
+            verify(grantAdvertRepository).patchResponse(eq(grantAdvertId), eq(3L), eq("{sections,0,pages,0}"),
+                    valueCaptor.capture(), eq("{sections,0,status}"), eq("\"COMPLETED\""));
+
+            GrantAdvertPageResponse page = objectMapper.readValue(valueCaptor.getValue(),
+                    GrantAdvertPageResponse.class);
+            assertThat(page.getId()).isEqualTo(pageId);
+            assertThat(page.getStatus()).isEqualTo(GrantAdvertPageResponseStatus.COMPLETED);
+            Optional<GrantAdvertQuestionResponse> questionById = page.getQuestionById(questionId);
+            assertThat(questionById).isPresent();
+            assertThat(questionById.get().getResponse()).isEqualTo(expectedResponse);
+            assertThat(questionById.get().getSeen()).isTrue();
+
+            // the loaded advert is left alone, so hibernate has nothing of its own to write back
+            assertThat(advert.getResponse()).isEqualTo(existingResponse());
+        }
 
+        @Test
+        void updatePageResponse_SectionNotComplete() {
             AdvertDefinitionSection sectionTwoQuestions = AdvertDefinitionSection.builder().id(sectionId)
                     .pages(List.of(AdvertDefinitionPage.builder().questions(List.of(definitionQuestion)).build(),
                             AdvertDefinitionPage.builder().build()))
                     .build();
 
-            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(
-                    Optional.of(GrantAdvert.builder().id(grantAdvertId).response(originalResponse).build()));
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(GrantAdvert.builder()
+                    .id(grantAdvertId).scheme(scheme).response(existingResponse()).build()));
             when(advertDefinition.getSectionById(sectionId)).thenReturn(sectionTwoQuestions);
-            doReturn(advert).when(grantAdvertService).save(any());
 
             grantAdvertService.updatePageResponse(pagePatchDto);
 
-            verify(grantAdvertService).save(argument.capture());
+            verify(grantAdvertRepository).patchResponse(eq(grantAdvertId), eq(0L), eq("{sections,0,pages,0}"),
+                    anyString(), eq("{sections,0,status}"), eq("\"IN_PROGRESS\""));
+        }
+
+        @Test
+        void updatePageResponse_UpdatesLastUpdatedForSchemeEditor() {
+            final Instant now = Instant.parse("2024-02-27T10:15:30Z");
+
+            when(clock.instant()).thenReturn(now);
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(GrantAdvert.builder()
+                    .id(grantAdvertId).scheme(scheme).response(existingResponse()).build()));
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(definitionSection);
+
+            grantAdvertService.updatePageResponse(pagePatchDto);
+
+            verify(grantAdvertRepository).updateLastUpdated(grantAdvertId, now, grantAdmin);
+            verify(grantAdvertRepository, never()).updateApplicationDates(any(), any(), any());
+            assertThat(scheme.getLastUpdated()).isEqualTo(now);
+            assertThat(scheme.getLastUpdatedBy()).isEqualTo(1);
+        }
 
-            GrantAdvertResponse response = argument.getValue().getResponse();
-            assertThat(response).isNotNull();
-            Optional<GrantAdvertSectionResponse> sectionById = response.getSectionById(sectionId);
-            assertThat(sectionById).isPresent();
-            assertThat(sectionById.get().getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.IN_PROGRESS);
+        @Test
+        void updatePageResponse_RetriesOnTopOfConcurrentSave() throws JsonProcessingException {
+            final GrantAdvertResponse concurrentResponse = existingResponse();
+            concurrentResponse.getSections().get(0).setPages(List.of(
+                    GrantAdvertPageResponse.builder().id("another-page").status(GrantAdvertPageResponseStatus.COMPLETED)
+                            .build()));
+
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(
+                    Optional.of(GrantAdvert.builder().id(grantAdvertId).revision(3L).scheme(scheme)
+                            .response(existingResponse()).build()),
+                    Optional.of(GrantAdvert.builder().id(grantAdvertId).revision(4L).scheme(scheme)
+                            .response(concurrentResponse).build()));
+            when(grantAdvertRepository.patchResponse(eq(grantAdvertId), eq(3L), anyString(), anyString(), anyString(),
+                    anyString())).thenReturn(0);
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(sectionWithPages(pageId, "another-page"));
+
+            grantAdvertService.updatePageResponse(pagePatchDto);
+
+            verify(grantAdvertRepository).patchResponse(eq(grantAdvertId), eq(4L), eq("{sections,0,pages,1}"),
+                    valueCaptor.capture(), eq("{sections,0,status}"), eq("\"COMPLETED\""));
+            assertThat(objectMapper.readValue(valueCaptor.getValue(), GrantAdvertPageResponse.class).getId())
+                    .isEqualTo(pageId);
+        }
+
+        @Test
+        void updatePageResponse_GivesUpWhenAdvertKeepsChanging() {
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(GrantAdvert.builder()
+                    .id(grantAdvertId).scheme(scheme).response(existingResponse()).build()));
+            when(grantAdvertRepository.patchResponse(any(), anyLong(), anyString(), anyString(), anyString(),
+                    anyString())).thenReturn(0);
+            when(advertDefinition.getSectionById(sectionId)).thenReturn(definitionSection);
+
+            assertThatThrownBy(() -> grantAdvertService.updatePageResponse(pagePatchDto))
+                    .isInstanceOf(ConflictException.class)
+                    .hasMessage("GRANT_ADVERT_MULTIPLE_EDITORS");
+            verify(grantAdvertRepository, times(3)).patchResponse(any(), anyLong(), anyString(), anyString(),
+                    anyString(), anyString());
+            verify(grantAdvertRepository, never()).updateLastUpdated(any(), any(), any());
         }
 
         @Test
@@ -621,10 +728,7 @@ class GrantAdvertServiceTest {
         }
 
         @Test
-        void updatePageResponse_DateQuestion() {
-
-            final GrantAdvert advert = GrantAdvert.builder().build();
-
+        void updatePageResponse_DateQuestion() throws JsonProcessingException {
             String[] openingMultiResponse = new String[]{"10", "10", "2010", "13:00"};
             GrantAdvertQuestionResponse openingDateQuestion = GrantAdvertQuestionResponse.builder()
                     .id(OPENING_DATE_ID)
@@ -678,21 +782,21 @@ class GrantAdvertServiceTest {
                     .build();
 
             when(grantAdvertRepository.findById(grantAdvertId))
-                    .thenReturn(Optional.of(GrantAdvert.builder().id(grantAdvertId).build()));
+                    .thenReturn(Optional.of(GrantAdvert.builder().id(grantAdvertId).scheme(scheme).build()));
             when(advertDefinition.getSectionById(ADVERT_DATES_SECTION_ID)).thenReturn(definitionSection);
-            doReturn(advert).when(grantAdvertService).save(any());
 
             grantAdvertService.updatePageResponse(datePagePatchDto);
 
-            ArgumentCaptor<GrantAdvert> argument = ArgumentCaptor.forClass(GrantAdvert.class);
-            verify(grantAdvertService).save(argument.capture());
+            verify(grantAdvertRepository).patchResponse(eq(grantAdvertId), eq(0L), eq("{sections,0}"),
+                    valueCaptor.capture(), eq("{sections,0,status}"), eq("\"COMPLETED\""));
+            verify(grantAdvertRepository).updateApplicationDates(grantAdvertId,
+                    ZonedDateTime.of(2010, 10, 10, 13, 0, 0, 0, ZoneId.of("Europe/London")),
+                    ZonedDateTime.of(2012, 12, 12, 13, 0, 0, 0, ZoneId.of("Europe/London")));
 
-            GrantAdvertResponse response = argument.getValue().getResponse();
-            assertThat(response).isNotNull();
-            Optional<GrantAdvertSectionResponse> sectionById = response.getSectionById(ADVERT_DATES_SECTION_ID);
-            assertThat(sectionById).isPresent();
-            assertThat(sectionById.get().getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.COMPLETED);
-            Optional<GrantAdvertPageResponse> pageById = sectionById.get().getPageById("1");
+            GrantAdvertSectionResponse section = objectMapper.readValue(valueCaptor.getValue(),
+                    GrantAdvertSectionResponse.class);
+            assertThat(section.getStatus()).isEqualTo(GrantAdvertSectionResponseStatus.COMPLETED);
+            Optional<GrantAdvertPageResponse> pageById = section.getPageById("1");
             assertThat(pageById).isPresent();
             Optional<GrantAdvertQuestionResponse> openingQuestion = pageById.get().getQuestionById(OPENING_DATE_ID);
             assertThat(openingQuestion).isPresent();
@@ -710,7 +814,8 @@ class GrantAdvertServiceTest {
                     .grantAdvertId(grantAdvertId).sectionId(ADVERT_DATES_SECTION_ID).page(samplePageDto).build();
 
             assertThrows(ConflictException.class, () -> grantAdvertService.updatePageResponse(datePagePatchDto));
-
+            verify(grantAdvertRepository, never()).patchResponse(any(), anyLong(), anyString(), anyString(),
+                    anyString(), anyString());
         }
     }
 
@@ -831,139 +936,63 @@ class GrantAdvertServiceTest {
 
         @Test
         @WithAdminSession
-        void publishAdvert_successfullyPublishedAdvert() {
-
-            final GrantAdvert mockGrantAdvert = GrantAdvert.builder().id(UUID.randomUUID()).scheme(scheme).version(1)
+        void publishAdvert_marksAdvertAsPublished_AndQueuesItForContentful() {
+            final GrantAdvert mockGrantAdvert = GrantAdvert.builder().id(grantAdvertId).scheme(scheme).version(1)
                     .created(Instant.now()).createdBy(new GrantAdmin(1, null, null, new ArrayList<>())).lastUpdated(Instant.now())
                     .lastUpdatedBy(new GrantAdmin(1, null, null, new ArrayList<>())).status(GrantAdvertStatus.DRAFT)
-                    .contentfulEntryId("entry-id").contentfulSlug("contentful-slug")
                     .grantAdvertName("Grant Advert Name").response(response).grantAdvertName("Homelessness Grant")
                     .build();
 
-            when(advertDefinition.getSections()).thenReturn(definition.getSections());
-
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
 
-            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
-
-            when(mockedFetchQuery.withContentType(any())).thenReturn(mockedFetchQuery);
-
-            when(mockedFetchQuery.where(any(), any(), any())).thenReturn(mockedFetchQuery);
-
-            when(contentfulDeliveryClient.fetch(any())).thenReturn(mockedFetchQuery);
-
-            when(mockedFetchQuery.all()).thenReturn(mockCDAArray);
-
-            when(contentfulEntries.create(Mockito.eq("grantDetails"), Mockito.any()))
-                    .thenReturn(unpublishedContentfulAdvert);
+            when(advertSlugRepository.findMaxSuffixByBaseSlug("homelessness-grant")).thenReturn(2);
 
-            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(publishedContentfulAdvert);
+            when(advertSlugRepository.claim("homelessness-grant", 3, grantAdvertId)).thenReturn(1);
 
             doReturn(mockGrantAdvert).when(grantAdvertService).save(any());
 
-            final WebClient webClient = mock(WebClient.class);
-            final WebClient.RequestHeadersSpec requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
-            final WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
-            final WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
-
-            when(webClientBuilder.build()).thenReturn(webClient);
-            when(webClient.patch()).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.headers(any())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.bodyValue(any())).thenReturn(requestHeadersSpec);
-            when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-            when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.empty());
-
-            when(contentfulEntries.publish(any())).thenReturn(publishedContentfulAdvert);
-
-            final JsonNode mockJsonNode = mock(JsonNode.class);
-
-            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
-
-            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"CREATE\"}");
-
-            final ArgumentCaptor<CMAEntry> entryCaptor = ArgumentCaptor.forClass(CMAEntry.class);
-
             final ArgumentCaptor<GrantAdvert> grantAdvertArgumentCaptor = ArgumentCaptor.forClass(GrantAdvert.class);
 
+            final ArgumentCaptor<AdvertPublishOutbox> outboxCaptor = ArgumentCaptor.forClass(AdvertPublishOutbox.class);
+
             grantAdvertService.publishAdvert(grantAdvertId);
 
             verify(grantAdvertService).save(grantAdvertArgumentCaptor.capture());
 
-            GrantAdvert savedAdvert = grantAdvertArgumentCaptor.getValue();
+            final GrantAdvert savedAdvert = grantAdvertArgumentCaptor.getValue();
 
+            assertThat(savedAdvert.getStatus()).isEqualTo(GrantAdvertStatus.PUBLISHED);
             assertThat(savedAdvert.getFirstPublishedDate()).isNotNull();
-
+            assertThat(savedAdvert.getLastPublishedDate()).isNull();
             assertThat(savedAdvert.getOpeningDate()).isEqualTo(openingDate);
-
             assertThat(savedAdvert.getClosingDate()).isEqualTo(closingDate);
+            assertThat(savedAdvert.getContentfulSlug()).isEqualTo("homelessness-grant-3");
+            assertThat(savedAdvert.getContentfulEntryId()).isNotNull();
 
-            // verify values before we save
-            verify(contentfulEntries).create(eq("grantDetails"), entryCaptor.capture());
-
-            final CMAEntry capturedBeforeSave = entryCaptor.getValue();
-
-            assertThat(capturedBeforeSave.getId()).isNull();
-            assertThat(capturedBeforeSave.getVersion()).isNull();
-
-            verify(webClient).patch();
-            verify(requestBodyUriSpec).uri(anyString());
-            verify(requestBodyUriSpec).headers(any());
-            verify(requestBodyUriSpec).bodyValue(any());
-            verify(requestHeadersSpec).retrieve();
-            verify(responseSpec).bodyToMono(Void.class);
+            verify(advertPublishOutboxRepository).save(outboxCaptor.capture());
 
-            // verify that we've refreshed the data after adding RTF data
-            verify(contentfulEntries).fetchOne(contentfulAdvertId);
+            assertThat(outboxCaptor.getValue().getGrantAdvertId()).isEqualTo(grantAdvertId);
+            assertThat(outboxCaptor.getValue().getAction()).isEqualTo(GrantAdvertSchedulerAction.PUBLISH);
+            assertThat(outboxCaptor.getValue().getStatus()).isEqualTo(AdvertPublishOutboxStatus.PENDING);
 
-            // verify that we've published
-            verify(contentfulEntries).publish(publishedContentfulAdvert);
+            // contentful is left to the outbox
+            verifyNoInteractions(contentfulManagementClient, amazonSqs);
         }
 
         @Test
-        @WithAdminSession
-        void publishAdvert_updatesExistingAdvert_IfFirstPublishedDateHasBeenSet() {
-
-            final GrantAdvert grantAvertInDatabase = GrantAdvert.builder().id(UUID.randomUUID()).scheme(scheme)
+        void publishAdvert_keepsContentfulEntryId_IfFirstPublishedDateHasBeenSet() {
+            final GrantAdvert grantAvertInDatabase = GrantAdvert.builder().id(grantAdvertId).scheme(scheme)
                     .version(1).created(Instant.now()).createdBy(new GrantAdmin(1, null, null, new ArrayList<>()))
                     .lastUpdated(Instant.now()).lastUpdatedBy(new GrantAdmin(1, null, null, new ArrayList<>()))
-                    .status(GrantAdvertStatus.DRAFT).contentfulEntryId(contentfulAdvertId)
-                    .contentfulSlug("contentful-slug").grantAdvertName("Grant Advert Name").response(response)
-                    .grantAdvertName("Homelessness Grant")
+                    .status(GrantAdvertStatus.UNPUBLISHED).contentfulEntryId(contentfulAdvertId)
+                    .grantAdvertName("Grant Advert Name").response(response).grantAdvertName("Homelessness Grant")
                     .firstPublishedDate(LocalDateTime.now().minusDays(5).toInstant(ZoneOffset.UTC)).build();
 
-            when(advertDefinition.getSections()).thenReturn(definition.getSections());
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(grantAvertInDatabase));
-            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
-            when(mockedFetchQuery.withContentType(any())).thenReturn(mockedFetchQuery);
-            when(mockedFetchQuery.where(any(), any(), any())).thenReturn(mockedFetchQuery);
-            when(contentfulDeliveryClient.fetch(any())).thenReturn(mockedFetchQuery);
-            when(mockedFetchQuery.all()).thenReturn(mockCDAArray);
-            when(contentfulEntries.update(Mockito.any())).thenReturn(publishedContentfulAdvert);
-            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(publishedContentfulAdvert,
-                    publishedContentfulAdvert);
+            when(advertSlugRepository.findMaxSuffixByBaseSlug("homelessness-grant")).thenReturn(0);
+            when(advertSlugRepository.claim("homelessness-grant", 1, grantAdvertId)).thenReturn(1);
             doReturn(grantAvertInDatabase).when(grantAdvertService).save(any());
 
-            final WebClient webClient = mock(WebClient.class);
-            final WebClient.RequestHeadersSpec requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
-            final WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
-            final WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
-
-            when(webClientBuilder.build()).thenReturn(webClient);
-            when(webClient.patch()).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.headers(any())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.bodyValue(any())).thenReturn(requestHeadersSpec);
-            when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-            when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.empty());
-            when(contentfulEntries.publish(any())).thenReturn(publishedContentfulAdvert);
-
-            final JsonNode mockJsonNode = mock(JsonNode.class);
-
-            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
-
-            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"CREATE\"}");
-
             final ArgumentCaptor<GrantAdvert> grantAdvertArgumentCaptor = ArgumentCaptor.forClass(GrantAdvert.class);
 
             grantAdvertService.publishAdvert(grantAdvertId);
@@ -972,112 +1001,148 @@ class GrantAdvertServiceTest {
 
             final GrantAdvert savedAdvert = grantAdvertArgumentCaptor.getValue();
 
-            assertThat(savedAdvert.getFirstPublishedDate()).isNotNull();
-            assertThat(savedAdvert.getOpeningDate()).isEqualTo(openingDate);
-            assertThat(savedAdvert.getClosingDate()).isEqualTo(closingDate);
+            assertThat(savedAdvert.getStatus()).isEqualTo(GrantAdvertStatus.PUBLISHED);
+            assertThat(savedAdvert.getLastPublishedDate()).isNotNull();
+            assertThat(savedAdvert.getContentfulEntryId()).isEqualTo(contentfulAdvertId);
+            assertThat(savedAdvert.getContentfulSlug()).isEqualTo("homelessness-grant-1");
 
-            verify(webClient).patch();
-            verify(requestBodyUriSpec).uri(anyString());
-            verify(requestBodyUriSpec).headers(any());
-            verify(requestBodyUriSpec).bodyValue(any());
-            verify(requestHeadersSpec).retrieve();
-            verify(responseSpec).bodyToMono(Void.class);
+            verify(advertPublishOutboxRepository).save(any());
+            verifyNoInteractions(contentfulManagementClient, amazonSqs);
+        }
 
-            verify(contentfulEntries).update(publishedContentfulAdvert);
+        @Test
+        void sendPublishedAdvertToContentful_createsEntryWithTheAdvertsEntryId_IfItDoesNotExistYet() {
+            final UUID messageId = UUID.randomUUID();
+            final GrantAdvert grantAdvert = GrantAdvert.builder().id(grantAdvertId).scheme(scheme).version(1)
+                    .status(GrantAdvertStatus.PUBLISHED).contentfulEntryId(contentfulAdvertId)
+                    .contentfulSlug("homelessness-grant-3").response(response).grantAdvertName("Homelessness Grant")
+                    .firstPublishedDate(Instant.now()).build();
+            final CMAHttpException notFound = mock(CMAHttpException.class);
+
+            when(notFound.responseCode()).thenReturn(404);
+            when(advertDefinition.findQuestionById(anyString()))
+                    .thenAnswer(invocation -> definition.findQuestionById(invocation.getArgument(0)));
+            when(grantAdvertRepository.findByIdWithScheme(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
+            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
+            when(contentfulEntries.fetchAll(anyMap())).thenReturn(mock(CMAArray.class));
+            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenThrow(notFound);
+            when(contentfulEntries.create(Mockito.eq("grantDetails"), Mockito.any()))
+                    .thenReturn(unpublishedContentfulAdvert);
 
-            // verify that we've refreshed the data after adding RTF data
-            verify(contentfulEntries, atLeastOnce()).fetchOne(contentfulAdvertId);
+            final JsonNode mockJsonNode = mock(JsonNode.class);
 
-            // verify that we've published
-            verify(contentfulEntries).publish(publishedContentfulAdvert);
-        }
+            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
 
-        @Test
-        void publishAdvertThroughLambda_successfullyPublishedAdvert() {
-            final GrantAdvert mockGrantAdvert = GrantAdvert.builder().id(UUID.randomUUID()).scheme(scheme).version(1)
-                    .created(Instant.now()).createdBy(new GrantAdmin(1, null, null, new ArrayList<>())).lastUpdated(Instant.now())
-                    .lastUpdatedBy(new GrantAdmin(1, null, null, new ArrayList<>())).status(GrantAdvertStatus.DRAFT)
-                    .contentfulEntryId("entry-id").contentfulSlug("contentful-slug")
-                    .grantAdvertName("Grant Advert Name").response(response).grantAdvertName("Homelessness Grant")
-                    .build();
+            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"ADD\"}");
 
-            final WebClient webClient = mock(WebClient.class);
-            final WebClient.RequestHeadersSpec requestHeadersSpec = mock(WebClient.RequestHeadersSpec.class);
-            final WebClient.RequestBodyUriSpec requestBodyUriSpec = mock(WebClient.RequestBodyUriSpec.class);
-            final WebClient.ResponseSpec responseSpec = mock(WebClient.ResponseSpec.class);
-
-            when(webClientBuilder.build()).thenReturn(webClient);
-            when(webClient.patch()).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.uri(anyString())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.headers(any())).thenReturn(requestBodyUriSpec);
-            when(requestBodyUriSpec.bodyValue(any())).thenReturn(requestHeadersSpec);
-            when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-            when(responseSpec.bodyToMono(Void.class)).thenReturn(Mono.empty());
-            doReturn(mockGrantAdvert).when(grantAdvertService).save(any());
+            final ArgumentCaptor<CMAEntry> entryCaptor = ArgumentCaptor.forClass(CMAEntry.class);
 
-            when(advertDefinition.getSections()).thenReturn(definition.getSections());
+            final ArgumentCaptor<SendMessageRequest> messageCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
 
-            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(mockGrantAdvert));
+            grantAdvertService.sendPublishedAdvertToContentful(grantAdvertId, messageId);
 
-            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
+            verify(contentfulEntries).create(eq("grantDetails"), entryCaptor.capture());
 
-            when(mockedFetchQuery.withContentType(any())).thenReturn(mockedFetchQuery);
+            final CMAEntry createdEntry = entryCaptor.getValue();
 
-            when(mockedFetchQuery.where(any(), any(), any())).thenReturn(mockedFetchQuery);
+            // created with our own id, so a retry can't create a second entry
+            assertThat(createdEntry.getId()).isEqualTo(contentfulAdvertId);
+            assertThat((Object) createdEntry.getField("label", "en-US")).isEqualTo("homelessness-grant-3");
+            assertThat((Object) createdEntry.getField("grantSummaryTab", "en-US"))
+                    .isEqualTo(new JSONObject(grantSummaryTabJson).toMap());
 
-            when(contentfulDeliveryClient.fetch(any())).thenReturn(mockedFetchQuery);
+            // published without fetching the entry again
+            verify(contentfulEntries).fetchOne(contentfulAdvertId);
+            verify(contentfulEntries).publish(unpublishedContentfulAdvert);
 
-            when(mockedFetchQuery.all()).thenReturn(mockCDAArray);
+            verify(amazonSqs).sendMessage(messageCaptor.capture());
 
-            when(contentfulEntries.create(Mockito.eq("grantDetails"), Mockito.any()))
-                    .thenReturn(unpublishedContentfulAdvert);
+            assertThat(messageCaptor.getValue().getMessageDeduplicationId()).isEqualTo(messageId.toString());
+            assertThat(messageCaptor.getValue().getMessageGroupId()).isEqualTo(contentfulAdvertId);
+        }
 
+        @Test
+        void sendPublishedAdvertToContentful_updatesExistingEntry() {
+            final UUID messageId = UUID.randomUUID();
+            final GrantAdvert grantAdvert = GrantAdvert.builder().id(grantAdvertId).scheme(scheme).version(1)
+                    .status(GrantAdvertStatus.PUBLISHED).contentfulEntryId(contentfulAdvertId)
+                    .contentfulSlug("homelessness-grant-1").response(response).grantAdvertName("Homelessness Grant")
+                    .firstPublishedDate(LocalDateTime.now().minusDays(5).toInstant(ZoneOffset.UTC))
+                    .lastPublishedDate(Instant.now()).build();
+
+            when(advertDefinition.findQuestionById(anyString()))
+                    .thenAnswer(invocation -> definition.findQuestionById(invocation.getArgument(0)));
+            when(grantAdvertRepository.findByIdWithScheme(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
+            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
+            when(contentfulEntries.fetchAll(anyMap())).thenReturn(mock(CMAArray.class));
             when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(publishedContentfulAdvert);
-
-            when(contentfulEntries.publish(any())).thenReturn(publishedContentfulAdvert);
+            when(contentfulEntries.update(Mockito.any())).thenReturn(publishedContentfulAdvert);
 
             final JsonNode mockJsonNode = mock(JsonNode.class);
 
             when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
 
-            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"CREATE\"}");
+            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"ADD\"}");
 
-            final ArgumentCaptor<CMAEntry> entryCaptor = ArgumentCaptor.forClass(CMAEntry.class);
+            grantAdvertService.sendPublishedAdvertToContentful(grantAdvertId, messageId);
 
-            final ArgumentCaptor<GrantAdvert> grantAdvertArgumentCaptor = ArgumentCaptor.forClass(GrantAdvert.class);
+            verify(contentfulEntries).update(publishedContentfulAdvert);
+            verify(contentfulEntries, never()).create(any(), any());
 
-            grantAdvertService.publishAdvert(grantAdvertId);
+            assertThat((Object) publishedContentfulAdvert.getField("label", "en-US")).isEqualTo("homelessness-grant-1");
+            assertThat((Object) publishedContentfulAdvert.getField("grantUpdated", "en-US")).isEqualTo(true);
 
-            verify(grantAdvertService).save(grantAdvertArgumentCaptor.capture());
+            verify(contentfulEntries).publish(publishedContentfulAdvert);
+            verify(amazonSqs).sendMessage(any(SendMessageRequest.class));
+        }
 
-            GrantAdvert savedAdvert = grantAdvertArgumentCaptor.getValue();
+        @Test
+        void sendPublishedAdvertToContentful_skipsAdvertThatIsNoLongerPublished() {
+            final GrantAdvert grantAdvert = GrantAdvert.builder().id(grantAdvertId).scheme(scheme).version(1)
+                    .status(GrantAdvertStatus.DRAFT).contentfulEntryId(contentfulAdvertId).response(response)
+                    .grantAdvertName("Homelessness Grant").build();
 
-            assertThat(savedAdvert.getFirstPublishedDate()).isNotNull();
+            when(grantAdvertRepository.findByIdWithScheme(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
 
-            assertThat(savedAdvert.getOpeningDate()).isEqualTo(openingDate);
+            grantAdvertService.sendPublishedAdvertToContentful(grantAdvertId, UUID.randomUUID());
 
-            assertThat(savedAdvert.getClosingDate()).isEqualTo(closingDate);
+            verifyNoInteractions(contentfulManagementClient, amazonSqs, advertSlugRepository);
+        }
 
-            // verify values before we save
-            verify(contentfulEntries).create(eq("grantDetails"), entryCaptor.capture());
+        @Test
+        void sendPublishedAdvertToContentful_claimsAnotherSlug_IfContentfulAlreadyHasTheLabel() {
+            final UUID messageId = UUID.randomUUID();
+            final GrantAdvert grantAdvert = GrantAdvert.builder().id(grantAdvertId).scheme(scheme).version(1)
+                    .status(GrantAdvertStatus.PUBLISHED).contentfulEntryId(contentfulAdvertId)
+                    .contentfulSlug("homelessness-grant-1").response(response).grantAdvertName("Homelessness Grant")
+                    .firstPublishedDate(Instant.now()).build();
+            final CMAArray<CMAEntry> labelTaken = mock(CMAArray.class);
+            final CMAArray<CMAEntry> labelFree = mock(CMAArray.class);
+
+            when(labelTaken.getTotal()).thenReturn(1);
+            when(advertDefinition.findQuestionById(anyString()))
+                    .thenAnswer(invocation -> definition.findQuestionById(invocation.getArgument(0)));
+            when(grantAdvertRepository.findByIdWithScheme(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
+            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
+            when(contentfulEntries.fetchAll(anyMap())).thenAnswer(invocation -> "homelessness-grant-1"
+                    .equals(invocation.<Map<String, String>>getArgument(0).get("fields.label")) ? labelTaken
+                            : labelFree);
+            when(advertSlugRepository.findMaxSuffixByBaseSlug("homelessness-grant")).thenReturn(1);
+            when(advertSlugRepository.claim("homelessness-grant", 2, grantAdvertId)).thenReturn(1);
+            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(publishedContentfulAdvert);
+            when(contentfulEntries.update(Mockito.any())).thenReturn(publishedContentfulAdvert);
 
-            final CMAEntry capturedBeforeSave = entryCaptor.getValue();
+            final JsonNode mockJsonNode = mock(JsonNode.class);
 
-            assertThat(capturedBeforeSave.getId()).isNull();
-            assertThat(capturedBeforeSave.getVersion()).isNull();
+            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
 
-            verify(webClient).patch();
-            verify(requestBodyUriSpec).uri(anyString());
-            verify(requestBodyUriSpec).headers(any());
-            verify(requestBodyUriSpec).bodyValue(any());
-            verify(requestHeadersSpec).retrieve();
-            verify(responseSpec).bodyToMono(Void.class);
+            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"ADD\"}");
 
-            // verify that we've refreshed the data after adding RTF data
-            verify(contentfulEntries).fetchOne(contentfulAdvertId);
+            grantAdvertService.sendPublishedAdvertToContentful(grantAdvertId, messageId);
 
-            // verify that we've published
-            verify(contentfulEntries).publish(publishedContentfulAdvert);
+            verify(advertSlugRepository).releaseToContentful("homelessness-grant-1");
+            verify(grantAdvertRepository).updateContentfulSlug(grantAdvertId, "homelessness-grant-2");
+            assertThat((Object) publishedContentfulAdvert.getField("label", "en-US")).isEqualTo("homelessness-grant-2");
         }
 
     }
@@ -1096,74 +1161,89 @@ class GrantAdvertServiceTest {
         final CMAEntry contentfulAdvert = new CMAEntry().setId(contentfulAdvertId).setVersion(2);
         @Test
         @WithAdminSession
-        void unpublishAdvert_UnpublishesAdvertFromContentful_AndSetsStatusToDraftInDb() {
+        void unpublishAdvert_SetsStatusToDraftInDb_AndQueuesItForContentful() {
             final GrantAdvert advert = GrantAdvert.builder()
                     .id(grantAdvertId)
                     .status(GrantAdvertStatus.PUBLISHED)
                     .build();
 
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
-            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
-            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(contentfulAdvert);
-            when(contentfulEntries.unPublish(contentfulAdvert)).thenReturn(contentfulAdvert);
             doReturn(advert).when(grantAdvertService).save(any());
-            when(contentfulAdvert.isPublished()).thenReturn(true);
-
-            final JsonNode mockJsonNode = mock(JsonNode.class);
-
-            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
-
-            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"CREATE\"}");
 
             final ArgumentCaptor<GrantAdvert> advertCaptor = ArgumentCaptor.forClass(GrantAdvert.class);
 
+            final ArgumentCaptor<AdvertPublishOutbox> outboxCaptor = ArgumentCaptor.forClass(AdvertPublishOutbox.class);
+
             // maybe overkill to check this here but ensures we can be sure the state has changed
             assertThat(grantAdvert.getUnpublishedDate()).isNull();
 
             grantAdvertService.unpublishAdvert(grantAdvertId);
 
-            verify(contentfulEntries).unPublish(contentfulAdvert);
             verify(grantAdvertService).save(advertCaptor.capture());
 
             assertThat(advertCaptor.getValue().getId()).isEqualTo(grantAdvertId);
             assertThat(advertCaptor.getValue().getStatus()).isEqualTo(GrantAdvertStatus.DRAFT);
             assertThat(advertCaptor.getValue().getUnpublishedDate()).isNotNull();
             assertThat(advertCaptor.getValue().getContentfulSlug()).isNull();
+
+            verify(advertPublishOutboxRepository).save(outboxCaptor.capture());
+
+            assertThat(outboxCaptor.getValue().getGrantAdvertId()).isEqualTo(grantAdvertId);
+            assertThat(outboxCaptor.getValue().getAction()).isEqualTo(GrantAdvertSchedulerAction.UNPUBLISH);
+
+            verifyNoInteractions(contentfulManagementClient, amazonSqs);
         }
 
         @Test
-        void unpublishAdvertThroughLambda_successfullyUnpublishedAdvert() {
-            final GrantAdvert advert = GrantAdvert.builder()
-                    .id(grantAdvertId)
-                    .status(GrantAdvertStatus.PUBLISHED)
-                    .build();
+        void sendUnpublishedAdvertToContentful_UnpublishesAdvertFromContentful() {
+            final UUID messageId = UUID.randomUUID();
 
             when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
             when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
             when(contentfulEntries.fetchOne(contentfulAdvertId)).thenReturn(contentfulAdvert);
             when(contentfulEntries.unPublish(contentfulAdvert)).thenReturn(contentfulAdvert);
-            doReturn(advert).when(grantAdvertService).save(any());
             when(contentfulAdvert.isPublished()).thenReturn(true);
 
             final JsonNode mockJsonNode = mock(JsonNode.class);
             when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
 
-            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"CREATE\"}");
+            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"REMOVE\"}");
 
-            final ArgumentCaptor<GrantAdvert> advertCaptor = ArgumentCaptor.forClass(GrantAdvert.class);
+            final ArgumentCaptor<SendMessageRequest> messageCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
 
-            // maybe overkill to check this here but ensures we can be sure the state has changed
-            assertThat(grantAdvert.getUnpublishedDate()).isNull();
-
-            grantAdvertService.unpublishAdvert(grantAdvertId);
+            grantAdvertService.sendUnpublishedAdvertToContentful(grantAdvertId, messageId);
 
             verify(contentfulEntries).unPublish(contentfulAdvert);
-            verify(grantAdvertService).save(advertCaptor.capture());
+            verify(amazonSqs).sendMessage(messageCaptor.capture());
 
-            assertThat(advertCaptor.getValue().getId()).isEqualTo(grantAdvertId);
-            assertThat(advertCaptor.getValue().getStatus()).isEqualTo(GrantAdvertStatus.DRAFT);
-            assertThat(advertCaptor.getValue().getUnpublishedDate()).isNotNull();
-            assertThat(advertCaptor.getValue().getContentfulSlug()).isNull();
+            assertThat(messageCaptor.getValue().getMessageDeduplicationId()).isEqualTo(messageId.toString());
+            assertThat(messageCaptor.getValue().getMessageGroupId()).isEqualTo(contentfulAdvertId);
+        }
+
+        @Test
+        void sendUnpublishedAdvertToContentful_StillRemovesAdvertFromSearch_IfEntryIsMissing() {
+            final UUID messageId = UUID.randomUUID();
+            final CMAHttpException notFound = mock(CMAHttpException.class);
+
+            when(notFound.responseCode()).thenReturn(404);
+            when(grantAdvertRepository.findById(grantAdvertId)).thenReturn(Optional.of(grantAdvert));
+            when(contentfulManagementClient.entries()).thenReturn(contentfulEntries);
+            when(contentfulEntries.fetchOne(contentfulAdvertId)).thenThrow(notFound);
+
+            final JsonNode mockJsonNode = mock(JsonNode.class);
+            when(mapper.valueToTree(any())).thenReturn(mockJsonNode);
+
+            when(mockJsonNode.toString()).thenReturn("{contentfulEntryId: \"entry-id\", action: \"REMOVE\"}");
+
+            final ArgumentCaptor<SendMessageRequest> messageCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
+
+            grantAdvertService.sendUnpublishedAdvertToContentful(grantAdvertId, messageId);
+
+            verify(contentfulEntries, never()).unPublish(any());
+            verify(amazonSqs).sendMessage(messageCaptor.capture());
+
+            assertThat(messageCaptor.getValue().getMessageDeduplicationId()).isEqualTo(messageId.toString());
+            assertThat(messageCaptor.getValue().getMessageGroupId()).isEqualTo(contentfulAdvertId);
         }
 
     }
@@ -1175,7 +1255,7 @@ class GrantAdvertServiceTest {
         @Test
         void getGrantAdvertStatusBySchemeId_HappyPath() {
 
-            GrantAdvert grantAdvert = RandomGrantAdvertGenerators.randomGrantAdvertEntity().build();
+            GrantAdvert grantAdvert = RandomGrantAdvertGenerators.randomGrantAdvertEntity().publishFailed(true).build();
 
             when(grantAdvertRepository.findBySchemeId(SAMPLE_SCHEME_ID)).thenReturn(Optional.of(grantAdvert));
 
@@ -1184,6 +1264,7 @@ class GrantAdvertServiceTest {
 
             assertThat(actualOutput.getGrantAdvertId()).isEqualTo(grantAdvert.getId());
             assertThat(actualOutput.getGrantAdvertStatus()).isEqualTo(grantAdvert.getStatus());
+            assertThat(actualOutput.isPublishFailed()).isTrue();
 
             verify(grantAdvertMapper).grantAdvertStatusResponseDtoFromGrantAdvert(grantAdvert);
         }
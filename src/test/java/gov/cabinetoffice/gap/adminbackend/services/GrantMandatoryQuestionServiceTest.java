@@ -5,19 +5,22 @@ import gov.cabinetoffice.gap.adminbackend.constants.DueDiligenceHeaders;
 import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
 import gov.cabinetoffice.gap.adminbackend.entities.SchemeEntity;
-import gov.cabinetoffice.gap.adminbackend.entities.Submission;
 import gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrgType;
-import gov.cabinetoffice.gap.adminbackend.enums.SubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantMandatoryQuestionRepository;
+import gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls.TestGrantMandatoryQuestionExportView;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
@@ -32,7 +35,10 @@ import static gov.cabinetoffice.gap.adminbackend.services.GrantMandatoryQuestion
 import static gov.cabinetoffice.gap.adminbackend.services.GrantMandatoryQuestionService.mandatoryValue;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringJUnitConfig
@@ -46,22 +52,12 @@ class GrantMandatoryQuestionServiceTest {
     private final SchemeEntity schemeEntity = SchemeEntity.builder().id(SCHEME_ID).funderId(1).name("name")
             .ggisIdentifier("123").build();
 
-    private final Submission submission = Submission.builder()
-            .id(UUID.fromString("00000000-0000-0000-0000-000000000000")).scheme(schemeEntity)
-            .status(SubmissionStatus.SUBMITTED).build();
-
     private final GrantMandatoryQuestions grantMandatoryQuestionsExternal = GrantMandatoryQuestions.builder()
             .name("Some company name").addressLine1("9-10 St Andrew Square").city("Edinburgh").county("county")
             .postcode("EH2 2AF").charityCommissionNumber("500").companiesHouseNumber("12738494")
             .orgType(GrantMandatoryQuestionOrgType.CHARITY).fundingAmount(BigDecimal.valueOf(50000))
             .schemeEntity(schemeEntity).gapId("GAP-ID").build();
 
-    private final GrantMandatoryQuestions grantMandatoryQuestionsInternal = GrantMandatoryQuestions.builder()
-            .name("Some company name").addressLine1("9-10 St Andrew Square").city("Edinburgh").county("county")
-            .postcode("EH2 2AF").charityCommissionNumber("500").companiesHouseNumber("12738494")
-            .orgType(GrantMandatoryQuestionOrgType.CHARITY).fundingAmount(BigDecimal.valueOf(50000))
-            .schemeEntity(schemeEntity).gapId("GAP-ID").submission(submission).build();
-
     private final GrantMandatoryQuestions grantMandatoryQuestionsNonLimitedCompany = GrantMandatoryQuestions.builder()
             .name("Another company name").addressLine1("9-10 St Andrew Square").city("Glasgow").county("county")
             .postcode("G02 2AF").companiesHouseNumber("12738494")
@@ -103,7 +99,10 @@ class GrantMandatoryQuestionServiceTest {
     }
 
     @Nested
-    class getDueDiligenceData {
+    class writeDueDiligenceData {
+
+        private final TestGrantMandatoryQuestionExportView exportRow = TestGrantMandatoryQuestionExportView.builder()
+                .build();
 
         private static void assertRowIsAsExpected(Row actualRow, List<String> expectedRow) {
             assertThat(actualRow.getPhysicalNumberOfCells()).isEqualTo(expectedRow.size());
@@ -112,70 +111,108 @@ class GrantMandatoryQuestionServiceTest {
             }
         }
 
-        @Nested
-        class internalApplications {
+        @ParameterizedTest
+        @ValueSource(booleans = { true, false })
+        void forSingleRowWithGoodData(boolean isInternal) throws IOException {
+            when(grantMandatoryQuestionRepository.findCompletedExportPage(eq(SCHEME_ID), eq(isInternal),
+                    any(UUID.class), any(Pageable.class))).thenReturn(List.of(exportRow)).thenReturn(List.of());
+            doReturn(EXPECTED_DUE_DILIGENCE_ROW).when(grantMandatoryQuestionService).buildSingleSpotlightRow(SCHEME_ID,
+                    exportRow);
+
+            final ByteArrayOutputStream dataStream = new ByteArrayOutputStream();
+            grantMandatoryQuestionService.writeDueDiligenceData(SCHEME_ID, isInternal, dataStream);
+
+            Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(dataStream.toByteArray()));
+            Row headerRow = workbook.getSheetAt(0).getRow(0);
+            assertRowIsAsExpected(headerRow, DueDiligenceHeaders.DUE_DILIGENCE_HEADERS);
+            Row dataRow = workbook.getSheetAt(0).getRow(1);
+            assertRowIsAsExpected(dataRow, EXPECTED_DUE_DILIGENCE_ROW);
+            assertThat(workbook.getSheetAt(0).getLastRowNum()).isEqualTo(1);
+
+            verify(grantMandatoryQuestionRepository).findCompletedExportPage(SCHEME_ID, isInternal, new UUID(0L, 0L),
+                    PageRequest.of(0, 500));
+            verify(grantMandatoryQuestionRepository).findCompletedExportPage(SCHEME_ID, isInternal,
+                    UUID.fromString(exportRow.getId()), PageRequest.of(0, 500));
+        }
 
-            @Test
-            void forSingleRowWithGoodData() throws IOException {
-                when(grantMandatoryQuestionRepository.findBySchemeEntity_IdAndCompletedStatus(SCHEME_ID))
-                        .thenReturn(List.of(grantMandatoryQuestionsExternal, grantMandatoryQuestionsInternal));
-                doReturn(EXPECTED_DUE_DILIGENCE_ROW).when(grantMandatoryQuestionService)
-                        .buildSingleSpotlightRow(grantMandatoryQuestionsInternal);
-
-                ByteArrayOutputStream dataStream = grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, true);
-
-                Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(dataStream.toByteArray()));
-                Row headerRow = workbook.getSheetAt(0).getRow(0);
-                assertRowIsAsExpected(headerRow, DueDiligenceHeaders.DUE_DILIGENCE_HEADERS);
-                Row dataRow = workbook.getSheetAt(0).getRow(1);
-                assertRowIsAsExpected(dataRow, EXPECTED_DUE_DILIGENCE_ROW);
-            }
+        @Test
+        void buildsRowFromExportView() {
+            final List<String> row = grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, exportRow);
 
-            @Test
-            void forSingleRowWithGoodData_throwAccessDeniedException() {
-                when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenThrow(new AccessDeniedException("accessDenied"));
+            assertThat(row).containsExactly("GAP-ID", "Some company name", "9-10 St Andrew Square", "Edinburgh",
+                    "county", "EH2 2AF", "50000", "500", "12738494", "Charity", "");
+        }
 
-                Exception exception = assertThrows(AccessDeniedException.class,
-                        () -> grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, true));
+        @Test
+        void missingMandatoryValue_throwsException() {
+            final TestGrantMandatoryQuestionExportView rowWithoutName = exportRow.toBuilder().name(null).build();
 
-                String actualMessage = exception.getMessage();
-                assertThat(actualMessage)
-                        .isEqualTo("Admin 1 is unable to access mandatory questions with scheme id " + SCHEME_ID);
-            }
+            Exception exception = assertThrows(SpotlightExportException.class,
+                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, rowWithoutName));
 
+            assertThat(exception.getMessage()).contains("organisation name");
         }
 
-        @Nested
-        class externalApplications {
+        @Test
+        void missingMandatoryValue_failsTheExport() {
+            final TestGrantMandatoryQuestionExportView rowWithoutName = exportRow.toBuilder().name(null).build();
+            when(grantMandatoryQuestionRepository.findCompletedExportPage(eq(SCHEME_ID), eq(false), any(UUID.class),
+                    any(Pageable.class))).thenReturn(List.of(rowWithoutName, exportRow)).thenReturn(List.of());
 
-            @Test
-            void forSingleRowWithGoodData() throws IOException {
-                when(grantMandatoryQuestionRepository.findBySchemeEntity_IdAndCompletedStatus(SCHEME_ID))
-                        .thenReturn(List.of(grantMandatoryQuestionsExternal));
-                doReturn(EXPECTED_DUE_DILIGENCE_ROW).when(grantMandatoryQuestionService)
-                        .buildSingleSpotlightRow(grantMandatoryQuestionsExternal);
-
-                ByteArrayOutputStream dataStream = grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, false);
-
-                Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(dataStream.toByteArray()));
-                Row headerRow = workbook.getSheetAt(0).getRow(0);
-                assertRowIsAsExpected(headerRow, DueDiligenceHeaders.DUE_DILIGENCE_HEADERS);
-                Row dataRow = workbook.getSheetAt(0).getRow(1);
-                assertRowIsAsExpected(dataRow, EXPECTED_DUE_DILIGENCE_ROW);
-            }
+            assertThrows(SpotlightExportException.class, () -> grantMandatoryQuestionService
+                    .writeDueDiligenceData(SCHEME_ID, false, new ByteArrayOutputStream()));
+        }
 
-            @Test
-            void forSingleRowWithGoodData_throwAccessDeniedException() {
-                when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenThrow(new AccessDeniedException("accessDenied"));
+    }
+
+    @Nested
+    class verifyDueDiligenceExportData {
 
-                Exception exception = assertThrows(AccessDeniedException.class,
-                        () -> grantMandatoryQuestionService.getDueDiligenceData(SCHEME_ID, false));
+        @Test
+        void completeData_doesNotThrow() {
+            when(grantMandatoryQuestionRepository.countCompletedExportRowsMissingMandatoryData(SCHEME_ID, true))
+                    .thenReturn(0L);
 
-                String actualMessage = exception.getMessage();
-                assertThat(actualMessage)
-                        .isEqualTo("Admin 1 is unable to access mandatory questions with scheme id " + SCHEME_ID);
-            }
+            grantMandatoryQuestionService.verifyDueDiligenceExportData(SCHEME_ID, true);
 
+            verify(grantMandatoryQuestionRepository).countCompletedExportRowsMissingMandatoryData(SCHEME_ID, true);
+        }
+
+        @Test
+        void missingMandatoryData_throwsException() {
+            when(grantMandatoryQuestionRepository.countCompletedExportRowsMissingMandatoryData(SCHEME_ID, false))
+                    .thenReturn(3L);
+
+            Exception exception = assertThrows(SpotlightExportException.class,
+                    () -> grantMandatoryQuestionService.verifyDueDiligenceExportData(SCHEME_ID, false));
+
+            assertThat(exception.getMessage()).contains("3 mandatory questions").contains(SCHEME_ID.toString());
+        }
+
+    }
+
+    @Nested
+    class verifyDueDiligenceExportAccess {
+
+        @Test
+        void allowsAccessToOwnScheme() {
+            when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenReturn(SchemeDTO.builder().build());
+
+            grantMandatoryQuestionService.verifyDueDiligenceExportAccess(SCHEME_ID);
+
+            verify(schemeService).getSchemeBySchemeId(SCHEME_ID);
+        }
+
+        @Test
+        void throwAccessDeniedException() {
+            when(schemeService.getSchemeBySchemeId(SCHEME_ID)).thenThrow(new AccessDeniedException("accessDenied"));
+
+            Exception exception = assertThrows(AccessDeniedException.class,
+                    () -> grantMandatoryQuestionService.verifyDueDiligenceExportAccess(SCHEME_ID));
+
+            String actualMessage = exception.getMessage();
+            assertThat(actualMessage)
+                    .isEqualTo("Admin 1 is unable to access mandatory questions with scheme id " + SCHEME_ID);
         }
 
     }
@@ -256,20 +293,22 @@ class GrantMandatoryQuestionServiceTest {
     @Nested
     class BuildSingleSpotlightRowTests {
 
+        private final TestGrantMandatoryQuestionExportView exportRow = TestGrantMandatoryQuestionExportView.builder()
+                .build();
+
         @Test
         void givenGoodInput_returnsExpectedData() {
-            List<String> spotlightRow = grantMandatoryQuestionService
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsExternal);
+            List<String> spotlightRow = grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, exportRow);
 
             assertThat(spotlightRow).containsAll(EXPECTED_SPOTLIGHT_ROW);
         }
 
         @Test
         void givenDataWithoutOrgName_throwsException() {
-            grantMandatoryQuestionsExternal.setName(null);
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().name(null).build();
 
             Exception exception = assertThrows(SpotlightExportException.class,
-                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(grantMandatoryQuestionsExternal));
+                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
             String actualMessage = exception.getMessage();
             assertThat(actualMessage).contains("organisation name");
@@ -277,10 +316,10 @@ class GrantMandatoryQuestionServiceTest {
 
         @Test
         void givenDataWithoutPostcode_throwsException() {
-            grantMandatoryQuestionsExternal.setPostcode(null);
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().postcode(null).build();
 
             Exception exception = assertThrows(SpotlightExportException.class,
-                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(grantMandatoryQuestionsExternal));
+                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
             String actualMessage = exception.getMessage();
             assertThat(actualMessage).contains("postcode");
@@ -288,32 +327,42 @@ class GrantMandatoryQuestionServiceTest {
 
         @Test
         void givenDataWithoutAmount_throwsException() {
-            grantMandatoryQuestionsExternal.setFundingAmount(null);
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().fundingAmount(null).build();
 
             Exception exception = assertThrows(SpotlightExportException.class,
-                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(grantMandatoryQuestionsExternal));
+                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
             String actualMessage = exception.getMessage();
-            assertThat(actualMessage).contains("Unable to find mandatory question data:");
+            assertThat(actualMessage).contains("application amount");
         }
 
         @Test
-        void givenNullSchemeData_throwsException() {
-            grantMandatoryQuestionsExternal.setSchemeEntity(null);
+        void givenDataWithoutOrgType_throwsException() {
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().orgType(null).build();
 
             Exception exception = assertThrows(SpotlightExportException.class,
-                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(grantMandatoryQuestionsExternal));
+                    () -> grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
             String actualMessage = exception.getMessage();
-            assertThat(actualMessage).contains("Unable to find mandatory question data:");
+            assertThat(actualMessage).contains("organisation type");
+        }
+
+        @Test
+        void givenDataWithoutCityOrCounty_returnsBlanks() {
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().city(null).county(null).build();
+
+            List<String> spotlightRow = grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row);
+
+            assertThat(spotlightRow.get(3)).isEmpty();
+            assertThat(spotlightRow.get(4)).isEmpty();
         }
 
         @Test
         void givenDataWithoutCharityNumber_returnsExpectedData() {
-            grantMandatoryQuestionsExternal.setCharityCommissionNumber(null);
+            final TestGrantMandatoryQuestionExportView row = exportRow.toBuilder().charityCommissionNumber(null)
+                    .build();
             EXPECTED_SPOTLIGHT_ROW.set(6, "");
-            List<String> spotlightRow = grantMandatoryQuestionService
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsExternal);
+            List<String> spotlightRow = grantMandatoryQuestionService.buildSingleSpotlightRow(SCHEME_ID, row);
             assertThat(spotlightRow).containsAll(EXPECTED_SPOTLIGHT_ROW);
         }
 
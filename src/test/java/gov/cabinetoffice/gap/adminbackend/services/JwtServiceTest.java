@@ -1,8 +1,11 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkProvider;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import gov.cabinetoffice.gap.adminbackend.config.JwtVerificationConfigProperties;
 import gov.cabinetoffice.gap.adminbackend.config.UserServiceConfig;
 import gov.cabinetoffice.gap.adminbackend.exceptions.UnauthorizedException;
 import gov.cabinetoffice.gap.adminbackend.models.JwtPayload;
@@ -36,6 +39,12 @@ class JwtServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private JwtVerificationConfigProperties jwtVerificationConfigProperties;
+
+    @Mock
+    private JwkProvider jwkProvider;
+
     @Spy
     @InjectMocks
     private JwtService jwtService;
@@ -109,4 +118,78 @@ class JwtServiceTest {
 
     }
 
+    @Nested
+    class LocalVerificationTests {
+
+        private KeyPair keyPair;
+
+        @BeforeEach
+        void beforeEach() throws Exception {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            keyPair = keyPairGenerator.genKeyPair();
+
+            final Jwk jwk = mock(Jwk.class);
+            when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+            when(jwkProvider.get("test-key-id")).thenReturn(jwk);
+
+            when(jwtVerificationConfigProperties.isLocalVerificationEnabled()).thenReturn(true);
+            when(jwtVerificationConfigProperties.getIssuer()).thenReturn("TEST_DOMAIN");
+            when(jwtVerificationConfigProperties.getAudience()).thenReturn("TEST_AUDIENCE");
+            when(jwtVerificationConfigProperties.getRevocationCheckTtlSeconds()).thenReturn(60L);
+        }
+
+        private String createToken(String issuer, int expiresInDays) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.DAY_OF_MONTH, expiresInDays);
+
+            return JWT.create().withExpiresAt(calendar.getTime()).withIssuer(issuer).withAudience("TEST_AUDIENCE")
+                    .withKeyId("test-key-id").withSubject("106b1a34-cd3a-45d7-924f-beedc33acc70")
+                    .sign(Algorithm.RSA256(null, (RSAPrivateKey) keyPair.getPrivate()));
+        }
+
+        @Test
+        void verifyToken_OnlyChecksRevocationOnceWithinTtl() {
+            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Boolean.class)))
+                    .thenReturn(ResponseEntity.of(Optional.of(Boolean.TRUE)));
+            final String token = createToken("TEST_DOMAIN", 1);
+
+            final DecodedJWT firstResponse = jwtService.verifyToken(token);
+            final DecodedJWT secondResponse = jwtService.verifyToken(token);
+
+            assertThat(firstResponse.getSubject()).isEqualTo("106b1a34-cd3a-45d7-924f-beedc33acc70");
+            assertThat(secondResponse.getSubject()).isEqualTo("106b1a34-cd3a-45d7-924f-beedc33acc70");
+            verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(), eq(Boolean.class));
+        }
+
+        @Test
+        void verifyToken_RevokedTokenTest() {
+            when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(Boolean.class)))
+                    .thenReturn(ResponseEntity.of(Optional.of(Boolean.FALSE)));
+            final String token = createToken("TEST_DOMAIN", 1);
+
+            assertThatThrownBy(() -> jwtService.verifyToken(token)).isInstanceOf(UnauthorizedException.class)
+                    .hasMessage("Token is not valid");
+        }
+
+        @Test
+        void verifyToken_WrongIssuerTest() {
+            final String token = createToken("ANOTHER_DOMAIN", 1);
+
+            assertThatThrownBy(() -> jwtService.verifyToken(token)).isInstanceOf(UnauthorizedException.class)
+                    .hasMessage("Token is not valid");
+            verifyNoInteractions(restTemplate);
+        }
+
+        @Test
+        void verifyToken_ExpiredTokenTest() {
+            final String token = createToken("TEST_DOMAIN", -1);
+
+            assertThatThrownBy(() -> jwtService.verifyToken(token)).isInstanceOf(UnauthorizedException.class)
+                    .hasMessage("Token is not valid");
+            verifyNoInteractions(restTemplate);
+        }
+
+    }
+
 }
@@ -0,0 +1,104 @@
+package gov.cabinetoffice.gap.adminbackend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.cabinetoffice.gap.adminbackend.config.SecretCacheConfigProperties;
+import gov.cabinetoffice.gap.adminbackend.exceptions.SecretValueException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+class SecretCacheServiceTest {
+
+    private static final String SECRET_ID = "a-secret-name";
+
+    @Mock
+    private SecretsManagerClient secretsManagerClient;
+
+    private SecretCacheService secretCacheService;
+
+    @BeforeEach
+    void setup() {
+        secretCacheService = new SecretCacheService(secretsManagerClient, new ObjectMapper(),
+                new SecretCacheConfigProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        secretCacheService.shutdown();
+    }
+
+    @Test
+    void getSecretValue_FetchesTheSecretOnce() {
+        when(secretsManagerClient.getSecretValue((GetSecretValueRequest) any()))
+                .thenReturn(secret("{\"access_token\":\"token\"}"));
+
+        assertThat(secretCacheService.getSecretValue(SECRET_ID, "access_token")).isEqualTo("token");
+        assertThat(secretCacheService.getSecretValue(SECRET_ID, "access_token")).isEqualTo("token");
+
+        verify(secretsManagerClient, times(1))
+                .getSecretValue(GetSecretValueRequest.builder().secretId(SECRET_ID).build());
+    }
+
+    @Test
+    void getSecretValue_FetchesAgainAfterInvalidate() {
+        when(secretsManagerClient.getSecretValue((GetSecretValueRequest) any()))
+                .thenReturn(secret("{\"access_token\":\"token\"}"))
+                .thenReturn(secret("{\"access_token\":\"rotated-token\"}"));
+
+        assertThat(secretCacheService.getSecretValue(SECRET_ID, "access_token")).isEqualTo("token");
+
+        secretCacheService.invalidate(SECRET_ID);
+
+        assertThat(secretCacheService.getSecretValue(SECRET_ID, "access_token")).isEqualTo("rotated-token");
+    }
+
+    @Test
+    void refreshSecrets_ReloadsCachedSecretsWithoutARead() {
+        when(secretsManagerClient.getSecretValue((GetSecretValueRequest) any()))
+                .thenReturn(secret("{\"access_token\":\"token\"}"))
+                .thenReturn(secret("{\"access_token\":\"rotated-token\"}"));
+
+        assertThat(secretCacheService.getSecretValue(SECRET_ID, "access_token")).isEqualTo("token");
+
+        secretCacheService.refreshSecrets();
+
+        verify(secretsManagerClient, timeout(1000).times(2))
+                .getSecretValue(GetSecretValueRequest.builder().secretId(SECRET_ID).build());
+    }
+
+    @Test
+    void refreshSecrets_DoesNothing_WhenNothingIsCached() {
+        secretCacheService.refreshSecrets();
+
+        verifyNoInteractions(secretsManagerClient);
+    }
+
+    @Test
+    void getSecretValue_ThrowsSecretValueException_WhenSecretIsNotJson() {
+        when(secretsManagerClient.getSecretValue((GetSecretValueRequest) any())).thenReturn(secret("Wrong Json"));
+
+        assertThrows(SecretValueException.class, () -> secretCacheService.getSecretValue(SECRET_ID, "access_token"));
+    }
+
+    @Test
+    void getSecretValue_ThrowsSecretValueException_WhenKeyIsMissing() {
+        when(secretsManagerClient.getSecretValue((GetSecretValueRequest) any())).thenReturn(secret("{}"));
+
+        assertThrows(SecretValueException.class, () -> secretCacheService.getSecretValue(SECRET_ID, "access_token"));
+    }
+
+    private GetSecretValueResponse secret(String secretString) {
+        return GetSecretValueResponse.builder().secretString(secretString).build();
+    }
+
+}
@@ -5,14 +5,13 @@ import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantMandatoryQuestions;
 import gov.cabinetoffice.gap.adminbackend.entities.SchemeEntity;
 import gov.cabinetoffice.gap.adminbackend.entities.SpotlightSubmission;
-import gov.cabinetoffice.gap.adminbackend.entities.Submission;
-import gov.cabinetoffice.gap.adminbackend.enums.GrantMandatoryQuestionOrgType;
 import gov.cabinetoffice.gap.adminbackend.enums.SpotlightSubmissionStatus;
-import gov.cabinetoffice.gap.adminbackend.enums.SubmissionStatus;
 import gov.cabinetoffice.gap.adminbackend.exceptions.NotFoundException;
 import gov.cabinetoffice.gap.adminbackend.exceptions.SpotlightExportException;
 import gov.cabinetoffice.gap.adminbackend.repositories.SpotlightSubmissionRepository;
+import gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls.TestSpotlightDownloadRowView;
 import org.junit.Assert;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -21,14 +20,20 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
 import java.io.ByteArrayOutputStream;
-import java.math.BigDecimal;
+import java.io.OutputStream;
 import java.time.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -63,28 +68,6 @@ class SpotlightSubmissionServiceTest {
     private final SchemeEntity schemeEntity = SchemeEntity.builder().id(SCHEME_ID).funderId(1).name("name")
             .ggisIdentifier("123").build();
 
-    private final Submission submission = Submission.builder()
-            .id(UUID.fromString("00000000-0000-0000-0000-000000000000")).scheme(schemeEntity)
-            .status(SubmissionStatus.SUBMITTED).build();
-
-    private final GrantMandatoryQuestions grantMandatoryQuestionsCharity = GrantMandatoryQuestions.builder()
-            .name("Some company name").addressLine1("9-10 St Andrew Square").city("Edinburgh").county("county")
-            .postcode("EH2 2AF").charityCommissionNumber("500").companiesHouseNumber("12738494")
-            .orgType(GrantMandatoryQuestionOrgType.CHARITY).fundingAmount(BigDecimal.valueOf(50000))
-            .schemeEntity(schemeEntity).gapId("GAP-ID").submission(submission).build();
-
-    private final GrantMandatoryQuestions grantMandatoryQuestionsRegisteredCharity = GrantMandatoryQuestions.builder()
-            .name("Some company name").addressLine1("9-10 St Andrew Square").city("Edinburgh").county("county")
-            .postcode("EH2 2AF").charityCommissionNumber("500").companiesHouseNumber("12738494")
-            .orgType(GrantMandatoryQuestionOrgType.REGISTERED_CHARITY).fundingAmount(BigDecimal.valueOf(50000))
-            .schemeEntity(schemeEntity).gapId("GAP-ID").submission(submission).build();
-
-    private final GrantMandatoryQuestions grantMandatoryQuestionsUnregisteredCharity = GrantMandatoryQuestions.builder()
-            .name("Some company name").addressLine1("9-10 St Andrew Square").city("Edinburgh").county("county")
-            .postcode("EH2 2AF").charityCommissionNumber("500").companiesHouseNumber("12738494")
-            .orgType(GrantMandatoryQuestionOrgType.UNREGISTERED_CHARITY).fundingAmount(BigDecimal.valueOf(50000))
-            .schemeEntity(schemeEntity).gapId("GAP-ID").submission(submission).build();
-
     @Mock
     private SpotlightSubmissionRepository spotlightSubmissionRepository;
 
@@ -182,6 +165,35 @@ class SpotlightSubmissionServiceTest {
 
     }
 
+    @Nested
+    class getSpotlightSubmissionsByMandatoryQuestionGapIds {
+
+        @Test
+        void returnsSubmissionsKeyedByGapId() {
+            final SpotlightSubmission first = SpotlightSubmission.builder().id(UUID.randomUUID())
+                    .mandatoryQuestions(GrantMandatoryQuestions.builder().gapId("gapId1").build()).build();
+            final SpotlightSubmission second = SpotlightSubmission.builder().id(UUID.randomUUID())
+                    .mandatoryQuestions(GrantMandatoryQuestions.builder().gapId("gapId2").build()).build();
+            when(spotlightSubmissionRepository.findByMandatoryQuestions_GapIdIn(Set.of("gapId1", "gapId2", "gapId3")))
+                    .thenReturn(List.of(first, second));
+
+            final Map<String, SpotlightSubmission> result = spotlightSubmissionService
+                    .getSpotlightSubmissionsByMandatoryQuestionGapIds(Set.of("gapId1", "gapId2", "gapId3"));
+
+            assertThat(result).containsOnly(Map.entry("gapId1", first), Map.entry("gapId2", second));
+        }
+
+        @Test
+        void noGapIds_doesNotQueryDatabase() {
+            final Map<String, SpotlightSubmission> result = spotlightSubmissionService
+                    .getSpotlightSubmissionsByMandatoryQuestionGapIds(Set.of());
+
+            assertThat(result).isEmpty();
+            verifyNoInteractions(spotlightSubmissionRepository);
+        }
+
+    }
+
     @Nested
     class getLastSubmissionDate {
 
@@ -282,95 +294,116 @@ class SpotlightSubmissionServiceTest {
     }
 
     @Nested
-    class generateCharitiesAndLimitedCompanyDownloadFile {
-
-        @Test
-        void success_Charity() {
-            final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder()
-                    .mandatoryQuestions(grantMandatoryQuestionsCharity).grantScheme(schemeEntity).build();
-            final SchemeDTO schemeDto = SchemeDTO.builder().schemeId(schemeEntity.getId()).name(schemeEntity.getName())
-                    .build();
+    class writeDownloadFile {
 
-            final List<SpotlightSubmission> spotlightSubmissions = List.of(spotlightSubmission);
+        private final SchemeDTO schemeDto = SchemeDTO.builder().schemeId(SCHEME_ID).name(schemeEntity.getName())
+                .ggisReference("123").build();
 
-            when(spotlightSubmissionRepository.findByGrantScheme_Id(SCHEME_ID)).thenReturn(spotlightSubmissions);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
+        private final List<String> companiesAndCharities = List.of("LIMITED_COMPANY", "CHARITY",
+                "REGISTERED_CHARITY", "UNREGISTERED_CHARITY");
 
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(spotlightSubmissionService)
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsCharity);
+        private final List<String> nonLimitedCompanies = List.of("NON_LIMITED_COMPANY");
 
-            final ByteArrayOutputStream result = spotlightSubmissionService.generateDownloadFile(schemeDto, false);
+        private final List<String> allStatuses = Arrays.stream(SpotlightSubmissionStatus.values())
+                .map(SpotlightSubmissionStatus::toString).toList();
 
-            verify(spotlightSubmissionRepository).findByGrantScheme_Id(SCHEME_ID);
-            assertThat(result).isNotNull();
+        private final Map<String, List<List<String>>> writtenRowsByFilename = new LinkedHashMap<>();
 
+        @BeforeEach
+        void setup() {
+            doAnswer(invocation -> {
+                final List<ZipService.PartSource> sources = invocation.getArgument(1);
+                for (ZipService.PartSource source : sources) {
+                    final List<List<String>> rows = new ArrayList<>();
+                    source.rows().forEachRemaining(rows::add);
+                    writtenRowsByFilename.put(source.filenameForPart().apply(1), rows);
+                }
+                return null;
+            }).when(zipService).writeZip(anyList(), anyList(), anyInt(), any(OutputStream.class));
         }
 
         @Test
-        void success_RegisteredCharity() {
-            final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder()
-                    .mandatoryQuestions(grantMandatoryQuestionsRegisteredCharity).grantScheme(schemeEntity).build();
-            final SchemeDTO schemeDto = SchemeDTO.builder().schemeId(schemeEntity.getId()).name(schemeEntity.getName())
-                    .build();
-
-            final List<SpotlightSubmission> spotlightSubmissions = List.of(spotlightSubmission);
-
-            when(spotlightSubmissionRepository.findByGrantScheme_Id(SCHEME_ID)).thenReturn(spotlightSubmissions);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
+        void success_WritesEachOrganisationTypeToItsOwnFiles() {
+            final TestSpotlightDownloadRowView charityRow = TestSpotlightDownloadRowView.builder().build();
+            final TestSpotlightDownloadRowView nonLimitedRow = TestSpotlightDownloadRowView.builder()
+                    .gapId("GAP-ID-2").build();
+
+            when(spotlightSubmissionRepository.findDownloadPage(eq(SCHEME_ID), eq(allStatuses),
+                    eq(companiesAndCharities), any(UUID.class), any(Pageable.class))).thenReturn(List.of(charityRow))
+                    .thenReturn(List.of());
+            when(spotlightSubmissionRepository.findDownloadPage(eq(SCHEME_ID), eq(allStatuses), eq(nonLimitedCompanies),
+                    any(UUID.class), any(Pageable.class))).thenReturn(List.of(nonLimitedRow)).thenReturn(List.of());
+
+            spotlightSubmissionService.writeDownloadFile(schemeDto, false, new ByteArrayOutputStream());
+
+            assertThat(writtenRowsByFilename).hasSize(2);
+            final List<String> filenames = List.copyOf(writtenRowsByFilename.keySet());
+            assertThat(filenames.get(0)).endsWith("_123_name_charities_and_companies_1.xlsx");
+            assertThat(filenames.get(1)).endsWith("_123_name_non_limited_companies_1.xlsx");
+            assertThat(writtenRowsByFilename.get(filenames.get(0))).containsExactly(List.of("GAP-ID",
+                    "Some company name", "9-10 St Andrew Square", "Edinburgh", "county", "EH2 2AF", "50000", "500",
+                    "12738494", ""));
+            assertThat(writtenRowsByFilename.get(filenames.get(1))).singleElement()
+                    .satisfies(row -> assertThat(row.get(0)).isEqualTo("GAP-ID-2"));
+
+            verify(spotlightSubmissionRepository).findDownloadPage(SCHEME_ID, allStatuses, companiesAndCharities,
+                    new UUID(0L, 0L), PageRequest.of(0, 500));
+            verify(spotlightSubmissionRepository).findDownloadPage(SCHEME_ID, allStatuses, companiesAndCharities,
+                    UUID.fromString(charityRow.getId()), PageRequest.of(0, 500));
+        }
 
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(spotlightSubmissionService)
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsRegisteredCharity);
+        @Test
+        void success_ValidationErrors() {
+            final List<String> validationErrorStatus = List.of(SpotlightSubmissionStatus.VALIDATION_ERROR.toString());
 
-            final ByteArrayOutputStream result = spotlightSubmissionService.generateDownloadFile(schemeDto, false);
+            when(spotlightSubmissionRepository.findDownloadPage(eq(SCHEME_ID), eq(validationErrorStatus), anyList(),
+                    any(UUID.class), any(Pageable.class))).thenReturn(List.of());
 
-            verify(spotlightSubmissionRepository).findByGrantScheme_Id(SCHEME_ID);
-            assertThat(result).isNotNull();
+            spotlightSubmissionService.writeDownloadFile(schemeDto, true, new ByteArrayOutputStream());
 
+            verify(spotlightSubmissionRepository).findDownloadPage(SCHEME_ID, validationErrorStatus,
+                    companiesAndCharities, new UUID(0L, 0L), PageRequest.of(0, 500));
+            verify(spotlightSubmissionRepository).findDownloadPage(SCHEME_ID, validationErrorStatus,
+                    nonLimitedCompanies, new UUID(0L, 0L), PageRequest.of(0, 500));
+            assertThat(writtenRowsByFilename.values()).allSatisfy(rows -> assertThat(rows).isEmpty());
         }
 
         @Test
-        void success_UnregisteredCharity() {
-            final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder()
-                    .mandatoryQuestions(grantMandatoryQuestionsUnregisteredCharity).grantScheme(schemeEntity).build();
-            final SchemeDTO schemeDto = SchemeDTO.builder().schemeId(schemeEntity.getId()).name(schemeEntity.getName())
-                    .build();
-
-            final List<SpotlightSubmission> spotlightSubmissions = List.of(spotlightSubmission);
+        void missingMandatoryValue_FailsTheDownload() {
+            final TestSpotlightDownloadRowView badRow = TestSpotlightDownloadRowView.builder().postcode(null).build();
 
-            when(spotlightSubmissionRepository.findByGrantScheme_Id(SCHEME_ID)).thenReturn(spotlightSubmissions);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
+            when(spotlightSubmissionRepository.findDownloadPage(eq(SCHEME_ID), eq(allStatuses), anyList(),
+                    any(UUID.class), any(Pageable.class))).thenReturn(List.of(badRow)).thenReturn(List.of());
 
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(spotlightSubmissionService)
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsUnregisteredCharity);
+            assertThrows(SpotlightExportException.class,
+                    () -> spotlightSubmissionService.writeDownloadFile(schemeDto, false, new ByteArrayOutputStream()));
+        }
 
-            final ByteArrayOutputStream result = spotlightSubmissionService.generateDownloadFile(schemeDto, false);
+    }
 
-            verify(spotlightSubmissionRepository).findByGrantScheme_Id(SCHEME_ID);
-            assertThat(result).isNotNull();
+    @Nested
+    class verifyDownloadFileData {
 
-        }
+        private final List<String> allOrgTypes = List.of("LIMITED_COMPANY", "CHARITY", "REGISTERED_CHARITY",
+                "UNREGISTERED_CHARITY", "NON_LIMITED_COMPANY");
 
         @Test
-        void success_ValidationErrors() {
-            final SpotlightSubmission spotlightSubmission = SpotlightSubmission.builder()
-                    .mandatoryQuestions(grantMandatoryQuestionsUnregisteredCharity).grantScheme(schemeEntity)
-                    .status(SpotlightSubmissionStatus.VALIDATION_ERROR.toString()).build();
-            final SchemeDTO schemeDto = SchemeDTO.builder().schemeId(schemeEntity.getId()).name(schemeEntity.getName())
-                    .build();
+        void completeData_DoesNotThrow() {
+            when(spotlightSubmissionRepository.countDownloadRowsMissingMandatoryData(SCHEME_ID,
+                    List.of(SpotlightSubmissionStatus.VALIDATION_ERROR.toString()), allOrgTypes)).thenReturn(0L);
 
-            final List<SpotlightSubmission> spotlightSubmissions = List.of(spotlightSubmission);
-
-            when(spotlightSubmissionRepository.findByGrantScheme_Id(SCHEME_ID)).thenReturn(spotlightSubmissions);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
-
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(spotlightSubmissionService)
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsUnregisteredCharity);
+            assertDoesNotThrow(() -> spotlightSubmissionService.verifyDownloadFileData(SCHEME_ID, true));
+        }
 
-            final ByteArrayOutputStream result = spotlightSubmissionService.generateDownloadFile(schemeDto, true);
+        @Test
+        void missingMandatoryData_Throws() {
+            when(spotlightSubmissionRepository.countDownloadRowsMissingMandatoryData(eq(SCHEME_ID), anyList(),
+                    eq(allOrgTypes))).thenReturn(2L);
 
-            verify(spotlightSubmissionRepository).findByGrantScheme_Id(SCHEME_ID);
-            assertThat(result).isNotNull();
+            final SpotlightExportException exception = assertThrows(SpotlightExportException.class,
+                    () -> spotlightSubmissionService.verifyDownloadFileData(SCHEME_ID, false));
 
+            assertThat(exception.getMessage()).contains("2 spotlight submissions").contains(SCHEME_ID.toString());
         }
 
     }
@@ -430,67 +463,61 @@ class SpotlightSubmissionServiceTest {
 
         @Test
         void givenGoodInput_returnsExpectedData() {
-            final List<String> spotlightRow = spotlightSubmissionService
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsCharity);
+            final List<String> spotlightRow = spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID,
+                    TestSpotlightDownloadRowView.builder().build());
 
             assertThat(spotlightRow).containsAll(EXPECTED_SPOTLIGHT_ROW);
         }
 
         @Test
         void givenDataWithoutOrgName_throwsException() {
-            grantMandatoryQuestionsCharity.setName(null);
+            final TestSpotlightDownloadRowView row = TestSpotlightDownloadRowView.builder().name(null).build();
 
             final Exception exception = Assert.assertThrows(SpotlightExportException.class,
-                    () -> spotlightSubmissionService.buildSingleSpotlightRow(grantMandatoryQuestionsCharity));
-
-            final String actualMessage = exception.getMessage();
+                    () -> spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
-            assertThat(actualMessage).contains("organisation name");
+            assertThat(exception.getMessage()).contains("organisation name");
         }
 
         @Test
         void givenDataWithoutPostcode_throwsException() {
-            grantMandatoryQuestionsCharity.setPostcode(null);
+            final TestSpotlightDownloadRowView row = TestSpotlightDownloadRowView.builder().postcode(null).build();
 
             final Exception exception = Assert.assertThrows(SpotlightExportException.class,
-                    () -> spotlightSubmissionService.buildSingleSpotlightRow(grantMandatoryQuestionsCharity));
+                    () -> spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
-            final String actualMessage = exception.getMessage();
-
-            assertThat(actualMessage).contains("postcode");
+            assertThat(exception.getMessage()).contains("postcode");
         }
 
         @Test
         void givenDataWithoutAmount_throwsException() {
-            grantMandatoryQuestionsCharity.setFundingAmount(null);
+            final TestSpotlightDownloadRowView row = TestSpotlightDownloadRowView.builder().fundingAmount(null)
+                    .build();
 
             final Exception exception = Assert.assertThrows(SpotlightExportException.class,
-                    () -> spotlightSubmissionService.buildSingleSpotlightRow(grantMandatoryQuestionsCharity));
+                    () -> spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID, row));
 
-            final String actualMessage = exception.getMessage();
-
-            assertThat(actualMessage).contains("Unable to find mandatory question data:");
+            assertThat(exception.getMessage()).contains("application amount");
         }
 
         @Test
-        void givenNullSchemeData_throwsException() {
-            grantMandatoryQuestionsCharity.setSchemeEntity(null);
-
-            final Exception exception = Assert.assertThrows(SpotlightExportException.class,
-                    () -> spotlightSubmissionService.buildSingleSpotlightRow(grantMandatoryQuestionsCharity));
+        void givenDataWithoutCityOrCounty_returnsBlanks() {
+            final TestSpotlightDownloadRowView row = TestSpotlightDownloadRowView.builder().city(null).county(null)
+                    .build();
 
-            final String actualMessage = exception.getMessage();
+            final List<String> spotlightRow = spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID, row);
 
-            assertThat(actualMessage).contains("Unable to find mandatory question data:");
+            assertThat(spotlightRow.get(3)).isEmpty();
+            assertThat(spotlightRow.get(4)).isEmpty();
         }
 
         @Test
         void givenDataWithoutCharityNumber_returnsExpectedData() {
-            grantMandatoryQuestionsCharity.setCharityCommissionNumber(null);
+            final TestSpotlightDownloadRowView row = TestSpotlightDownloadRowView.builder()
+                    .charityCommissionNumber(null).build();
             EXPECTED_SPOTLIGHT_ROW.set(6, "");
 
-            final List<String> spotlightRow = spotlightSubmissionService
-                    .buildSingleSpotlightRow(grantMandatoryQuestionsCharity);
+            final List<String> spotlightRow = spotlightSubmissionService.buildSingleSpotlightRow(SCHEME_ID, row);
 
             assertThat(spotlightRow).containsAll(EXPECTED_SPOTLIGHT_ROW);
         }
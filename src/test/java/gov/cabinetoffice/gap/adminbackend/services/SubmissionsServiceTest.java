@@ -2,6 +2,9 @@ package gov.cabinetoffice.gap.adminbackend.services;
 
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.AmazonSQSException;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import gov.cabinetoffice.gap.adminbackend.annotations.WithAdminSession;
 import gov.cabinetoffice.gap.adminbackend.client.UserServiceClient;
 import gov.cabinetoffice.gap.adminbackend.dtos.UserV2DTO;
@@ -10,6 +13,7 @@ import gov.cabinetoffice.gap.adminbackend.dtos.application.ApplicationFormDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.schemes.SchemeDTO;
 import gov.cabinetoffice.gap.adminbackend.dtos.submission.*;
 import gov.cabinetoffice.gap.adminbackend.dtos.user.UserDto;
+import gov.cabinetoffice.gap.adminbackend.entities.GrantExportBatchEntity;
 import gov.cabinetoffice.gap.adminbackend.entities.GrantExportEntity;
 import gov.cabinetoffice.gap.adminbackend.entities.SchemeEntity;
 import gov.cabinetoffice.gap.adminbackend.entities.Submission;
@@ -27,12 +31,18 @@ import gov.cabinetoffice.gap.adminbackend.repositories.GrantExportRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.SubmissionRepository;
 import gov.cabinetoffice.gap.adminbackend.testdata.generators.RandomGrantExportEntityGenerator;
 import gov.cabinetoffice.gap.adminbackend.testdata.generators.RandomSubmissionGenerator;
+import gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls.TestSpotlightExportRowView;
+import gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls.TestSubmissionExportView;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.web.client.RestTemplate;
@@ -40,6 +50,9 @@ import org.springframework.web.client.RestTemplate;
 import java.io.ByteArrayOutputStream;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
 
 import static gov.cabinetoffice.gap.adminbackend.services.SubmissionsService.combineAddressLines;
 import static gov.cabinetoffice.gap.adminbackend.services.SubmissionsService.mandatoryValue;
@@ -96,6 +109,10 @@ class SubmissionsServiceTest {
     @Mock
     private UserServiceClient userServiceClient;
 
+    // runs export work on the test thread
+    @Spy
+    private Executor executor = new SyncTaskExecutor();
+
     private final List<String> EXPECTED_SPOTLIGHT_ROW = Arrays.asList("GAP-LL-20220927-1", "Some company name",
             "9-10 St Andrew Square", "Edinburgh", "EH2 2AF", "500", "12738494", "Yes", "");
 
@@ -126,75 +143,96 @@ class SubmissionsServiceTest {
     @Nested
     class ExportSpotlightChecksTests {
 
-        @Test
-        void exportSpotlightChecksWithGoodData() {
-            final ApplicationFormDTO applicationFormDTO = ApplicationFormDTO.builder()
-                    .audit(ApplicationAuditDTO.builder().createdBy(1).build()).grantSchemeId(1)
-                    .applicationName("applicationName").build();
-            final SubmissionDefinition submissionDefinition = randomSubmissionDefinition(SUBMISSION_DEFINITION).build();
-            final Submission submission = RandomSubmissionGenerator.randomSubmission()
-                    .status(SubmissionStatus.SUBMITTED)
-                    .createdBy(GrantApplicant.builder().id(1).userId(UUID.randomUUID().toString()).build())
-                    .definition(submissionDefinition).build();
-            final SchemeDTO schemeDTO = SchemeDTO.builder().schemeId(1).ggisReference("123").build();
+        private final ApplicationFormDTO applicationFormDTO = ApplicationFormDTO.builder()
+                .audit(ApplicationAuditDTO.builder().createdBy(1).build()).grantSchemeId(1)
+                .applicationName("applicationName").build();
+
+        private final SchemeDTO schemeDTO = SchemeDTO.builder().schemeId(1).ggisReference("123").build();
+
+        private final List<List<String>> writtenRows = new ArrayList<>();
 
+        private final List<String> writtenFilenames = new ArrayList<>();
+
+        @BeforeEach
+        void setup() {
             when(applicationFormService.retrieveApplicationFormSummary(1, false, false)).thenReturn(applicationFormDTO);
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
-                    .thenReturn(Collections.singletonList(submission));
             when(schemeService.getSchemeBySchemeId(applicationFormDTO.getGrantSchemeId())).thenReturn(schemeDTO);
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(submissionsService).buildSingleSpotlightRow(submission);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
+            doAnswer(invocation -> {
+                final Iterator<List<String>> rows = invocation.getArgument(1);
+                final IntFunction<String> filenameForPart = invocation.getArgument(3);
+                rows.forEachRemaining(writtenRows::add);
+                writtenFilenames.add(filenameForPart.apply(1));
+                return null;
+            }).when(zipService).writeZip(anyList(), any(), anyInt(), any(), any());
+        }
+
+        @Test
+        void exportSpotlightChecksWithGoodData() {
+            final TestSpotlightExportRowView exportRow = TestSpotlightExportRowView.builder().build();
+
+            when(submissionRepository.findSpotlightExportPage(eq(1), eq("SUBMITTED"), any(UUID.class),
+                    any(Pageable.class))).thenReturn(List.of(exportRow)).thenReturn(Collections.emptyList());
+            doReturn(EXPECTED_SPOTLIGHT_ROW).when(submissionsService).buildSingleSpotlightRow(exportRow);
 
-            ByteArrayOutputStream dataStream = submissionsService.exportSpotlightChecks(1);
+            submissionsService.exportSpotlightChecks(1, new ByteArrayOutputStream());
 
-            verify(submissionRepository).findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED);
-            assertThat(dataStream).isNotNull();
+            assertThat(writtenRows).containsExactly(EXPECTED_SPOTLIGHT_ROW);
+            assertThat(writtenFilenames.get(0)).endsWith("_123_applicationName_1.xlsx");
+            verify(submissionRepository).findSpotlightExportPage(1, "SUBMITTED", new UUID(0L, 0L),
+                    PageRequest.of(0, 500));
+            verify(submissionRepository).findSpotlightExportPage(1, "SUBMITTED", UUID.fromString(exportRow.getId()),
+                    PageRequest.of(0, 500));
         }
 
         @Test
-        void exportSpotlightChecksWithEmptySubmission() {
+        void exportSpotlightChecksSkipsSubmissionsWithMissingData() {
+            final TestSpotlightExportRowView exportRow = TestSpotlightExportRowView.builder()
+                    .hasEssentialQuestions(false).build();
 
-            final ApplicationFormDTO applicationFormDTO = ApplicationFormDTO.builder()
-                    .audit(ApplicationAuditDTO.builder().createdBy(1).build()).grantSchemeId(1)
-                    .applicationName("applicationName").build();
-            final Submission submission = randomSubmission().definition(emptySubmissionDefinition()).build();
-            final SchemeDTO schemeDTO = SchemeDTO.builder().schemeId(1).ggisReference("123").build();
+            when(submissionRepository.findSpotlightExportPage(eq(1), eq("SUBMITTED"), any(UUID.class),
+                    any(Pageable.class))).thenReturn(List.of(exportRow)).thenReturn(Collections.emptyList());
 
-            when(applicationFormService.retrieveApplicationFormSummary(1, false, false)).thenReturn(applicationFormDTO);
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
-                    .thenReturn(Collections.singletonList(submission));
-            when(schemeService.getSchemeBySchemeId(applicationFormDTO.getGrantSchemeId())).thenReturn(schemeDTO);
-            doReturn(EXPECTED_SPOTLIGHT_ROW).when(submissionsService).buildSingleSpotlightRow(submission);
-            when(zipService.createZip(anyList(), anyList(), anyList())).thenReturn(new ByteArrayOutputStream());
+            submissionsService.exportSpotlightChecks(1, new ByteArrayOutputStream());
 
-            ByteArrayOutputStream dataStream = submissionsService.exportSpotlightChecks(1);
+            assertThat(writtenRows).isEmpty();
+        }
 
-            verify(submissionRepository).findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED);
-            assertThat(dataStream).isNotNull();
+    }
 
-        }
+    @Nested
+    class VerifySpotlightExportAccessTests {
 
         @Test
-        void exportSpotlightApplicationNotFound() {
+        void verifySpotlightExportAccessApplicationNotFound() {
             when(applicationFormService.retrieveApplicationFormSummary(1, false, false))
                     .thenThrow(new ApplicationFormException("Application form not found with id 1"));
 
-            assertThatThrownBy(() -> submissionsService.exportSpotlightChecks(1))
+            assertThatThrownBy(() -> submissionsService.verifySpotlightExportAccess(1))
                     .isInstanceOf(ApplicationFormException.class).hasMessage("Application form not found with id 1");
         }
 
         @Test
-        void exportSpotlightSubmissionsNotFound() {
+        void verifySpotlightExportAccessWrongAdmin() {
             ApplicationFormDTO applicationFormDTO = ApplicationFormDTO.builder()
                     .audit(new ApplicationAuditDTO(null, null, 2, null, null, null)).build();
 
             when(applicationFormService.retrieveApplicationFormSummary(1, false, false)).thenReturn(applicationFormDTO);
 
-            assertThatThrownBy(() -> submissionsService.exportSpotlightChecks(1))
+            assertThatThrownBy(() -> submissionsService.verifySpotlightExportAccess(1))
                     .isInstanceOf(AccessDeniedException.class)
                     .hasMessage("Admin 1 is unable to access application with id 1");
         }
 
+        @Test
+        void verifySpotlightExportAccessCorrectAdmin() {
+            ApplicationFormDTO applicationFormDTO = ApplicationFormDTO.builder()
+                    .audit(new ApplicationAuditDTO(null, null, 1, null, null, null)).build();
+
+            when(applicationFormService.retrieveApplicationFormSummary(1, false, false)).thenReturn(applicationFormDTO);
+
+            assertThatNoException().isThrownBy(() -> submissionsService.verifySpotlightExportAccess(1));
+        }
+
     }
 
     @Nested
@@ -350,6 +388,40 @@ class SubmissionsServiceTest {
 
     }
 
+    @Nested
+    class BuildSingleSpotlightRowFromExportRowTests {
+
+        @Test
+        void givenGoodInput_returnsExpectedData() {
+            List<String> spotlightRow = submissionsService
+                    .buildSingleSpotlightRow(TestSpotlightExportRowView.builder().build());
+
+            assertThat(spotlightRow).containsExactlyElementsOf(EXPECTED_SPOTLIGHT_ROW);
+        }
+
+        @Test
+        void givenRowWithoutEssentialQuestions_throwsException() {
+            TestSpotlightExportRowView exportRow = TestSpotlightExportRowView.builder().hasEssentialQuestions(false)
+                    .build();
+
+            Exception exception = assertThrows(SpotlightExportException.class,
+                    () -> submissionsService.buildSingleSpotlightRow(exportRow));
+
+            assertThat(exception.getMessage()).contains("ESSENTIAL").contains(exportRow.getId());
+        }
+
+        @Test
+        void givenRowWithoutPostcode_throwsException() {
+            TestSpotlightExportRowView exportRow = TestSpotlightExportRowView.builder().addressPostcode(null).build();
+
+            Exception exception = assertThrows(SpotlightExportException.class,
+                    () -> submissionsService.buildSingleSpotlightRow(exportRow));
+
+            assertThat(exception.getMessage()).contains("POSTCODE");
+        }
+
+    }
+
     @Nested
     class UpdateApplicationExportSpotlightFlagTests {
 
@@ -372,56 +444,161 @@ class SubmissionsServiceTest {
     }
 
     @Nested
-    class TriggerSubmissionsExportTests {
+    class RequestSubmissionsExportTests {
 
         @Test
-        void happyPath_throwsNoException() {
-            SchemeEntity scheme = SchemeEntity.builder().id(1).build();
-            List<Submission> submissions = Collections
-                    .singletonList(randomSubmission().definition(SUBMISSION_DEFINITION).scheme(scheme).build());
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
-                    .thenReturn(submissions);
+        void happyPath_savesRequestedBatchAndReturnsItsId() {
+            when(submissionRepository.existsByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenReturn(true);
 
-            // results of exportRecordRepository.save() and amazonSQS.sendMessage()
-            // are ignored, so no need to mock them since mocks return null anyway - only
-            // interested in them not throwing an exception
+            final UUID exportBatchId = submissionsService.requestSubmissionsExport(1);
 
-            assertThatNoException().isThrownBy(() -> submissionsService.triggerSubmissionsExport(1));
+            verify(grantExportBatchRepository).save(argThat(batch -> batch.getId().equals(exportBatchId)
+                    && batch.getApplicationId() == 1 && batch.getStatus() == GrantExportStatus.REQUESTED));
         }
 
         @Test
         void noSubmissionsFound_throwsException() {
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
-                    .thenReturn(Collections.emptyList());
+            when(submissionRepository.existsByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenReturn(false);
 
-            assertThatThrownBy(() -> submissionsService.triggerSubmissionsExport(1))
+            assertThatThrownBy(() -> submissionsService.requestSubmissionsExport(1))
                     .isInstanceOf(NotFoundException.class)
                     .hasMessage("No submissions in SUBMITTED state for application 1");
 
+            verify(grantExportBatchRepository, never()).save(any());
+        }
+
+    }
+
+    @Nested
+    class ProcessExportBatchTests {
+
+        final UUID EXPORT_BATCH_ID = UUID.randomUUID();
+
+        final GrantExportBatchEntity EXPORT_BATCH = GrantExportBatchEntity.builder().id(EXPORT_BATCH_ID)
+                .applicationId(1).status(GrantExportStatus.REQUESTED).createdBy(1).emailAddress("test@test.com")
+                .build();
+
+        @Test
+        void happyPath_writesExportRecordsInBulkAndMarksBatchNotGenerated() {
+            List<SubmissionExportView> submissions = IntStream.range(0, 25)
+                    .mapToObj(i -> (SubmissionExportView) new TestSubmissionExportView(UUID.randomUUID(), 1)).toList();
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(1);
+            when(grantExportBatchRepository.findById(EXPORT_BATCH_ID)).thenReturn(Optional.of(EXPORT_BATCH));
+            when(submissionRepository.findExportViewsByApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenReturn(submissions);
+            when(grantExportRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(amazonSQS.sendMessageBatch(any())).thenReturn(new SendMessageBatchResult());
+
+            submissionsService.processExportBatch(EXPORT_BATCH_ID);
+
+            verify(grantExportRepository, times(1)).insertAll(argThat(exportRecords -> exportRecords.size() == 25
+                    && exportRecords.stream().allMatch(r -> r.getStatus() == GrantExportStatus.REQUESTED
+                            && r.getId().getExportBatchId().equals(EXPORT_BATCH_ID))));
+            verify(amazonSQS, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+            verify(grantExportBatchRepository).updateStatusById(EXPORT_BATCH_ID.toString(),
+                    GrantExportStatus.NOT_GENERATED.toString());
+        }
+
+        @Test
+        void batchAlreadyClaimed_doesNothing() {
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(0);
+
+            submissionsService.processExportBatch(EXPORT_BATCH_ID);
+
+            verify(grantExportRepository, never()).insertAll(any());
+            verifyNoInteractions(amazonSQS);
         }
 
         @Test
-        void repoSaveFailure_throwsException() {
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
-                    .thenThrow(new RuntimeException("Generic save fails"));
+        void recordsInsertedByEarlierAttempt_areNotSentAgain() {
+            List<SubmissionExportView> submissions = IntStream.range(0, 3)
+                    .mapToObj(i -> (SubmissionExportView) new TestSubmissionExportView(UUID.randomUUID(), 1)).toList();
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(1);
+            when(grantExportBatchRepository.findById(EXPORT_BATCH_ID)).thenReturn(Optional.of(EXPORT_BATCH));
+            when(submissionRepository.findExportViewsByApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenReturn(submissions);
+            when(grantExportRepository.insertAll(any()))
+                    .thenAnswer(invocation -> invocation.<List<GrantExportEntity>>getArgument(0).subList(0, 1));
+            when(amazonSQS.sendMessageBatch(any())).thenReturn(new SendMessageBatchResult());
 
-            assertThatThrownBy(() -> submissionsService.triggerSubmissionsExport(1))
-                    .isInstanceOf(RuntimeException.class);
+            submissionsService.processExportBatch(EXPORT_BATCH_ID);
 
+            verify(amazonSQS).sendMessageBatch(argThat((SendMessageBatchRequest request) -> request.getEntries()
+                    .size() == 1
+                    && request.getEntries().get(0).getMessageAttributes().get("submissionId").getStringValue()
+                            .equals(submissions.get(0).getId().toString())));
+            verify(grantExportBatchRepository).updateStatusById(EXPORT_BATCH_ID.toString(),
+                    GrantExportStatus.NOT_GENERATED.toString());
         }
 
         @Test
-        void sqsMessageFailure_throwsException() {
-            SchemeEntity scheme = SchemeEntity.builder().id(1).build();
-            List<Submission> submissions = Collections
-                    .singletonList(randomSubmission().definition(SUBMISSION_DEFINITION).scheme(scheme).build());
-            when(submissionRepository.findByApplicationGrantApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+        void sqsMessageFailure_removesUnsentRecordsAndLeavesBatchRequested() {
+            final UUID submissionId = UUID.randomUUID();
+            List<SubmissionExportView> submissions = Collections
+                    .singletonList(new TestSubmissionExportView(submissionId, 1));
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(1);
+            when(grantExportBatchRepository.findById(EXPORT_BATCH_ID)).thenReturn(Optional.of(EXPORT_BATCH));
+            when(submissionRepository.findExportViewsByApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
                     .thenReturn(submissions);
+            when(grantExportRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
             when(amazonSQS.sendMessageBatch(any())).thenThrow(new AmazonSQSException("Cannot send messages"));
 
-            assertThatThrownBy(() -> submissionsService.triggerSubmissionsExport(1))
-                    .isInstanceOf(AmazonSQSException.class);
+            assertThatNoException().isThrownBy(() -> submissionsService.processExportBatch(EXPORT_BATCH_ID));
+
+            verify(grantExportRepository).deleteByExportBatchIdAndSubmissionIdIn(EXPORT_BATCH_ID, Set.of(submissionId));
+            verify(grantExportBatchRepository).failBatchIfOutOfAttempts(EXPORT_BATCH_ID.toString(), 5);
+            verify(grantExportBatchRepository, never()).updateStatusById(any(), any());
+        }
+
+        @Test
+        void sqsRejectsSomeMessages_removesOnlyTheRejectedRecords() {
+            final UUID rejectedSubmissionId = UUID.randomUUID();
+            List<SubmissionExportView> submissions = List.of(new TestSubmissionExportView(UUID.randomUUID(), 1),
+                    new TestSubmissionExportView(rejectedSubmissionId, 1));
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(1);
+            when(grantExportBatchRepository.findById(EXPORT_BATCH_ID)).thenReturn(Optional.of(EXPORT_BATCH));
+            when(submissionRepository.findExportViewsByApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenReturn(submissions);
+            when(grantExportRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+            when(amazonSQS.sendMessageBatch(any())).thenAnswer(invocation -> {
+                final SendMessageBatchRequest request = invocation.getArgument(0);
+                final String rejectedEntryId = request.getEntries().stream()
+                        .filter(entry -> entry.getMessageAttributes().get("submissionId").getStringValue()
+                                .equals(rejectedSubmissionId.toString()))
+                        .findFirst().orElseThrow().getId();
+                return new SendMessageBatchResult().withFailed(new BatchResultErrorEntry().withId(rejectedEntryId)
+                        .withCode("InternalError").withSenderFault(false));
+            });
+
+            submissionsService.processExportBatch(EXPORT_BATCH_ID);
+
+            verify(grantExportRepository).deleteByExportBatchIdAndSubmissionIdIn(EXPORT_BATCH_ID,
+                    Set.of(rejectedSubmissionId));
+            verify(grantExportBatchRepository, never()).updateStatusById(any(), any());
+        }
+
+        @Test
+        void lastAttemptFails_marksBatchFailed() {
+            when(grantExportBatchRepository.claimRequestedBatch(EXPORT_BATCH_ID.toString(), 5, 600)).thenReturn(1);
+            when(grantExportBatchRepository.findById(EXPORT_BATCH_ID)).thenReturn(Optional.of(EXPORT_BATCH));
+            when(submissionRepository.findExportViewsByApplicationIdAndStatus(1, SubmissionStatus.SUBMITTED))
+                    .thenThrow(new IllegalStateException("Database unavailable"));
+            when(grantExportBatchRepository.failBatchIfOutOfAttempts(EXPORT_BATCH_ID.toString(), 5)).thenReturn(1);
+            when(grantExportRepository.findStatusesByApplicationId(1)).thenReturn(List.of("FAILED"));
+
+            assertThatNoException().isThrownBy(() -> submissionsService.processExportBatch(EXPORT_BATCH_ID));
+
+            assertThat(submissionsService.getExportStatus(1)).isEqualTo(GrantExportStatus.FAILED);
+            verifyNoInteractions(amazonSQS);
+        }
+
+        @Test
+        void failAbandonedExportBatches_usesAttemptLimitAndLease() {
+            submissionsService.failAbandonedExportBatches();
 
+            verify(grantExportBatchRepository).failAbandonedBatchesOutOfAttempts(5, 600);
         }
 
     }
@@ -433,7 +610,7 @@ class SubmissionsServiceTest {
 
         @Test
         void whenApplicationIsNotFound_returnNotStarted() {
-            when(grantExportRepository.existsByApplicationId(APPLICATION_ID)).thenReturn(false);
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID)).thenReturn(List.of());
 
             final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
 
@@ -442,9 +619,8 @@ class SubmissionsServiceTest {
 
         @Test
         void whenExportRecordsExist_returnProcessing() {
-            when(grantExportRepository.existsByApplicationId(APPLICATION_ID)).thenReturn(true);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.PROCESSING))
-                    .thenReturn(true);
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID))
+                    .thenReturn(List.of("COMPLETE", "REQUESTED", "PROCESSING"));
 
             final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
 
@@ -453,11 +629,8 @@ class SubmissionsServiceTest {
 
         @Test
         void whenExportRecordsStillRequested_returnAwaiting() {
-            when(grantExportRepository.existsByApplicationId(APPLICATION_ID)).thenReturn(true);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.PROCESSING))
-                    .thenReturn(false);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.REQUESTED))
-                    .thenReturn(true);
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID))
+                    .thenReturn(List.of("FAILED", "REQUESTED"));
 
             final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
 
@@ -466,11 +639,8 @@ class SubmissionsServiceTest {
 
         @Test
         void whenExportRecordsComplete_returnComplete() {
-            when(grantExportRepository.existsByApplicationId(APPLICATION_ID)).thenReturn(true);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.PROCESSING))
-                    .thenReturn(false);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.REQUESTED))
-                    .thenReturn(false);
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID))
+                    .thenReturn(List.of("COMPLETE"));
 
             final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
 
@@ -479,15 +649,26 @@ class SubmissionsServiceTest {
 
         @Test
         void whenExportRecordsExist_returnFailed() {
-            when(grantExportRepository.existsByApplicationId(APPLICATION_ID)).thenReturn(true);
-            when(grantExportRepository.existsByApplicationIdAndStatus(APPLICATION_ID, GrantExportStatus.FAILED))
-                    .thenReturn(true);
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID))
+                    .thenReturn(List.of("COMPLETE", "FAILED"));
 
             final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
 
             assertThat(result).isEqualTo(GrantExportStatus.FAILED);
         }
 
+        @Test
+        void whenPolledRepeatedly_queriesDatabaseOnce() {
+            when(grantExportRepository.findStatusesByApplicationId(APPLICATION_ID))
+                    .thenReturn(List.of("PROCESSING"));
+
+            submissionsService.getExportStatus(APPLICATION_ID);
+            final GrantExportStatus result = submissionsService.getExportStatus(APPLICATION_ID);
+
+            assertThat(result).isEqualTo(GrantExportStatus.PROCESSING);
+            verify(grantExportRepository, times(1)).findStatusesByApplicationId(APPLICATION_ID);
+        }
+
     }
 
     @Nested
@@ -12,6 +12,7 @@ import gov.cabinetoffice.gap.adminbackend.models.AdminSession;
 import gov.cabinetoffice.gap.adminbackend.repositories.GapUserRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantAdminRepository;
 import gov.cabinetoffice.gap.adminbackend.repositories.GrantApplicantRepository;
+import gov.cabinetoffice.gap.adminbackend.security.AdminSessionCache;
 import gov.cabinetoffice.gap.adminbackend.services.encryption.AwsEncryptionServiceImpl;
 import gov.cabinetoffice.gap.adminbackend.utils.HelperUtils;
 import org.junit.jupiter.api.Nested;
@@ -62,6 +63,9 @@ class UserServiceTest {
     @Mock
     private AwsEncryptionServiceImpl encryptionService;
 
+    @Mock
+    private AdminSessionCache adminSessionCache;
+
     private final String oneLoginSub = "oneLoginSub";
 
     private final UUID colaSub = UUID.randomUUID();
@@ -112,6 +116,7 @@ class UserServiceTest {
 
             verify(grantAdminRepository, times(1)).deleteByGapUserUserSub(any());
             verify(gapUserRepository, times(1)).deleteByUserSub(any());
+            verify(adminSessionCache, times(1)).invalidateUser(oneLoginSub);
         }
 
         @Test
@@ -1,22 +1,31 @@
 package gov.cabinetoffice.gap.adminbackend.services;
 
 import gov.cabinetoffice.gap.adminbackend.annotations.WithAdminSession;
+import gov.cabinetoffice.gap.adminbackend.config.ZipExportConfigProperties;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @SpringJUnitConfig
 @WithAdminSession
 public class ZipServiceTest {
 
-    @InjectMocks
-    private ZipService zipService;
+    private final ZipService zipService = zipService(1, false);
 
     final List<String> headersList = Arrays.asList("Header1", "Header2", "Header3");
 
@@ -31,4 +40,127 @@ public class ZipServiceTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void writeZipSplitsRowsIntoFiles() throws IOException {
+        final List<List<String>> rows = IntStream.range(0, 5).mapToObj(i -> Arrays.asList("Data" + i, "a", "b"))
+                .toList();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        zipService.writeZip(headersList, rows.iterator(), 2, part -> "File" + part + ".xlsx", outputStream);
+
+        final List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+            }
+        }
+        assertThat(entryNames).containsExactly("File1.xlsx", "File2.xlsx", "File3.xlsx");
+    }
+
+    @Test
+    public void writeZipNumbersEachSourceSeparately() throws IOException {
+        final List<List<String>> rows = IntStream.range(0, 3).mapToObj(i -> Arrays.asList("Data" + i, "a", "b"))
+                .toList();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        zipService.writeZip(headersList,
+                List.of(new ZipService.PartSource(rows.iterator(), part -> "First" + part + ".xlsx"),
+                        new ZipService.PartSource(List.<List<String>>of().iterator(), part -> "Empty" + part + ".xlsx"),
+                        new ZipService.PartSource(rows.iterator(), part -> "Second" + part + ".xlsx")),
+                2, outputStream);
+
+        final List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+            }
+        }
+        assertThat(entryNames).containsExactly("First1.xlsx", "First2.xlsx", "Second1.xlsx", "Second2.xlsx");
+    }
+
+    @Test
+    public void writeZipWithNoRowsCreatesEmptyZip() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        zipService.writeZip(headersList, List.<List<String>>of().iterator(), 2, part -> "File" + part + ".xlsx",
+                outputStream);
+
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(zipIn.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    public void writeZipRendersPartsConcurrentlyInOrder() throws IOException {
+        final ZipService parallelZipService = zipService(4, false);
+        final List<List<String>> rows = IntStream.range(0, 25).mapToObj(i -> Arrays.asList("Data" + i, "a", "b"))
+                .toList();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try {
+            parallelZipService.writeZip(headersList, rows.iterator(), 2, part -> "File" + part + ".xlsx",
+                    outputStream);
+        }
+        finally {
+            parallelZipService.shutdown();
+        }
+
+        final List<String> entryNames = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entryNames.add(entry.getName());
+            }
+        }
+        assertThat(entryNames).containsExactlyElementsOf(
+                IntStream.rangeClosed(1, 13).mapToObj(part -> "File" + part + ".xlsx").toList());
+    }
+
+    @Test
+    public void createZipStoresEntriesWhenConfigured() throws IOException {
+        final ZipService storingZipService = zipService(2, true);
+
+        final ByteArrayOutputStream result;
+        try {
+            result = storingZipService.createZip(headersList, dataList, filenames);
+        }
+        finally {
+            storingZipService.shutdown();
+        }
+
+        final List<Integer> methods = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(result.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                methods.add(entry.getMethod());
+                assertThat(zipIn.readAllBytes()).isNotEmpty();
+            }
+        }
+        assertThat(methods).containsExactly(ZipEntry.STORED, ZipEntry.STORED);
+    }
+
+    @Test
+    public void createZipAutoSizesColumns() throws IOException {
+        final String longValue = "A value much wider than the default column width";
+        final ByteArrayOutputStream result = zipService.createZip(headersList,
+                List.of(List.of(Arrays.asList(longValue, "a", "b"))), List.of("File1.xlsx"));
+
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(result.toByteArray()))) {
+            assertNotNull(zipIn.getNextEntry());
+            try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(zipIn.readAllBytes()))) {
+                final Sheet sheet = workbook.getSheetAt(0);
+                assertThat(sheet.getColumnWidth(0)).isGreaterThan(sheet.getColumnWidth(1));
+            }
+        }
+    }
+
+    private static ZipService zipService(int parallelism, boolean storeEntries) {
+        final ZipExportConfigProperties properties = new ZipExportConfigProperties();
+        properties.setParallelism(parallelism);
+        properties.setStoreEntries(storeEntries);
+        return new ZipService(properties);
+    }
+
 }
@@ -13,6 +13,7 @@ import gov.cabinetoffice.gap.adminbackend.models.*;
 import gov.cabinetoffice.gap.adminbackend.services.GrantAdvertService;
 import gov.cabinetoffice.gap.adminbackend.services.SchemeService;
 import gov.cabinetoffice.gap.adminbackend.testdata.PagesGrantAdvertSummaryTestData;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -24,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 import static gov.cabinetoffice.gap.adminbackend.testdata.PagesAdvertControllerTestData.*;
 import static gov.cabinetoffice.gap.adminbackend.testdata.SchemeTestData.SAMPLE_SCHEME_ID;
@@ -32,6 +34,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 @SpringJUnitConfig
@@ -50,6 +54,16 @@ class PagesAdvertServiceTest {
     @InjectMocks
     private PagesAdvertService serviceUnderTest;
 
+    @BeforeEach
+    void setup() {
+        // views are built straight from whatever getAdvertById is stubbed to return, caching is covered in
+        // GrantAdvertServiceTest
+        when(grantAdvertService.getAdvertView(any(), anyString(), any())).thenAnswer(invocation -> {
+            final Function<GrantAdvert, ?> buildView = invocation.getArgument(2);
+            return buildView.apply(grantAdvertService.getAdvertById(invocation.getArgument(0)));
+        });
+    }
+
     @Test
     void populateSectionsListForDto() {
         final List<AdvertSectionOverviewPageSectionDto> dtoSectionsList = new ArrayList<>();
@@ -0,0 +1,50 @@
+package gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls;
+
+import gov.cabinetoffice.gap.adminbackend.dtos.GrantMandatoryQuestionExportView;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Builder(toBuilder = true)
+public class TestGrantMandatoryQuestionExportView implements GrantMandatoryQuestionExportView {
+
+    @Builder.Default
+    private String id = UUID.randomUUID().toString();
+
+    @Builder.Default
+    private String gapId = "GAP-ID";
+
+    @Builder.Default
+    private String name = "Some company name";
+
+    @Builder.Default
+    private String addressLine1 = "9-10 St Andrew Square";
+
+    @Builder.Default
+    private String addressLine2 = null;
+
+    @Builder.Default
+    private String city = "Edinburgh";
+
+    @Builder.Default
+    private String county = "county";
+
+    @Builder.Default
+    private String postcode = "EH2 2AF";
+
+    @Builder.Default
+    private BigDecimal fundingAmount = BigDecimal.valueOf(50000);
+
+    @Builder.Default
+    private String charityCommissionNumber = "500";
+
+    @Builder.Default
+    private String companiesHouseNumber = "12738494";
+
+    @Builder.Default
+    private String orgType = "CHARITY";
+
+}
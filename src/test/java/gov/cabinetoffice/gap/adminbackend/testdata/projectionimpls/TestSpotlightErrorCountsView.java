@@ -0,0 +1,23 @@
+package gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls;
+
+import gov.cabinetoffice.gap.adminbackend.dtos.spotlightBatch.SpotlightErrorCountsView;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class TestSpotlightErrorCountsView implements SpotlightErrorCountsView {
+
+    @Builder.Default
+    private Integer apiErrorCount = 0;
+
+    @Builder.Default
+    private Integer ggisErrorCount = 0;
+
+    @Builder.Default
+    private Integer validationErrorCount = 0;
+
+    @Builder.Default
+    private Boolean validationErrorPresent = false;
+
+}
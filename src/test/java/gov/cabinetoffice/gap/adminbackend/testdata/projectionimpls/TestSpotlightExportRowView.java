@@ -0,0 +1,49 @@
+package gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls;
+
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SpotlightExportRowView;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@Builder(toBuilder = true)
+public class TestSpotlightExportRowView implements SpotlightExportRowView {
+
+    @Builder.Default
+    private String id = UUID.randomUUID().toString();
+
+    @Builder.Default
+    private String gapId = "GAP-LL-20220927-1";
+
+    @Builder.Default
+    private Boolean hasEssentialQuestions = true;
+
+    @Builder.Default
+    private String organisationName = "Some company name";
+
+    @Builder.Default
+    private String addressLine1 = "9-10 St Andrew Square";
+
+    @Builder.Default
+    private String addressLine2 = null;
+
+    @Builder.Default
+    private String addressTown = "Edinburgh";
+
+    @Builder.Default
+    private String addressCounty = null;
+
+    @Builder.Default
+    private String addressPostcode = "EH2 2AF";
+
+    @Builder.Default
+    private String applicationAmount = "500";
+
+    @Builder.Default
+    private String charityNumber = "12738494";
+
+    @Builder.Default
+    private String companyNumber = "Yes";
+
+}
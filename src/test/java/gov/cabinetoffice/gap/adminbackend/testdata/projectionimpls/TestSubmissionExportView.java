@@ -0,0 +1,17 @@
+package gov.cabinetoffice.gap.adminbackend.testdata.projectionimpls;
+
+import gov.cabinetoffice.gap.adminbackend.dtos.submission.SubmissionExportView;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class TestSubmissionExportView implements SubmissionExportView {
+
+    private UUID id;
+
+    private Integer schemeId;
+
+}
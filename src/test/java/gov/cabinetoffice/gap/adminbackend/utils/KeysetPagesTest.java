@@ -0,0 +1,59 @@
+package gov.cabinetoffice.gap.adminbackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetPagesTest {
+
+    private final UUID firstId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final UUID secondId = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    private final UUID thirdId = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Test
+    void stream_readsEachPageAfterTheLastIdOfThePreviousOne() {
+        final List<UUID> requestedAfter = new ArrayList<>();
+        final Function<UUID, List<String>> findPageAfter = lastId -> {
+            requestedAfter.add(lastId);
+            if (lastId.equals(KeysetPages.FIRST_ID)) {
+                return List.of(firstId.toString(), secondId.toString());
+            }
+            if (lastId.equals(secondId)) {
+                return List.of(thirdId.toString());
+            }
+            return List.of();
+        };
+
+        final List<String> rows = KeysetPages.stream(findPageAfter, Function.identity()).toList();
+
+        assertThat(rows).containsExactly(firstId.toString(), secondId.toString(), thirdId.toString());
+        assertThat(requestedAfter).containsExactly(KeysetPages.FIRST_ID, secondId, thirdId);
+    }
+
+    @Test
+    void stream_readsLaterPagesOnlyWhenReached() {
+        final List<UUID> requestedAfter = new ArrayList<>();
+        final Function<UUID, List<String>> findPageAfter = lastId -> {
+            requestedAfter.add(lastId);
+            return List.of(UUID.randomUUID().toString());
+        };
+
+        final List<String> rows = KeysetPages.stream(findPageAfter, Function.identity()).limit(1).toList();
+
+        assertThat(rows).hasSize(1);
+        assertThat(requestedAfter).containsExactly(KeysetPages.FIRST_ID);
+    }
+
+    @Test
+    void stream_emptyFirstPage_returnsNoRows() {
+        assertThat(KeysetPages.stream(lastId -> List.<String>of(), Function.identity())).isEmpty();
+    }
+
+}
@@ -4,14 +4,19 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
@@ -118,4 +123,37 @@ public class XlsxGeneratorTest {
         }
     }
 
+    @Test
+    public void writeResourceWillThrowExceptionForNoHeaders() {
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> XlsxGenerator.writeResource(null, Stream.empty(), new ByteArrayOutputStream()));
+        assertThat(exception.getMessage(), is("Headers cannot be null or empty"));
+    }
+
+    @Test
+    public void writeResourceWillContainExpectedHeaderAndData() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        XlsxGenerator.writeResource(TEST_HEADERS, Stream.of(TEST_DATA_1, TEST_DATA_2), stream);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(stream.toByteArray()))) {
+            assertThat(workbook.getSheetAt(0).getPhysicalNumberOfRows(), equalTo(3));
+            assertRowAsExpected(workbook.getSheetAt(0).getRow(0), TEST_HEADERS);
+            assertRowAsExpected(workbook.getSheetAt(0).getRow(1), TEST_DATA_1);
+            assertRowAsExpected(workbook.getSheetAt(0).getRow(2), TEST_DATA_2);
+        }
+    }
+
+    @Test
+    public void writeResourceWillWriteRowsBeyondTheInMemoryWindow() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        XlsxGenerator.writeResource(TEST_HEADERS,
+                IntStream.range(0, 1000).mapToObj(i -> List.of("row " + i + " - col 1", "row " + i + " - col 2")),
+                stream);
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(stream.toByteArray()))) {
+            assertThat(workbook.getSheetAt(0).getPhysicalNumberOfRows(), equalTo(1001));
+            assertRowAsExpected(workbook.getSheetAt(0).getRow(1000), List.of("row 999 - col 1", "row 999 - col 2"));
+        }
+    }
+
 }